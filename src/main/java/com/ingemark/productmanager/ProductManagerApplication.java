@@ -1,12 +1,28 @@
 package com.ingemark.productmanager;
 
 import com.ingemark.productmanager.configuration.AdminConfig;
+import com.ingemark.productmanager.configuration.HnbClientConfig;
+import com.ingemark.productmanager.configuration.PasswordHashingConfig;
+import com.ingemark.productmanager.configuration.ProductBackfillConfig;
+import com.ingemark.productmanager.configuration.ProductCacheConfig;
+import com.ingemark.productmanager.configuration.ProductCodeAllocatorConfig;
+import com.ingemark.productmanager.configuration.ProductCodeFilterConfig;
+import com.ingemark.productmanager.configuration.ProductExportConfig;
+import com.ingemark.productmanager.configuration.ProductImportConfig;
+import com.ingemark.productmanager.configuration.RepricingConfig;
+import com.ingemark.productmanager.configuration.SearchConfig;
+import com.ingemark.productmanager.configuration.UserCacheConfig;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
-@EnableConfigurationProperties(AdminConfig.class)
+@EnableConfigurationProperties({AdminConfig.class, HnbClientConfig.class, PasswordHashingConfig.class,
+        ProductBackfillConfig.class, ProductCacheConfig.class, ProductCodeAllocatorConfig.class,
+        ProductCodeFilterConfig.class, ProductExportConfig.class, ProductImportConfig.class, RepricingConfig.class,
+        SearchConfig.class, UserCacheConfig.class})
 @SpringBootApplication
+@EnableScheduling
 public class ProductManagerApplication {
 
 	public static void main(String[] args) {
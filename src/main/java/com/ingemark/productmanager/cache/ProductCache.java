@@ -0,0 +1,88 @@
+package com.ingemark.productmanager.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.ingemark.productmanager.configuration.ProductCacheConfig;
+import com.ingemark.productmanager.model.product.response.ProductResponseDto;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.function.Function;
+
+import static java.util.Objects.nonNull;
+
+/**
+ * Bounded read-through cache of product responses keyed by product code.
+ * Eviction is size-based (W-TinyLFU), with an optional time to live.
+ * A value is loaded atomically per code: an invalidation that arrives while the value is being loaded waits
+ * for the load and then removes its result, so a value read before a write commits is never left in the cache.
+ * Writers must therefore invalidate after their transaction commits.
+ */
+@Component
+public class ProductCache implements MeterBinder {
+
+    private static final String CACHE_NAME = "products";
+
+    private final Cache<String, ProductResponseDto> cache;
+
+    @Autowired
+    public ProductCache(ProductCacheConfig productCacheConfig) {
+        this(productCacheConfig, Ticker.systemTicker());
+    }
+
+    ProductCache(ProductCacheConfig productCacheConfig, Ticker ticker) {
+        Caffeine<Object, Object> builder = Caffeine.newBuilder()
+                .maximumSize(productCacheConfig.getMaximumSize())
+                .ticker(ticker)
+                .recordStats();
+        if (nonNull(productCacheConfig.getExpireAfterWrite())) {
+            builder.expireAfterWrite(productCacheConfig.getExpireAfterWrite());
+        }
+        this.cache = builder.build();
+    }
+
+    /**
+     * Returns the cached product, loading it on a miss. Concurrent misses for the same code share one load.
+     * Nothing is cached if the loader throws.
+     *
+     * @param code Product code.
+     * @param loader Loads the product from the database.
+     * @return Cached or freshly loaded product.
+     */
+    public ProductResponseDto get(String code, Function<String, ProductResponseDto> loader) {
+        return cache.get(code, loader);
+    }
+
+    /**
+     * Returns the cached product without loading it.
+     *
+     * @param code Product code.
+     * @return Cached product, or null if it is not cached.
+     */
+    public ProductResponseDto getIfPresent(String code) {
+        return cache.getIfPresent(code);
+    }
+
+    public void invalidate(String code) {
+        cache.invalidate(code);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        new CaffeineCacheMetrics<>(cache, CACHE_NAME, List.of()).bindTo(registry);
+    }
+
+    long estimatedSize() {
+        cache.cleanUp();
+        return cache.estimatedSize();
+    }
+}
@@ -0,0 +1,116 @@
+package com.ingemark.productmanager.cache;
+
+import com.ingemark.productmanager.configuration.ProductCacheConfig;
+import com.ingemark.productmanager.repository.ProductRepository;
+import com.ingemark.productmanager.repository.ProductTombstoneRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps the product cache of this node coherent with writes made on other nodes, without a message broker.
+ * Every poll reads the codes of products updated since the previous poll (updated_at watermark) and of products
+ * deleted since then (product_tombstones), and evicts them from the cache. Each poll re-reads a short overlap
+ * before the watermark, so rows committed late or stamped by a node with a slightly different clock are not missed.
+ * Codes of updated products are also added to the product code filter, so products created on other nodes
+ * are not rejected by it, and the filter is told how far it has caught up.
+ * A poll that finds more than max-invalidations-per-poll changes, e.g. while a repricing job or an import runs,
+ * clears the whole cache instead and leaves the new codes to the next scheduled filter rebuild, so it never
+ * reads the whole table.
+ */
+@Component
+public class ProductCacheCoherencePoller implements MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductCacheCoherencePoller.class);
+
+    private final ProductCache productCache;
+    private final ProductCodeFilter productCodeFilter;
+    private final ProductRepository productRepository;
+    private final ProductTombstoneRepository productTombstoneRepository;
+    private final ProductCacheConfig productCacheConfig;
+
+    // start of the last successful poll; nothing cached before the node started can be stale
+    private volatile LocalDateTime watermark = LocalDateTime.now();
+    private final LongAdder invalidations = new LongAdder();
+    private final LongAdder fullInvalidations = new LongAdder();
+
+    public ProductCacheCoherencePoller(ProductCache productCache,
+                                       ProductCodeFilter productCodeFilter,
+                                       ProductRepository productRepository,
+                                       ProductTombstoneRepository productTombstoneRepository,
+                                       ProductCacheConfig productCacheConfig) {
+        this.productCache = productCache;
+        this.productCodeFilter = productCodeFilter;
+        this.productRepository = productRepository;
+        this.productTombstoneRepository = productTombstoneRepository;
+        this.productCacheConfig = productCacheConfig;
+    }
+
+    /**
+     * Evicts products changed or deleted since the last poll. A failed poll leaves the watermark in place,
+     * so its changes are picked up by the next one.
+     */
+    @Scheduled(fixedDelayString = "${app.product-cache.poll-interval:PT5S}")
+    public void poll() {
+        try {
+            LocalDateTime pollStart = LocalDateTime.now();
+            LocalDateTime since = watermark.minus(productCacheConfig.getPollOverlap());
+            int maxInvalidations = productCacheConfig.getMaxInvalidationsPerPoll();
+
+            List<String> updatedCodes = productRepository.findCodesUpdatedAfter(since, Limit.of(maxInvalidations + 1));
+            if (updatedCodes.size() > maxInvalidations) {
+                productCache.invalidateAll();
+                fullInvalidations.increment();
+                productCodeFilter.fellBehind();
+            } else {
+                updatedCodes.forEach(productCache::invalidate);
+                updatedCodes.forEach(productCodeFilter::add);
+                invalidations.add(updatedCodes.size());
+            }
+            List<String> deletedCodes = productTombstoneRepository.findCodesDeletedAfter(since);
+            deletedCodes.forEach(productCache::invalidate);
+            invalidations.add(deletedCodes.size());
+
+            productTombstoneRepository.deleteDeletedBefore(pollStart.minus(productCacheConfig.getTombstoneRetention()));
+            watermark = pollStart;
+            // rows committed late are only guaranteed to be read by the next poll, through its overlap
+            productCodeFilter.caughtUpTo(pollStart.minus(productCacheConfig.getPollOverlap()));
+        } catch (Exception e) {
+            log.warn("Product cache coherence poll failed, retrying on the next poll", e);
+        }
+    }
+
+    /**
+     * Returns how far behind this node may be: writes made on other nodes during this time may still be cached.
+     *
+     * @return Time since the start of the last successful poll.
+     */
+    public Duration getLag() {
+        return Duration.between(watermark, LocalDateTime.now());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("product.cache.coherence.lag", this, poller -> poller.getLag().toMillis() / 1000.0)
+                .description("Seconds since the last successful product cache coherence poll started")
+                .baseUnit("seconds")
+                .register(registry);
+        FunctionCounter.builder("product.cache.coherence.invalidations", invalidations, LongAdder::sum)
+                .tag("scope", "product")
+                .register(registry);
+        FunctionCounter.builder("product.cache.coherence.invalidations", fullInvalidations, LongAdder::sum)
+                .tag("scope", "all")
+                .register(registry);
+    }
+}
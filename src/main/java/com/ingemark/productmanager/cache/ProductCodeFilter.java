@@ -0,0 +1,295 @@
+package com.ingemark.productmanager.cache;
+
+import com.ingemark.productmanager.configuration.ProductCodeAllocatorConfig;
+import com.ingemark.productmanager.configuration.ProductCodeFilterConfig;
+import com.ingemark.productmanager.repository.ProductRepository;
+import com.ingemark.productmanager.util.ProductCode;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+/**
+ * Bloom filter of all existing product codes, so lookups of codes that do not exist (scrapers, stale links)
+ * are answered without a database round trip.
+ * The filter is built when the application is ready and rebuilt every rebuild-interval, which drops deleted codes
+ * and resizes it for the current number of products. New codes are added once their product is committed,
+ * by the creating node directly and by the other nodes through the cache coherence poll.
+ * Until the first build has finished, and if a build fails, every code is reported as possibly existing.
+ * A product created on another node reaches the filter only with the next poll, so the filter never rejects
+ * a code that may belong to a product created since the filter last caught up. Codes tell the year their product
+ * was created in, and nodes stop using a block of codes max-block-age after reserving it, so once the filter has
+ * caught up to max-block-age after it saw a code, every lower code of the year has been handed out and is in the
+ * filter if it exists. Only codes of the current year above that watermark, and of years after the last catch-up,
+ * always pass. Codes from before the yearly sequences are no longer issued, so the filter is trusted for them.
+ * A poll that finds more changes than it reads does not add all new codes; the filter then stops catching up
+ * until the next scheduled rebuild has read them.
+ */
+@Component
+public class ProductCodeFilter implements MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductCodeFilter.class);
+
+    private final ProductRepository productRepository;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final ProductCodeFilterConfig productCodeFilterConfig;
+    private final Duration maxBlockAge;
+
+    private volatile BloomFilter current;
+    // filter being rebuilt; codes added during the rebuild go to both, as the rebuild may not see them
+    private volatile BloomFilter building;
+    // products created before this are in the filter; null until the coherence poll first caught up
+    private volatile LocalDateTime caughtUpTo;
+    // set when a poll missed new codes; caughtUpTo stays in place until a rebuild started after this time
+    private final AtomicReference<LocalDateTime> behindSince = new AtomicReference<>();
+    // highest code number of each year in the filter
+    private final Map<Integer, Long> highestCodes = new ConcurrentHashMap<>();
+    // highest codes of the current year, by the time they were seen; guarded by itself
+    private final Deque<Watermark> seenCodes = new ArrayDeque<>();
+    // codes of its year up to this one were all created before caughtUpTo; null until max-block-age after the first
+    private volatile Watermark watermark;
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder passed = new LongAdder();
+    private final LongAdder recent = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+
+    public ProductCodeFilter(ProductRepository productRepository,
+                             TransactionTemplate readOnlyTransactionTemplate,
+                             ProductCodeFilterConfig productCodeFilterConfig,
+                             ProductCodeAllocatorConfig productCodeAllocatorConfig) {
+        this.productRepository = productRepository;
+        this.readOnlyTransactionTemplate = readOnlyTransactionTemplate;
+        this.productCodeFilterConfig = productCodeFilterConfig;
+        this.maxBlockAge = productCodeAllocatorConfig.getMaxBlockAge();
+    }
+
+    /**
+     * Checks whether a product with the code might exist.
+     *
+     * @param code Product code.
+     * @return False if no product with the code exists, true if it might.
+     */
+    public boolean mightExist(String code) {
+        BloomFilter filter = current;
+        if (isNull(filter)) {
+            return true;
+        }
+        if (filter.mightContain(code)) {
+            passed.increment();
+            return true;
+        }
+        if (mayBeCreatedSinceCaughtUp(code)) {
+            recent.increment();
+            return true;
+        }
+        rejected.increment();
+        return false;
+    }
+
+    /**
+     * Records that the filter holds the codes of all products created before the given time.
+     * Called after every successful coherence poll.
+     *
+     * @param createdBefore Time before which every created product has been added to the filter.
+     */
+    public void caughtUpTo(LocalDateTime createdBefore) {
+        if (nonNull(behindSince.get())) {
+            return;
+        }
+        caughtUpTo = createdBefore;
+        LocalDateTime now = LocalDateTime.now();
+        Long highest = highestCodes.get(now.getYear());
+        // codes up to one seen before this were handed out from blocks that expired before the filter caught up
+        LocalDateTime handedOutBefore = createdBefore.minus(maxBlockAge);
+        synchronized (seenCodes) {
+            if (nonNull(highest)) {
+                seenCodes.addLast(new Watermark(now, highest));
+            }
+            while (!seenCodes.isEmpty() && !seenCodes.peekFirst().seenAt().isAfter(handedOutBefore)) {
+                watermark = seenCodes.pollFirst();
+            }
+        }
+    }
+
+    /**
+     * Records that a coherence poll could not add all codes created since the filter last caught up.
+     * Those codes keep passing as possibly recent until the next rebuild has read them.
+     */
+    public void fellBehind() {
+        behindSince.compareAndSet(null, LocalDateTime.now());
+    }
+
+    /**
+     * Adds the code of a committed product. Adding the code only after the commit means a concurrent rebuild
+     * either reads the product or receives the code here.
+     *
+     * @param code Product code.
+     */
+    public void add(String code) {
+        recordHighest(code, highestCodes);
+        BloomFilter filter = current;
+        if (nonNull(filter)) {
+            filter.put(code);
+        }
+        BloomFilter rebuilding = building;
+        if (nonNull(rebuilding)) {
+            rebuilding.put(code);
+        }
+    }
+
+    /**
+     * Records a code that passed the filter but was not found in the database, for the observed false positive rate.
+     * Recently deleted codes are counted as well until the next rebuild. Codes that passed only because they may be
+     * recent are not false positives of the filter and are not counted.
+     *
+     * @param code Product code that was not found.
+     */
+    public void recordFalsePositive(String code) {
+        BloomFilter filter = current;
+        if (nonNull(filter) && filter.mightContain(code)) {
+            falsePositives.increment();
+        }
+    }
+
+    /**
+     * Builds a new filter from all product codes and replaces the current one with it.
+     * Codes are streamed from the database, so they are never all held in memory.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.product-code-filter.rebuild-interval:PT1H}",
+            initialDelayString = "${app.product-code-filter.rebuild-interval:PT1H}")
+    public synchronized void rebuild() {
+        if (!productCodeFilterConfig.isEnabled()) {
+            return;
+        }
+        LocalDateTime started = LocalDateTime.now();
+        try {
+            BloomFilter filter = readOnlyTransactionTemplate.execute(status -> {
+                long capacity = Math.max(productCodeFilterConfig.getMinimumCapacity(),
+                        (long) (productRepository.count() * productCodeFilterConfig.getHeadroom()));
+                BloomFilter rebuilding = new BloomFilter(capacity, productCodeFilterConfig.getFalsePositiveRate());
+                building = rebuilding;
+                Map<Integer, Long> highest = new HashMap<>();
+                try (Stream<String> codes = productRepository.streamAllCodes()) {
+                    codes.forEach(code -> {
+                        rebuilding.put(code);
+                        recordHighest(code, highest);
+                    });
+                }
+                highest.forEach((year, codeNumber) -> highestCodes.merge(year, codeNumber, Math::max));
+                return rebuilding;
+            });
+            current = filter;
+            LocalDateTime behind = behindSince.get();
+            if (nonNull(behind) && behind.isBefore(started)) {
+                behindSince.compareAndSet(behind, null);
+            }
+            log.info("Rebuilt product code filter: {} bytes, {} hash functions, expected false positive rate {}",
+                    filter.memoryBytes(), filter.hashCount(), filter.expectedFalsePositiveRate());
+        } catch (Exception e) {
+            log.warn("Product code filter rebuild failed, keeping the previous filter", e);
+        } finally {
+            building = null;
+        }
+    }
+
+    private boolean mayBeCreatedSinceCaughtUp(String code) {
+        if (!ProductCode.isValid(code)) {
+            return false;
+        }
+        long codeNumber = ProductCode.decode(code);
+        if (!ProductCode.hasYear(codeNumber)) {
+            return false;
+        }
+        int year = ProductCode.year(codeNumber);
+        LocalDateTime since = caughtUpTo;
+        if (isNull(since)) {
+            return year <= LocalDate.now().getYear();
+        }
+        if (year < since.getYear() || year > LocalDate.now().getYear()) {
+            return false;
+        }
+        Watermark below = watermark;
+        return isNull(below) || ProductCode.year(below.codeNumber()) != year || codeNumber > below.codeNumber();
+    }
+
+    private static void recordHighest(String code, Map<Integer, Long> highest) {
+        if (ProductCode.isValid(code)) {
+            long codeNumber = ProductCode.decode(code);
+            if (ProductCode.hasYear(codeNumber)) {
+                highest.merge(ProductCode.year(codeNumber), codeNumber, Math::max);
+            }
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("product.code.filter.lookups", rejected, LongAdder::sum)
+                .description("Product lookups answered by the code filter")
+                .tag("result", "rejected")
+                .register(registry);
+        FunctionCounter.builder("product.code.filter.lookups", passed, LongAdder::sum)
+                .description("Product lookups answered by the code filter")
+                .tag("result", "passed")
+                .register(registry);
+        FunctionCounter.builder("product.code.filter.lookups", recent, LongAdder::sum)
+                .description("Product lookups answered by the code filter")
+                .tag("result", "recent")
+                .register(registry);
+        FunctionCounter.builder("product.code.filter.lookups", falsePositives, LongAdder::sum)
+                .description("Product lookups answered by the code filter")
+                .tag("result", "false_positive")
+                .register(registry);
+        Gauge.builder("product.code.filter.false.positive.rate", this, ProductCodeFilter::observedFalsePositiveRate)
+                .description("Share of lookups for missing codes that passed the filter and reached the database")
+                .tag("kind", "observed")
+                .register(registry);
+        Gauge.builder("product.code.filter.false.positive.rate", this, ProductCodeFilter::expectedFalsePositiveRate)
+                .description("False positive rate estimated from the bits set in the filter")
+                .tag("kind", "expected")
+                .register(registry);
+        Gauge.builder("product.code.filter.memory", this, ProductCodeFilter::memoryBytes)
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    double observedFalsePositiveRate() {
+        double misses = rejected.sum() + falsePositives.sum();
+        return misses == 0 ? 0 : falsePositives.sum() / misses;
+    }
+
+    double expectedFalsePositiveRate() {
+        BloomFilter filter = current;
+        return isNull(filter) ? 1 : filter.expectedFalsePositiveRate();
+    }
+
+    long memoryBytes() {
+        BloomFilter filter = current;
+        return isNull(filter) ? 0 : filter.memoryBytes();
+    }
+
+    private record Watermark(LocalDateTime seenAt, long codeNumber) {
+    }
+}
@@ -0,0 +1,87 @@
+package com.ingemark.productmanager.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.ingemark.productmanager.configuration.UserCacheConfig;
+import com.ingemark.productmanager.model.user.UserPrincipal;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Bounded cache of the immutable user principals loaded for authentication, keyed by username.
+ * Entries expire after app.user-cache.expire-after-write, which bounds how long a change made on another node goes
+ * unnoticed. Changes made on this node invalidate the user once their transaction commits.
+ * A principal is loaded atomically per username, so concurrent misses share one query and an invalidation
+ * arriving during a load removes its result.
+ */
+@Component
+public class UserPrincipalCache implements MeterBinder {
+
+    private static final String CACHE_NAME = "users";
+
+    private final Cache<String, UserPrincipal> cache;
+
+    @Autowired
+    public UserPrincipalCache(UserCacheConfig userCacheConfig) {
+        this(userCacheConfig, Ticker.systemTicker());
+    }
+
+    UserPrincipalCache(UserCacheConfig userCacheConfig, Ticker ticker) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(userCacheConfig.getMaximumSize())
+                .expireAfterWrite(userCacheConfig.getExpireAfterWrite())
+                .ticker(ticker)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Returns the cached principal, loading it on a miss. Nothing is cached if the loader throws,
+     * so unknown usernames are looked up again every time.
+     *
+     * @param username Username of the user.
+     * @param loader Loads the user from the database.
+     * @return Cached or freshly loaded principal.
+     */
+    public UserPrincipal get(String username, Function<String, UserPrincipal> loader) {
+        return cache.get(username, loader);
+    }
+
+    /**
+     * Invalidates the user once the current transaction commits, or at once outside a transaction.
+     * Must be called by everything changing a user's password, role or enabled state.
+     *
+     * @param username Username of the changed user.
+     */
+    public void invalidate(String username) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.invalidate(username);
+                }
+            });
+        } else {
+            cache.invalidate(username);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        new CaffeineCacheMetrics<>(cache, CACHE_NAME, List.of()).bindTo(registry);
+    }
+
+    long estimatedSize() {
+        cache.cleanUp();
+        return cache.estimatedSize();
+    }
+}
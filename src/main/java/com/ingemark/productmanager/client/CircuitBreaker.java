@@ -0,0 +1,67 @@
+package com.ingemark.productmanager.client;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Circuit breaker that opens after a number of consecutive failures.
+ * While open, calls are rejected without reaching the remote service. Once the open duration has passed,
+ * a single trial call is let through: its success closes the circuit, its failure opens it again.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final Duration openDuration;
+
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private volatile Instant openedAt = Instant.MIN;
+
+    public CircuitBreaker(int failureThreshold, Duration openDuration) {
+        this.failureThreshold = failureThreshold;
+        this.openDuration = openDuration;
+    }
+
+    /**
+     * Decides whether a call may be made now. Moves an expired open circuit to half-open for exactly one caller.
+     *
+     * @return True if the call may be made.
+     */
+    public boolean tryAcquirePermission() {
+        State current = state.get();
+        if (current == State.CLOSED) {
+            return true;
+        }
+        if (current == State.OPEN && Instant.now().isAfter(openedAt.plus(openDuration))) {
+            return state.compareAndSet(State.OPEN, State.HALF_OPEN);
+        }
+        return false;
+    }
+
+    public void onSuccess() {
+        consecutiveFailures.set(0);
+        state.set(State.CLOSED);
+    }
+
+    public void onFailure() {
+        if (state.get() == State.HALF_OPEN || consecutiveFailures.incrementAndGet() >= failureThreshold) {
+            open();
+        }
+    }
+
+    public State getState() {
+        return state.get();
+    }
+
+    private void open() {
+        openedAt = Instant.now();
+        consecutiveFailures.set(0);
+        state.set(State.OPEN);
+    }
+}
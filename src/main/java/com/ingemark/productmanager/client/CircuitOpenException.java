@@ -0,0 +1,11 @@
+package com.ingemark.productmanager.client;
+
+/**
+ * Thrown instead of calling a remote service whose circuit breaker is open.
+ */
+public class CircuitOpenException extends RuntimeException {
+
+    public CircuitOpenException(String service) {
+        super("Circuit breaker for " + service + " is open");
+    }
+}
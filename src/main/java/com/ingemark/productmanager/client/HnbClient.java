@@ -0,0 +1,158 @@
+package com.ingemark.productmanager.client;
+
+import com.ingemark.productmanager.configuration.HnbClientConfig;
+import com.ingemark.productmanager.model.product.response.HnbRateResponse;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+/**
+ * Client for the HNB exchange rate API.
+ * Calls go through a circuit breaker, so a failing HNB is not called again until the breaker lets a trial call through.
+ * If a hedge delay is configured, a second request is sent when the first one is slow or fails, and the first
+ * successful response wins.
+ */
+@Component
+public class HnbClient implements MeterBinder {
+
+    private static final String SERVICE_NAME = "HNB";
+
+    private final RestTemplate hnbRestTemplate;
+    private final String hnbApiUrl;
+    private final CircuitBreaker circuitBreaker;
+    private final Duration hedgeDelay;
+    private final ExecutorService hedgeExecutor;
+
+    private final LongAdder successes = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+    private final LongAdder hedges = new LongAdder();
+
+    public HnbClient(RestTemplate hnbRestTemplate,
+                     HnbClientConfig hnbClientConfig,
+                     @Value("${hnb.api.url}") String hnbApiUrl) {
+        this.hnbRestTemplate = hnbRestTemplate;
+        this.hnbApiUrl = hnbApiUrl;
+        this.circuitBreaker = new CircuitBreaker(hnbClientConfig.getFailureThreshold(), hnbClientConfig.getOpenDuration());
+        this.hedgeDelay = hnbClientConfig.getHedgeDelay();
+        this.hedgeExecutor = isNull(hedgeDelay) ? null : Executors.newFixedThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "hnb-hedge");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Fetches the full EUR rate list.
+     *
+     * @return Rates as returned by HNB.
+     * @throws CircuitOpenException if HNB failed repeatedly and the circuit breaker is open.
+     */
+    public HnbRateResponse[] fetchRates() {
+        if (!circuitBreaker.tryAcquirePermission()) {
+            rejections.increment();
+            throw new CircuitOpenException(SERVICE_NAME);
+        }
+        try {
+            HnbRateResponse[] rates = nonNull(hedgeExecutor) ? exchangeHedged() : exchange();
+            circuitBreaker.onSuccess();
+            successes.increment();
+            return rates;
+        } catch (RuntimeException e) {
+            circuitBreaker.onFailure();
+            failures.increment();
+            throw e;
+        }
+    }
+
+    public CircuitBreaker.State getCircuitState() {
+        return circuitBreaker.getState();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (nonNull(hedgeExecutor)) {
+            hedgeExecutor.shutdownNow();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("hnb.client.circuit.state", circuitBreaker, breaker -> breaker.getState().ordinal())
+                .description("HNB circuit breaker state: 0 closed, 1 open, 2 half-open")
+                .register(registry);
+        FunctionCounter.builder("hnb.client.requests", successes, LongAdder::sum)
+                .tag("result", "success")
+                .register(registry);
+        FunctionCounter.builder("hnb.client.requests", failures, LongAdder::sum)
+                .tag("result", "failure")
+                .register(registry);
+        FunctionCounter.builder("hnb.client.requests", rejections, LongAdder::sum)
+                .tag("result", "rejected")
+                .register(registry);
+        FunctionCounter.builder("hnb.client.hedges", hedges, LongAdder::sum)
+                .description("Hedged HNB requests sent because the first request was slow or failed")
+                .register(registry);
+    }
+
+    private HnbRateResponse[] exchange() {
+        return hnbRestTemplate.getForObject(hnbApiUrl, HnbRateResponse[].class);
+    }
+
+    /**
+     * Sends the request, and a hedged copy once the hedge delay passes or the first request fails.
+     * Fails only when both requests fail.
+     *
+     * @return First successful response.
+     */
+    private HnbRateResponse[] exchangeHedged() {
+        CompletableFuture<HnbRateResponse[]> result = new CompletableFuture<>();
+        AtomicInteger attemptsLeft = new AtomicInteger(2);
+        AtomicBoolean hedgeSent = new AtomicBoolean();
+        Runnable hedge = () -> {
+            if (!result.isDone() && hedgeSent.compareAndSet(false, true)) {
+                hedges.increment();
+                send(result, attemptsLeft, () -> {
+                });
+            }
+        };
+
+        send(result, attemptsLeft, hedge);
+        CompletableFuture.delayedExecutor(hedgeDelay.toMillis(), TimeUnit.MILLISECONDS, hedgeExecutor).execute(hedge);
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    private void send(CompletableFuture<HnbRateResponse[]> result, AtomicInteger attemptsLeft, Runnable onFailure) {
+        CompletableFuture.supplyAsync(this::exchange, hedgeExecutor).whenComplete((rates, error) -> {
+            if (isNull(error)) {
+                result.complete(rates);
+            } else if (attemptsLeft.decrementAndGet() == 0) {
+                result.completeExceptionally(error);
+            } else {
+                onFailure.run();
+            }
+        });
+    }
+}
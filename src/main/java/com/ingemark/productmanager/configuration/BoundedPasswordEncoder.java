@@ -0,0 +1,153 @@
+package com.ingemark.productmanager.configuration;
+
+import com.ingemark.productmanager.exception.PasswordHashingBusyException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.util.Objects.nonNull;
+
+/**
+ * BCrypt password encoder that hashes on a dedicated pool of password-hashing threads instead of the request thread,
+ * so a burst of logins cannot take every core from other requests.
+ * The pool and its queue are bounded: when both are full, the request fails at once with PasswordHashingBusyException
+ * (503) instead of waiting. The bcrypt cost is calibrated at startup to the configured target duration.
+ * Hashes with a lower cost are reported by upgradeEncoding and re-hashed on the next successful login.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder, MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(BoundedPasswordEncoder.class);
+
+    private final PasswordEncoder delegate;
+    private final int strength;
+    private final ThreadPoolExecutor executor;
+    private final LongAdder rejected = new LongAdder();
+    private volatile Timer encodeTimer;
+    private volatile Timer matchesTimer;
+
+    public BoundedPasswordEncoder(PasswordHashingConfig passwordHashingConfig) {
+        this(passwordHashingConfig, resolveStrength(passwordHashingConfig));
+    }
+
+    private BoundedPasswordEncoder(PasswordHashingConfig passwordHashingConfig, int strength) {
+        this(passwordHashingConfig, new BCryptPasswordEncoder(strength), strength);
+    }
+
+    BoundedPasswordEncoder(PasswordHashingConfig passwordHashingConfig, PasswordEncoder delegate, int strength) {
+        this.delegate = delegate;
+        this.strength = strength;
+        int threads = nonNull(passwordHashingConfig.getThreads())
+                ? passwordHashingConfig.getThreads()
+                : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(passwordHashingConfig.getQueueCapacity()),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return hash(() -> delegate.encode(rawPassword), encodeTimer);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return hash(() -> delegate.matches(rawPassword, encodedPassword), matchesTimer);
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    public int getStrength() {
+        return strength;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        encodeTimer = Timer.builder("password.hash.duration")
+                .description("Time spent hashing a password, not counting the wait in the queue")
+                .tag("operation", "encode")
+                .register(registry);
+        matchesTimer = Timer.builder("password.hash.duration")
+                .description("Time spent hashing a password, not counting the wait in the queue")
+                .tag("operation", "matches")
+                .register(registry);
+        Gauge.builder("password.hash.queue.depth", executor, pool -> pool.getQueue().size())
+                .description("Password hashes waiting for a password-hashing thread")
+                .register(registry);
+        FunctionCounter.builder("password.hash.rejected", rejected, LongAdder::sum)
+                .description("Password hashes rejected because the queue was full")
+                .register(registry);
+        Gauge.builder("password.hash.strength", this, BoundedPasswordEncoder::getStrength)
+                .description("Calibrated bcrypt cost")
+                .register(registry);
+    }
+
+    private <T> T hash(Callable<T> hashing, Timer timer) {
+        try {
+            return executor.submit(() -> nonNull(timer) ? timer.recordCallable(hashing) : hashing.call()).get();
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new PasswordHashingBusyException();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the password hash", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    /**
+     * Returns the configured bcrypt cost, or the highest cost whose hash takes at most the target duration.
+     * Every cost step doubles the hashing time, so the cost is derived from one hash at the minimum cost.
+     */
+    static int resolveStrength(PasswordHashingConfig passwordHashingConfig) {
+        if (nonNull(passwordHashingConfig.getStrength())) {
+            return passwordHashingConfig.getStrength();
+        }
+        int strength = passwordHashingConfig.getMinStrength();
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(strength);
+        encoder.encode("calibration"); // warm-up
+        long start = System.nanoTime();
+        encoder.encode("calibration");
+        long nanos = System.nanoTime() - start;
+
+        long targetNanos = passwordHashingConfig.getTargetDuration().toNanos();
+        while (strength < passwordHashingConfig.getMaxStrength() && nanos * 2 <= targetNanos) {
+            strength++;
+            nanos *= 2;
+        }
+        log.info("Calibrated bcrypt cost {}, about {} ms per hash", strength, TimeUnit.NANOSECONDS.toMillis(nanos));
+        return strength;
+    }
+}
@@ -0,0 +1,22 @@
+package com.ingemark.productmanager.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "hnb.client")
+@Data
+public class HnbClientConfig {
+    private Duration connectTimeout = Duration.ofSeconds(2);
+    private Duration readTimeout = Duration.ofSeconds(3);
+    private Duration connectionRequestTimeout = Duration.ofSeconds(1);
+    private int maxConnections = 4;
+    private int failureThreshold = 3;
+    private Duration openDuration = Duration.ofSeconds(60);
+    /**
+     * Delay after which a second, hedged request is sent if the first one has not answered yet.
+     * Hedging is disabled when not set.
+     */
+    private Duration hedgeDelay;
+}
@@ -0,0 +1,21 @@
+package com.ingemark.productmanager.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "app.password-hashing")
+@Data
+public class PasswordHashingConfig {
+    // half of the available processors if not set, so hashing cannot take all cores from other requests
+    private Integer threads;
+    // logins and registrations beyond the threads and this queue are rejected with 503
+    private int queueCapacity = 32;
+    // the bcrypt cost is calibrated at startup so that one hash takes at most this long
+    private Duration targetDuration = Duration.ofMillis(250);
+    private int minStrength = 10;
+    private int maxStrength = 16;
+    // skips the calibration if set, e.g. to use the same cost on every node
+    private Integer strength;
+}
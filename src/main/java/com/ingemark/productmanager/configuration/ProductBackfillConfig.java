@@ -0,0 +1,11 @@
+package com.ingemark.productmanager.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "app.product-backfill")
+@Data
+public class ProductBackfillConfig {
+    // rows per transaction when filling a column added to products for the rows stored before it existed
+    private int batchSize = 1_000;
+}
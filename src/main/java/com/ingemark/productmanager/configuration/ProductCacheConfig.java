@@ -0,0 +1,22 @@
+package com.ingemark.productmanager.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "app.product-cache")
+@Data
+public class ProductCacheConfig {
+    private long maximumSize = 10_000;
+    // entries live until evicted or invalidated if not set
+    private Duration expireAfterWrite;
+
+    // how often every node checks the products and product_tombstones tables for changes made by other nodes
+    private Duration pollInterval = Duration.ofSeconds(5);
+    // re-reads changes this far behind the last poll, covering clock skew between nodes and late commits
+    private Duration pollOverlap = Duration.ofSeconds(10);
+    // above this many changed products in one poll the whole cache is cleared, e.g. after repricing
+    private int maxInvalidationsPerPoll = 1_000;
+    private Duration tombstoneRetention = Duration.ofDays(1);
+}
@@ -0,0 +1,18 @@
+package com.ingemark.productmanager.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "app.product-code-allocator")
+@Data
+public class ProductCodeAllocatorConfig {
+    // codes reserved per nextval call; must equal the INCREMENT BY of product_code_2025_seq, checked on the first call
+    private int blockSize = 1_000;
+    // share of the block left when the next block is fetched in the background
+    private double refillThreshold = 0.25;
+    // a block is not used for longer than this after it was reserved, so every code below one seen this long ago has
+    // been handed out; the product code filter relies on it, so it has to be the same on all nodes
+    private Duration maxBlockAge = Duration.ofMinutes(1);
+}
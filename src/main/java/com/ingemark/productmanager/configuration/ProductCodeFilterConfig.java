@@ -0,0 +1,19 @@
+package com.ingemark.productmanager.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "app.product-code-filter")
+@Data
+public class ProductCodeFilterConfig {
+    private boolean enabled = true;
+    // share of lookups for codes that do not exist which still reach the database
+    private double falsePositiveRate = 0.01;
+    // the filter is sized for this many times the current number of products, leaving room for new ones until the next rebuild
+    private double headroom = 1.5;
+    private long minimumCapacity = 10_000;
+    // deleted codes stay in the filter until it is rebuilt
+    private Duration rebuildInterval = Duration.ofHours(1);
+}
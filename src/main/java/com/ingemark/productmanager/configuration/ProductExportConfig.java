@@ -0,0 +1,12 @@
+package com.ingemark.productmanager.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "app.product-export")
+@Data
+public class ProductExportConfig {
+    // exports running at once; each holds a connection for its whole duration, so this bounds what they take
+    // from the pool shared with the write path
+    private int maxConcurrent = 2;
+}
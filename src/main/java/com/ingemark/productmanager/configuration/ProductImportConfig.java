@@ -0,0 +1,11 @@
+package com.ingemark.productmanager.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "app.product-import")
+@Data
+public class ProductImportConfig {
+    // products per JDBC batch, per code block and per transaction; also bounds the items held in memory
+    private int batchSize = 1_000;
+}
@@ -0,0 +1,14 @@
+package com.ingemark.productmanager.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "app.repricing")
+@Data
+public class RepricingConfig {
+    private int chunkSize = 10_000;
+    private int parallelism = 4;
+    private Duration staleAfter = Duration.ofMinutes(5);
+}
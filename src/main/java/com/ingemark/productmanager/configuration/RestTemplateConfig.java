@@ -1,13 +1,50 @@
 package com.ingemark.productmanager.configuration;
 
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
+/**
+ * HTTP client used for HNB API calls.
+ * Connections are pooled and every phase of a call is time-bounded, so a slow HNB never blocks a thread indefinitely.
+ */
 @Configuration
 public class RestTemplateConfig {
+
+    @Bean
+    public CloseableHttpClient hnbHttpClient(HnbClientConfig config) {
+        ConnectionConfig connectionConfig = ConnectionConfig.custom()
+                .setConnectTimeout(Timeout.of(config.getConnectTimeout()))
+                .setSocketTimeout(Timeout.of(config.getReadTimeout()))
+                .build();
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectionRequestTimeout(Timeout.of(config.getConnectionRequestTimeout()))
+                .setResponseTimeout(Timeout.of(config.getReadTimeout()))
+                .build();
+
+        return HttpClients.custom()
+                .setConnectionManager(PoolingHttpClientConnectionManagerBuilder.create()
+                        .setMaxConnTotal(config.getMaxConnections())
+                        .setMaxConnPerRoute(config.getMaxConnections())
+                        .setDefaultConnectionConfig(connectionConfig)
+                        .build())
+                .setDefaultRequestConfig(requestConfig)
+                .evictIdleConnections(TimeValue.ofSeconds(30))
+                // retries are decided by HnbClient, so a failing HNB is not called more often than configured
+                .disableAutomaticRetries()
+                .build();
+    }
+
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public RestTemplate hnbRestTemplate(CloseableHttpClient hnbHttpClient) {
+        return new RestTemplate(new HttpComponentsClientHttpRequestFactory(hnbHttpClient));
     }
 }
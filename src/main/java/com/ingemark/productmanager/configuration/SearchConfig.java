@@ -0,0 +1,11 @@
+package com.ingemark.productmanager.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "app.search")
+@Data
+public class SearchConfig {
+    // ranks RELEVANCE searches with pg_trgm similarity(); databases without pg_trgm fall back to match position
+    private boolean trigramSimilarity = false;
+}
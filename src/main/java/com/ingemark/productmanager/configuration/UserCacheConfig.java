@@ -0,0 +1,14 @@
+package com.ingemark.productmanager.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "app.user-cache")
+@Data
+public class UserCacheConfig {
+    private long maximumSize = 10_000;
+    // bounds how long a change made on another node, or directly in the database, can go unnoticed
+    private Duration expireAfterWrite = Duration.ofMinutes(5);
+}
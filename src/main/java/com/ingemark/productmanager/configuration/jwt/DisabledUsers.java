@@ -0,0 +1,48 @@
+package com.ingemark.productmanager.configuration.jwt;
+
+import com.ingemark.productmanager.cache.UserPrincipalCache;
+import com.ingemark.productmanager.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+
+/**
+ * Usernames of disabled users, so tokens issued to them before they were disabled are rejected without a database
+ * query per request. The set is reloaded every app.jwtDisabledUsersRefreshInMs; a user disabled on any node is
+ * rejected by every node within that time. Users disabled or enabled since the last reload are evicted from the
+ * user cache, so their next login sees the change.
+ */
+@Component
+@RequiredArgsConstructor
+public class DisabledUsers {
+
+    private static final Logger log = LoggerFactory.getLogger(DisabledUsers.class);
+
+    private final UserRepository userRepository;
+    private final UserPrincipalCache userPrincipalCache;
+
+    private volatile Set<String> usernames = Set.of();
+
+    public boolean isDisabled(String username) {
+        return usernames.contains(username);
+    }
+
+    /**
+     * Reloads the disabled usernames. A failed reload keeps the previous set until the next one.
+     */
+    @Scheduled(fixedDelayString = "${app.jwtDisabledUsersRefreshInMs:5000}")
+    public void refresh() {
+        try {
+            Set<String> previous = usernames;
+            usernames = Set.copyOf(userRepository.findDisabledUsernames());
+            previous.stream().filter(username -> !usernames.contains(username)).forEach(userPrincipalCache::invalidate);
+            usernames.stream().filter(username -> !previous.contains(username)).forEach(userPrincipalCache::invalidate);
+        } catch (Exception e) {
+            log.warn("Reloading disabled users failed, retrying on the next refresh", e);
+        }
+    }
+}
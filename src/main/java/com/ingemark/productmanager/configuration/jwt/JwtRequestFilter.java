@@ -1,7 +1,9 @@
 package com.ingemark.productmanager.configuration.jwt;
 
-import com.ingemark.productmanager.service.CustomUserDetailsService;
+import com.ingemark.productmanager.model.user.UserPrincipal;
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -9,7 +11,6 @@ import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -19,13 +20,18 @@ import java.io.IOException;
 /**
  * Filter that intercepts incoming HTTP requests to validate JWT tokens
  * and set authentication in the security context.
+ * Each token is parsed and its signature verified once per request, or not at all if it was verified before.
+ * The user is built from the claims of the token, without loading it from the database; tokens of users
+ * disabled after the token was issued are rejected through {@link DisabledUsers}, and revoked tokens through
+ * {@link TokenRevocations}.
  */
 @Component
 @RequiredArgsConstructor
 public class JwtRequestFilter extends OncePerRequestFilter {
 
-    private final CustomUserDetailsService userDetailsService;
     private final JwtUtil jwtUtil;
+    private final DisabledUsers disabledUsers;
+    private final TokenRevocations tokenRevocations;
 
     /**
      * Filters the request to extract the JWT token from the Authorization header,
@@ -43,24 +49,24 @@ public class JwtRequestFilter extends OncePerRequestFilter {
 
         final String requestTokenHeader = request.getHeader("Authorization");
 
-        String username = null;
-        String jwtToken = null;
+        Claims claims = null;
 
         if (requestTokenHeader != null && requestTokenHeader.startsWith("Bearer ")) {
-            jwtToken = requestTokenHeader.substring(7);
+            String jwtToken = requestTokenHeader.substring(7);
             try {
-                username = jwtUtil.getUsernameFromToken(jwtToken);
-            } catch (IllegalArgumentException e) {
-                logger.error("Unable to get JWT Token");
+                claims = jwtUtil.parseToken(jwtToken);
             } catch (ExpiredJwtException e) {
                 logger.error("JWT Token has expired");
+            } catch (JwtException | IllegalArgumentException e) {
+                logger.error("Unable to get JWT Token");
             }
         }
 
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
-
-            if (jwtUtil.validateToken(jwtToken, userDetails)) {
+        if (claims != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            if (jwtUtil.validateToken(claims)
+                    && !disabledUsers.isDisabled(claims.getSubject())
+                    && !tokenRevocations.isRevoked(claims)) {
+                UserPrincipal userDetails = jwtUtil.getUserPrincipal(claims);
                 UsernamePasswordAuthenticationToken usernamePasswordAuthenticationToken =
                         new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
                 usernamePasswordAuthenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
@@ -1,49 +1,88 @@
 package com.ingemark.productmanager.configuration.jwt;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.ingemark.productmanager.model.user.UserPrincipal;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.function.Function;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
 
 /**
  * Utility class for creating, parsing, and validating JSON Web Tokens (JWT).
+ * The signing key and the parser are built once, when the application starts, so a weak secret fails the startup.
+ * Verified tokens are cached with their claims until they expire, so a client sending the same token
+ * with every request has its signature checked only once.
+ * Tokens carry the user's id, roles and enabled state as signed claims, so requests are authenticated
+ * without loading the user. Role changes therefore take effect when the user's tokens reach the max age.
  */
 @Component
 public class JwtUtil {
 
-    @Value("${app.jwtSecret:mySecretKey}")
-    private String jwtSecret;
+    static final String USER_ID_CLAIM = "uid";
+    static final String ROLES_CLAIM = "roles";
+    static final String ENABLED_CLAIM = "enabled";
+    // issue time in microseconds since the epoch; iat has whole seconds only, too coarse to order a token and a revocation
+    static final String ISSUED_AT_MICROS_CLAIM = "iat_us";
 
-    @Value("${app.jwtExpirationInMs:86400000}")
-    private int jwtExpirationInMs;
+    private final SecretKey signingKey;
+    private final JwtParser jwtParser;
+    private final int jwtExpirationInMs;
+    private final long jwtMaxAgeInMs;
+    private final Cache<String, Claims> verifiedTokens;
 
-    /**
-     * Returns the secret key used to sign JWT tokens.
-     *
-     * @return the signing SecretKey
-     */
-    private SecretKey getSigningKey() {
-        byte[] keyBytes = jwtSecret.getBytes(StandardCharsets.UTF_8);
-        return Keys.hmacShaKeyFor(keyBytes);
+    public JwtUtil(@Value("${app.jwtSecret:mySecretKey}") String jwtSecret,
+                   @Value("${app.jwtExpirationInMs:86400000}") int jwtExpirationInMs,
+                   @Value("${app.jwtMaxAgeInMs:86400000}") long jwtMaxAgeInMs,
+                   @Value("${app.jwtClaimsCacheSize:10000}") long jwtClaimsCacheSize) {
+        this.signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+        this.jwtParser = Jwts.parser()
+                .verifyWith(signingKey)
+                .build();
+        this.jwtExpirationInMs = jwtExpirationInMs;
+        this.jwtMaxAgeInMs = jwtMaxAgeInMs;
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(jwtClaimsCacheSize)
+                .expireAfter(new UntilTokenExpires())
+                .build();
     }
 
     /**
-     * Generates a JWT token for the given user details.
+     * Generates a JWT token for the given user details, with their id, roles and enabled state as claims.
+     * Every token gets a unique id (jti), by which it can be revoked, and its issue time in microseconds,
+     * by which revocations of its user are ordered against it.
      *
      * @param userDetails the user details for whom the token is generated
      * @return the generated JWT token as a String
      */
     public String generateToken(UserDetails userDetails) {
         Map<String, Object> claims = new HashMap<>();
+        if (userDetails instanceof UserPrincipal userPrincipal) {
+            claims.put(USER_ID_CLAIM, userPrincipal.getId());
+        }
+        claims.put(ROLES_CLAIM, userDetails.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList());
+        claims.put(ENABLED_CLAIM, userDetails.isEnabled());
         return createToken(claims, userDetails.getUsername());
     }
 
@@ -55,82 +94,116 @@ public class JwtUtil {
      * @return the JWT token string
      */
     private String createToken(Map<String, Object> claims, String subject) {
+        Instant issuedAt = Instant.now();
         return Jwts.builder()
                 .claims(claims)
+                .claim(ISSUED_AT_MICROS_CLAIM, ChronoUnit.MICROS.between(Instant.EPOCH, issuedAt))
                 .subject(subject)
-                .issuedAt(new Date(System.currentTimeMillis()))
-                .expiration(new Date(System.currentTimeMillis() + jwtExpirationInMs))
-                .signWith(getSigningKey())
+                .id(UUID.randomUUID().toString())
+                .issuedAt(Date.from(issuedAt))
+                .expiration(new Date(issuedAt.toEpochMilli() + jwtExpirationInMs))
+                .signWith(signingKey)
                 .compact();
     }
 
     /**
-     * Validates the JWT token against the given user details.
+     * Verifies the signature and expiration of the JWT token and returns its claims.
+     * The token is parsed only the first time it is seen; later calls return the cached claims until the token expires.
      *
-     * @param token       the JWT token string
-     * @param userDetails the user details to validate against
-     * @return true if token is valid and username matches, false otherwise
+     * @param token the JWT token string
+     * @return the claims of the token
+     * @throws io.jsonwebtoken.ExpiredJwtException if the token has expired
+     * @throws JwtException if the token is malformed or its signature is invalid
+     * @throws IllegalArgumentException if the token is empty
      */
-    public Boolean validateToken(String token, UserDetails userDetails) {
-        final String username = getUsernameFromToken(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+    public Claims parseToken(String token) {
+        return verifiedTokens.get(token, this::parseAndVerify);
     }
 
     /**
-     * Extracts the username (subject) from the JWT token.
+     * Validates the claims of a verified JWT token.
+     * Tokens without the user claims, such as those issued before the claims were added, are not valid.
      *
-     * @param token the JWT token string
-     * @return the username contained in the token
+     * @param claims the claims returned by {@link #parseToken(String)}
+     * @return true if the token belongs to an enabled user, has not expired and is not older than the max age
      */
-    public String getUsernameFromToken(String token) {
-        return getClaimFromToken(token, Claims::getSubject);
+    public boolean validateToken(Claims claims) {
+        return nonNull(claims.getSubject())
+                && nonNull(claims.get(ROLES_CLAIM, List.class))
+                && Boolean.TRUE.equals(claims.get(ENABLED_CLAIM, Boolean.class))
+                && !isTokenExpired(claims)
+                && !isTokenTooOld(claims);
     }
 
     /**
-     * Extracts the expiration date from the JWT token.
+     * Builds the authenticated user from the claims of a valid JWT token, without loading it from the database.
+     * The principal has no password and no email.
      *
-     * @param token the JWT token string
-     * @return the expiration Date
+     * @param claims the claims of a token accepted by {@link #validateToken(Claims)}
+     * @return the user the token was issued to
      */
-    public Date getExpirationDateFromToken(String token) {
-        return getClaimFromToken(token, Claims::getExpiration);
+    public UserPrincipal getUserPrincipal(Claims claims) {
+        List<GrantedAuthority> authorities = ((List<?>) claims.get(ROLES_CLAIM, List.class)).stream()
+                .<GrantedAuthority>map(role -> new SimpleGrantedAuthority(role.toString()))
+                .toList();
+        Number userId = claims.get(USER_ID_CLAIM, Number.class);
+        return new UserPrincipal(
+                nonNull(userId) ? userId.longValue() : null,
+                claims.getSubject(),
+                null,
+                null,
+                authorities,
+                true
+        );
+    }
+
+    private Claims parseAndVerify(String token) {
+        return jwtParser.parseSignedClaims(token).getPayload();
     }
 
     /**
-     * Extracts a claim from the JWT token using the provided claims resolver function.
+     * Checks if the JWT token has expired.
      *
-     * @param <T>            the type of the claim
-     * @param token          the JWT token string
-     * @param claimsResolver function to extract the claim from Claims
-     * @return the extracted claim
+     * @param claims the claims of the token
+     * @return true if the token has expired, false otherwise
      */
-    public <T> T getClaimFromToken(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = getAllClaimsFromToken(token);
-        return claimsResolver.apply(claims);
+    private boolean isTokenExpired(Claims claims) {
+        return claims.getExpiration().before(new Date());
     }
 
     /**
-     * Parses all claims from the JWT token.
+     * Checks if the JWT token was issued longer than the max age ago, whatever its expiration.
      *
-     * @param token the JWT token string
-     * @return the Claims object extracted from the token
+     * @param claims the claims of the token
+     * @return true if the token has no issue time or is older than the max age, false otherwise
      */
-    private Claims getAllClaimsFromToken(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+    private boolean isTokenTooOld(Claims claims) {
+        Date issuedAt = claims.getIssuedAt();
+        return isNull(issuedAt) || System.currentTimeMillis() - issuedAt.getTime() > jwtMaxAgeInMs;
     }
 
     /**
-     * Checks if the JWT token has expired.
-     *
-     * @param token the JWT token string
-     * @return true if the token has expired, false otherwise
+     * Keeps a verified token only until its exp claim, so an expired token is parsed again and rejected.
      */
-    private Boolean isTokenExpired(String token) {
-        final Date expiration = getExpirationDateFromToken(token);
-        return expiration.before(new Date());
+    private static class UntilTokenExpires implements Expiry<String, Claims> {
+
+        @Override
+        public long expireAfterCreate(String token, Claims claims, long currentTime) {
+            Date expiration = claims.getExpiration();
+            if (isNull(expiration)) {
+                return 0;
+            }
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, expiration.getTime() - System.currentTimeMillis()));
+        }
+
+        @Override
+        public long expireAfterUpdate(String token, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(String token, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
 }
@@ -0,0 +1,173 @@
+package com.ingemark.productmanager.configuration.jwt;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.ingemark.productmanager.model.user.TokenRevocation;
+import com.ingemark.productmanager.repository.TokenRevocationRepository;
+import io.jsonwebtoken.Claims;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+/**
+ * In-memory copy of the token revocations, checked for every authenticated request without a database query.
+ * Revoked token ids are held as UUIDs and revoked users by username, each entry expiring when the tokens it
+ * revokes expire, so memory is bounded by the revocations made within one token lifetime.
+ * Lookups do not lock (Caffeine reads are backed by a ConcurrentHashMap).
+ * The revocations are loaded from the token_revocations table at startup, and revocations made on other nodes
+ * are picked up every app.jwtRevocationsRefreshInMs.
+ */
+@Component
+public class TokenRevocations {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenRevocations.class);
+    // re-reads revocations this far behind the last refresh, covering clock skew between nodes and late commits
+    private static final Duration REFRESH_OVERLAP = Duration.ofSeconds(10);
+
+    private final TokenRevocationRepository tokenRevocationRepository;
+
+    private final Cache<UUID, Revoked> revokedTokens = Caffeine.newBuilder()
+            .expireAfter(new UntilRevocationExpires<UUID>())
+            .build();
+    private final Cache<String, Revoked> revokedUsers = Caffeine.newBuilder()
+            .expireAfter(new UntilRevocationExpires<String>())
+            .build();
+    // start of the last successful refresh, null until the revocations are first loaded
+    private volatile LocalDateTime watermark;
+
+    public TokenRevocations(TokenRevocationRepository tokenRevocationRepository) {
+        this.tokenRevocationRepository = tokenRevocationRepository;
+    }
+
+    /**
+     * Checks whether the token was revoked, by its id or by a revocation of its user made after it was issued.
+     * User revocations are compared with the issue time of the token in microseconds. Tokens issued before that
+     * claim was added only have the whole-second iat, so they are revoked if issued up to the second of the revocation.
+     *
+     * @param claims the claims of a verified token
+     * @return true if the token is revoked
+     */
+    public boolean isRevoked(Claims claims) {
+        UUID tokenId = toUuid(claims.getId());
+        if (nonNull(tokenId) && nonNull(revokedTokens.getIfPresent(tokenId))) {
+            return true;
+        }
+        Revoked userRevocation = revokedUsers.getIfPresent(claims.getSubject());
+        if (isNull(userRevocation)) {
+            return false;
+        }
+        Number issuedAtMicros = claims.get(JwtUtil.ISSUED_AT_MICROS_CLAIM, Number.class);
+        if (nonNull(issuedAtMicros)) {
+            return issuedAtMicros.longValue() < userRevocation.revokedAt();
+        }
+        Date issuedAt = claims.getIssuedAt();
+        return nonNull(issuedAt)
+                && TimeUnit.MILLISECONDS.toSeconds(issuedAt.getTime()) <= TimeUnit.MICROSECONDS.toSeconds(userRevocation.revokedAt());
+    }
+
+    /**
+     * Adds a stored revocation to the in-memory copy.
+     *
+     * @param revocation revocation of a token or of a user
+     */
+    public void add(TokenRevocation revocation) {
+        Revoked revoked = new Revoked(toMicros(revocation.getRevokedAt()), toMillis(revocation.getExpiresAt()));
+        UUID tokenId = toUuid(revocation.getJti());
+        if (nonNull(tokenId)) {
+            revokedTokens.asMap().merge(tokenId, revoked, Revoked::latest);
+        }
+        if (nonNull(revocation.getUsername())) {
+            revokedUsers.asMap().merge(revocation.getUsername(), revoked, Revoked::latest);
+        }
+    }
+
+    /**
+     * Loads the revocations stored since the last refresh, all of them on the first one, and deletes expired ones.
+     * A failed refresh leaves the watermark in place, so its revocations are picked up by the next one.
+     */
+    @PostConstruct
+    @Scheduled(fixedDelayString = "${app.jwtRevocationsRefreshInMs:5000}")
+    public void refresh() {
+        try {
+            LocalDateTime refreshStart = LocalDateTime.now();
+            List<TokenRevocation> revocations = isNull(watermark)
+                    ? tokenRevocationRepository.findActive(refreshStart)
+                    : tokenRevocationRepository.findActiveRevokedAfter(watermark.minus(REFRESH_OVERLAP), refreshStart);
+            revocations.forEach(this::add);
+            tokenRevocationRepository.deleteExpiredBefore(refreshStart);
+            watermark = refreshStart;
+        } catch (Exception e) {
+            log.warn("Token revocation refresh failed, retrying on the next refresh", e);
+        }
+    }
+
+    long size() {
+        revokedTokens.cleanUp();
+        revokedUsers.cleanUp();
+        return revokedTokens.estimatedSize() + revokedUsers.estimatedSize();
+    }
+
+    private static UUID toUuid(String jti) {
+        if (nonNull(jti)) {
+            try {
+                return UUID.fromString(jti);
+            } catch (IllegalArgumentException e) {
+                return null; // not issued by this application
+            }
+        }
+        return null;
+    }
+
+    private static long toMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static long toMicros(LocalDateTime dateTime) {
+        return ChronoUnit.MICROS.between(Instant.EPOCH, dateTime.atZone(ZoneId.systemDefault()).toInstant());
+    }
+
+    // revokedAt in microseconds, expiresAt in milliseconds since the epoch
+    private record Revoked(long revokedAt, long expiresAt) {
+
+        static Revoked latest(Revoked first, Revoked second) {
+            return second.revokedAt() > first.revokedAt() ? second : first;
+        }
+    }
+
+    /**
+     * Keeps a revocation until the tokens it revokes have expired.
+     */
+    private static class UntilRevocationExpires<K> implements Expiry<K, Revoked> {
+
+        @Override
+        public long expireAfterCreate(K key, Revoked revoked, long currentTime) {
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, revoked.expiresAt() - System.currentTimeMillis()));
+        }
+
+        @Override
+        public long expireAfterUpdate(K key, Revoked revoked, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, revoked, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(K key, Revoked revoked, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
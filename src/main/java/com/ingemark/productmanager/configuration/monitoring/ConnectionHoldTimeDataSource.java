@@ -0,0 +1,67 @@
+package com.ingemark.productmanager.configuration.monitoring;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * DataSource that records how long each connection is held, from borrowing it until returning it to the pool.
+ * The time is published as the db.connection.hold timer, tagged with the service method that borrowed the connection.
+ */
+public class ConnectionHoldTimeDataSource extends DelegatingDataSource {
+
+    static final String METRIC_NAME = "db.connection.hold";
+
+    private final Supplier<MeterRegistry> meterRegistry;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public ConnectionHoldTimeDataSource(DataSource targetDataSource, Supplier<MeterRegistry> meterRegistry) {
+        super(targetDataSource);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return track(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return track(super.getConnection(username, password));
+    }
+
+    private Connection track(Connection connection) {
+        String method = ServiceMethodContext.current();
+        long borrowedAt = System.nanoTime();
+        AtomicBoolean returned = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, invokedMethod, args) -> {
+                    if ("close".equals(invokedMethod.getName()) && returned.compareAndSet(false, true)) {
+                        timer(method).record(System.nanoTime() - borrowedAt, TimeUnit.NANOSECONDS);
+                    }
+                    try {
+                        return invokedMethod.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    private Timer timer(String method) {
+        return timers.computeIfAbsent(method, name -> Timer.builder(METRIC_NAME)
+                .description("Time a pooled JDBC connection is held before it is returned")
+                .tag("method", name)
+                .register(meterRegistry.get()));
+    }
+}
@@ -0,0 +1,38 @@
+package com.ingemark.productmanager.configuration.monitoring;
+
+/**
+ * Holds the service method running on the current thread, so work done on its behalf can be attributed to it.
+ */
+public final class ServiceMethodContext {
+
+    public static final String NONE = "none";
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private ServiceMethodContext() {
+    }
+
+    /**
+     * Returns the innermost service method running on this thread.
+     *
+     * @return Method name as "Class.method", or {@link #NONE} outside of a service call.
+     */
+    public static String current() {
+        String method = CURRENT.get();
+        return method == null ? NONE : method;
+    }
+
+    static String enter(String method) {
+        String previous = CURRENT.get();
+        CURRENT.set(method);
+        return previous;
+    }
+
+    static void exit(String previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.ingemark.productmanager.configuration.monitoring;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Records which service method is running, so connections can be attributed to it.
+ * Runs outside the transaction advice, so the method is known before a transaction takes a connection.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ServiceMethodTracker {
+
+    @Around("execution(public * com.ingemark.productmanager.service..*(..))")
+    public Object track(ProceedingJoinPoint joinPoint) throws Throwable {
+        String method = joinPoint.getSignature().getDeclaringType().getSimpleName() + "." + joinPoint.getSignature().getName();
+        String previous = ServiceMethodContext.enter(method);
+        try {
+            return joinPoint.proceed();
+        } finally {
+            ServiceMethodContext.exit(previous);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.ingemark.productmanager.controller;
+
+import com.ingemark.productmanager.exception.ExchangeRateNotFoundException;
+import com.ingemark.productmanager.mapper.ExchangeRateMapper;
+import com.ingemark.productmanager.model.currency.response.ExchangeRateResponseDto;
+import com.ingemark.productmanager.service.CurrencyService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+
+/**
+ * REST controller for stored HNB exchange rates.
+ */
+@RestController
+@RequestMapping("/api/exchange-rates")
+@RequiredArgsConstructor
+public class ExchangeRateController {
+
+    private final CurrencyService currencyService;
+    private final ExchangeRateMapper exchangeRateMapper;
+
+    /**
+     * Retrieves the exchange rate that was in effect on the given date.
+     *
+     * @param currency Currency code, defaults to USD.
+     * @param date Date in ISO format (yyyy-MM-dd); the latest rate is returned if omitted.
+     * @return Exchange rate details.
+     * @throws ExchangeRateNotFoundException if no rate is stored for that date.
+     */
+    @GetMapping
+    @PreAuthorize("hasRole('ADMIN') or hasRole('CUSTOMER')")
+    public ResponseEntity<ExchangeRateResponseDto> getRate(@RequestParam(defaultValue = "USD") String currency,
+                                                           @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+
+        return ResponseEntity.ok(exchangeRateMapper.toResponseDto(currencyService.getRateAsOf(currency, date)));
+    }
+}
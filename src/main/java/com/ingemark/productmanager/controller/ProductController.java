@@ -1,19 +1,33 @@
 package com.ingemark.productmanager.controller;
 
 import com.ingemark.productmanager.exception.ProductNotFoundException;
+import com.ingemark.productmanager.model.product.ProductExportFormat;
+import com.ingemark.productmanager.model.product.request.BatchGetProductsDto;
 import com.ingemark.productmanager.model.product.request.CreateProductDto;
 import com.ingemark.productmanager.model.product.request.UpdateProductDto;
 import com.ingemark.productmanager.model.product.response.PagedProductResponseDto;
+import com.ingemark.productmanager.model.product.response.ProductBatchResponseDto;
 import com.ingemark.productmanager.model.product.response.ProductResponseDto;
 import com.ingemark.productmanager.model.product.request.SearchProductDto;
+import com.ingemark.productmanager.service.ProductExportService;
+import com.ingemark.productmanager.service.ProductImportService;
 import com.ingemark.productmanager.service.ProductService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.util.zip.GZIPOutputStream;
+
+import static java.util.Objects.nonNull;
+
 /**
  * REST controller for managing products.
  * Provides endpoints to create, update, delete, and retrieve products.
@@ -24,6 +38,8 @@ import org.springframework.web.bind.annotation.*;
 public class ProductController {
 
     private final ProductService productService;
+    private final ProductImportService productImportService;
+    private final ProductExportService productExportService;
 
     /**
      * Creates a new product.
@@ -38,18 +54,80 @@ public class ProductController {
         return ResponseEntity.status(HttpStatus.CREATED).body(productService.createProduct(createProductDto));
     }
 
+    /**
+     * Imports products from a JSON array or from NDJSON (one product per line), streaming both the upload
+     * and the results. One NDJSON result is written per item, in upload order, with the created code
+     * or the validation errors.
+     *
+     * @param request Request whose body holds the products.
+     * @param response Response the results are streamed to.
+     * @throws IOException if the upload cannot be read or the results cannot be written.
+     */
+    @PostMapping(value = "/import", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    @PreAuthorize("hasRole('ADMIN')")
+    public void importProducts(HttpServletRequest request, HttpServletResponse response) throws IOException {
+
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        productImportService.importProducts(request.getInputStream(), response.getOutputStream());
+    }
+
+    /**
+     * Exports every product as NDJSON (one product per line) or as CSV with a header row, streaming the rows
+     * as they are read. The response is gzip-compressed when the client accepts it.
+     *
+     * @param format Format of the export, NDJSON by default.
+     * @param acceptEncoding Accept-Encoding header of the request.
+     * @param response Response the products are streamed to.
+     * @throws IOException if the products cannot be written.
+     */
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public void exportProducts(@RequestParam(defaultValue = "NDJSON") ProductExportFormat format,
+                               @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                               HttpServletResponse response) throws IOException {
+
+        productExportService.exportProducts(format, () -> {
+            response.setContentType(format.getContentType());
+            response.setCharacterEncoding("UTF-8");
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                    "attachment; filename=\"products." + format.getExtension() + "\"");
+            response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            if (nonNull(acceptEncoding) && acceptEncoding.toLowerCase().contains("gzip")) {
+                response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+                return new GZIPOutputStream(response.getOutputStream(), 64 * 1024);
+            }
+            return response.getOutputStream();
+        });
+    }
+
     /**
      * Retrieves a product by its unique code.
      *
      * @param code The unique product code.
+     * @param currency Optional ISO currency code to convert the price to (e.g., "CHF").
      * @return Product details.
      * @throws ProductNotFoundException if product with code does not exist.
      */
     @GetMapping("/{code}")
     @PreAuthorize("hasRole('ADMIN') or hasRole('CUSTOMER')")
-    public ResponseEntity<ProductResponseDto> getProductByCode(@PathVariable String code) {
+    public ResponseEntity<ProductResponseDto> getProductByCode(@PathVariable String code,
+                                                               @RequestParam(required = false) String currency) {
+
+        return ResponseEntity.ok(productService.getProductByCode(code, currency));
+    }
+
+    /**
+     * Retrieves many products by their codes in one call.
+     *
+     * @param batchGetProductsDto Up to 100 product codes and an optional ISO currency code to convert the prices to.
+     * @return Found products and missing codes, each in request order.
+     */
+    @PostMapping("/batch")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('CUSTOMER')")
+    public ResponseEntity<ProductBatchResponseDto> getProductsByCodes(@Valid @RequestBody BatchGetProductsDto batchGetProductsDto) {
 
-        return ResponseEntity.ok(productService.getProductByCode(code));
+        return ResponseEntity.ok(productService.getProductsByCodes(batchGetProductsDto));
     }
 
     /**
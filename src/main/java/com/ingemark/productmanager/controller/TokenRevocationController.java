@@ -0,0 +1,50 @@
+package com.ingemark.productmanager.controller;
+
+import com.ingemark.productmanager.exception.InvalidTokenException;
+import com.ingemark.productmanager.exception.UserNotFoundException;
+import com.ingemark.productmanager.model.user.RevokeTokenRequest;
+import com.ingemark.productmanager.service.TokenRevocationService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * REST controller for revoking issued JWT tokens before they expire.
+ */
+@RestController
+@RequestMapping("/api/admin/revocations")
+@RequiredArgsConstructor
+public class TokenRevocationController {
+
+    private final TokenRevocationService tokenRevocationService;
+
+    /**
+     * Revokes a single token.
+     *
+     * @param revokeTokenRequest Contains the token to revoke.
+     * @return HTTP 204 if the token is revoked.
+     * @throws InvalidTokenException if the token is invalid or has already expired.
+     */
+    @PostMapping("/tokens")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Void> revokeToken(@Valid @RequestBody RevokeTokenRequest revokeTokenRequest) {
+        tokenRevocationService.revokeToken(revokeTokenRequest.token());
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Revokes all tokens issued to a user so far.
+     *
+     * @param username Username of the user.
+     * @return HTTP 204 if the tokens are revoked.
+     * @throws UserNotFoundException if the user does not exist.
+     */
+    @PostMapping("/users/{username}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Void> revokeUser(@PathVariable String username) {
+        tokenRevocationService.revokeUser(username);
+        return ResponseEntity.noContent().build();
+    }
+}
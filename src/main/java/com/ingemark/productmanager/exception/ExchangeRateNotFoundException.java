@@ -0,0 +1,17 @@
+package com.ingemark.productmanager.exception;
+
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@Getter
+@ResponseStatus(HttpStatus.NOT_FOUND)
+public class ExchangeRateNotFoundException extends RuntimeException {
+
+    private final Object[] messageArgs;
+
+    public ExchangeRateNotFoundException(String currency, Object date) {
+        super("exchange.rate.not.found");
+        this.messageArgs = new Object[]{currency, date};
+    }
+}
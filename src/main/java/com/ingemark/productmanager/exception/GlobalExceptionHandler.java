@@ -111,4 +111,130 @@ public class GlobalExceptionHandler {
 
         return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(error);
     }
+
+    /**
+     * Handles ExchangeRateNotFoundException and returns a 404 Not Found response.
+     *
+     * @param ex the ExchangeRateNotFoundException thrown
+     * @return ResponseEntity containing the error response
+     */
+    @ExceptionHandler(ExchangeRateNotFoundException.class)
+    public ResponseEntity<ErrorResponse> handleExchangeRateNotFound(ExchangeRateNotFoundException ex) {
+        String message = messageService.getMessage(ex.getMessage(), ex.getMessageArgs());
+
+        ErrorResponse error = new ErrorResponse(
+                HttpStatus.NOT_FOUND.value(),
+                message,
+                LocalDateTime.now());
+
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
+    }
+
+    /**
+     * Handles ExchangeRateUnavailableException and returns a 503 Service Unavailable response.
+     *
+     * @param ex the ExchangeRateUnavailableException thrown
+     * @return ResponseEntity containing the error response
+     */
+    @ExceptionHandler(ExchangeRateUnavailableException.class)
+    public ResponseEntity<ErrorResponse> handleExchangeRateUnavailable(ExchangeRateUnavailableException ex) {
+        String message = messageService.getMessage(ex.getMessage(), ex.getMessageArgs());
+
+        ErrorResponse error = new ErrorResponse(
+                HttpStatus.SERVICE_UNAVAILABLE.value(),
+                message,
+                LocalDateTime.now());
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(error);
+    }
+
+    /**
+     * Handles UnsupportedCurrencyException and returns a 400 Bad Request response.
+     *
+     * @param ex the UnsupportedCurrencyException thrown
+     * @return ResponseEntity containing the error response
+     */
+    @ExceptionHandler(UnsupportedCurrencyException.class)
+    public ResponseEntity<ErrorResponse> handleUnsupportedCurrency(UnsupportedCurrencyException ex) {
+        String message = messageService.getMessage(ex.getMessage(), ex.getMessageArgs());
+
+        ErrorResponse error = new ErrorResponse(
+                HttpStatus.BAD_REQUEST.value(),
+                message,
+                LocalDateTime.now());
+
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+    }
+
+    /**
+     * Handles InvalidCursorException and returns a 400 Bad Request response.
+     *
+     * @param ex the InvalidCursorException thrown
+     * @return ResponseEntity containing the error response
+     */
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidCursor(InvalidCursorException ex) {
+        String message = messageService.getMessage(ex.getMessage(), ex.getMessageArgs());
+
+        ErrorResponse error = new ErrorResponse(
+                HttpStatus.BAD_REQUEST.value(),
+                message,
+                LocalDateTime.now());
+
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+    }
+
+    /**
+     * Handles InvalidTokenException and returns a 400 Bad Request response.
+     *
+     * @param ex the InvalidTokenException thrown
+     * @return ResponseEntity containing the error response
+     */
+    @ExceptionHandler(InvalidTokenException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidToken(InvalidTokenException ex) {
+        String message = messageService.getMessage(ex.getMessage(), ex.getMessageArgs());
+
+        ErrorResponse error = new ErrorResponse(
+                HttpStatus.BAD_REQUEST.value(),
+                message,
+                LocalDateTime.now());
+
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+    }
+
+    /**
+     * Handles PasswordHashingBusyException and returns a 503 Service Unavailable response.
+     *
+     * @param ex the PasswordHashingBusyException thrown
+     * @return ResponseEntity containing the error response
+     */
+    @ExceptionHandler(PasswordHashingBusyException.class)
+    public ResponseEntity<ErrorResponse> handlePasswordHashingBusy(PasswordHashingBusyException ex) {
+        String message = messageService.getMessage(ex.getMessage(), ex.getMessageArgs());
+
+        ErrorResponse error = new ErrorResponse(
+                HttpStatus.SERVICE_UNAVAILABLE.value(),
+                message,
+                LocalDateTime.now());
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(error);
+    }
+
+    /**
+     * Handles ProductExportBusyException and returns a 503 Service Unavailable response.
+     *
+     * @param ex the ProductExportBusyException thrown
+     * @return ResponseEntity containing the error response
+     */
+    @ExceptionHandler(ProductExportBusyException.class)
+    public ResponseEntity<ErrorResponse> handleProductExportBusy(ProductExportBusyException ex) {
+        String message = messageService.getMessage(ex.getMessage(), ex.getMessageArgs());
+
+        ErrorResponse error = new ErrorResponse(
+                HttpStatus.SERVICE_UNAVAILABLE.value(),
+                message,
+                LocalDateTime.now());
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(error);
+    }
 }
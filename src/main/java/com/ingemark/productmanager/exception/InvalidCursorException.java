@@ -0,0 +1,17 @@
+package com.ingemark.productmanager.exception;
+
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@Getter
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidCursorException extends RuntimeException {
+
+    private final Object[] messageArgs;
+
+    public InvalidCursorException(String cursor) {
+        super("product.search.cursor.invalid");
+        this.messageArgs = new Object[]{cursor};
+    }
+}
@@ -0,0 +1,17 @@
+package com.ingemark.productmanager.exception;
+
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@Getter
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class ProductExportBusyException extends RuntimeException {
+
+    private final Object[] messageArgs;
+
+    public ProductExportBusyException() {
+        super("product.export.busy");
+        this.messageArgs = new Object[]{};
+    }
+}
@@ -4,6 +4,10 @@ import lombok.Getter;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.ResponseStatus;
 
+/**
+ * Thrown for lookups of products that do not exist. Such lookups are common (scrapers, stale links) and the exception
+ * is always handled, so no stack trace is captured.
+ */
 @Getter
 @ResponseStatus(HttpStatus.NOT_FOUND)
 public class ProductNotFoundException extends RuntimeException {
@@ -11,7 +15,7 @@ public class ProductNotFoundException extends RuntimeException {
     private final Object[] messageArgs;
 
     public ProductNotFoundException(String code) {
-        super("product.not.found");
+        super("product.not.found", null, false, false);
         this.messageArgs = new Object[]{code};
     }
 }
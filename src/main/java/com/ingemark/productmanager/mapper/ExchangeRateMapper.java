@@ -0,0 +1,26 @@
+package com.ingemark.productmanager.mapper;
+
+import com.ingemark.productmanager.model.currency.ExchangeRate;
+import com.ingemark.productmanager.model.currency.response.ExchangeRateResponseDto;
+import org.springframework.stereotype.Component;
+
+/**
+ * Mapper class responsible for converting ExchangeRate entities to DTOs.
+ */
+@Component
+public class ExchangeRateMapper {
+
+    /**
+     * Converts an ExchangeRate entity to an ExchangeRateResponseDto.
+     *
+     * @param exchangeRate the ExchangeRate entity to convert
+     * @return an ExchangeRateResponseDto representing the entity
+     */
+    public ExchangeRateResponseDto toResponseDto(ExchangeRate exchangeRate) {
+        return new ExchangeRateResponseDto(
+                exchangeRate.getCurrency(),
+                exchangeRate.getRate(),
+                exchangeRate.getEffectiveDate()
+        );
+    }
+}
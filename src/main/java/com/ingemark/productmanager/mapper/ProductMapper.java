@@ -7,6 +7,8 @@ import com.ingemark.productmanager.model.product.response.ProductResponseDto;
 import org.springframework.data.domain.Page;
 import org.springframework.stereotype.Component;
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.util.List;
 
 /**
@@ -46,6 +48,47 @@ public class ProductMapper {
 
     }
 
+    /**
+     * Converts a Product entity to a ProductResponseDto with the price converted to the requested currency.
+     * The rate is resolved by the caller, so converting a page of products costs one multiplication per row.
+     *
+     * @param product the Product entity to convert
+     * @param currency ISO code of the requested currency
+     * @param rate EUR to currency exchange rate
+     * @return a ProductResponseDto representing the entity, including the converted price
+     */
+    public ProductResponseDto toResponseDto(Product product, String currency, BigDecimal rate) {
+        return new ProductResponseDto(
+                product.getName(),
+                product.getCode(),
+                product.getPriceEur(),
+                product.getPriceUsd(),
+                product.getIsAvailable(),
+                currency,
+                product.getPriceEur().multiply(rate).setScale(2, RoundingMode.HALF_UP)
+        );
+    }
+
+    /**
+     * Adds the price converted to the requested currency to a product response, e.g. one served from the cache.
+     *
+     * @param product the product response, without a converted price
+     * @param currency ISO code of the requested currency
+     * @param rate EUR to currency exchange rate
+     * @return a copy of the response including the converted price
+     */
+    public ProductResponseDto withConvertedPrice(ProductResponseDto product, String currency, BigDecimal rate) {
+        return new ProductResponseDto(
+                product.name(),
+                product.code(),
+                product.priceEur(),
+                product.priceUsd(),
+                product.isAvailable(),
+                currency,
+                product.priceEur().multiply(rate).setScale(2, RoundingMode.HALF_UP)
+        );
+    }
+
     /**
      * Converts a Page of Product entities to a paged response DTO.
      *
@@ -58,6 +101,62 @@ public class ProductMapper {
                 .map(this::toResponseDto)
                 .toList();
 
+        return toPagedProductResponseDto(products, content);
+    }
+
+    /**
+     * Converts a Page of Product entities to a paged response DTO with prices converted to the requested currency.
+     *
+     * @param products a Page of Product entities
+     * @param currency ISO code of the requested currency
+     * @param rate EUR to currency exchange rate
+     * @return a PagedProductResponseDto containing the mapped products and pagination info
+     */
+    public PagedProductResponseDto toPagedProductResponseDto(Page<Product> products, String currency, BigDecimal rate) {
+        List<ProductResponseDto> content = products.getContent()
+                .stream()
+                .map(product -> toResponseDto(product, currency, rate))
+                .toList();
+
+        return toPagedProductResponseDto(products, content);
+    }
+
+    /**
+     * Converts one keyset page of Product entities to a paged response DTO.
+     *
+     * @param products the products on the page
+     * @param size the requested page size
+     * @param nextCursor cursor of the following page, or null on the last page
+     * @return a PagedProductResponseDto containing the mapped products and the next cursor
+     */
+    public PagedProductResponseDto toCursorPagedProductResponseDto(List<Product> products, int size, String nextCursor) {
+        List<ProductResponseDto> content = products.stream()
+                .map(this::toResponseDto)
+                .toList();
+
+        return new PagedProductResponseDto(content, null, size, null, null, nextCursor);
+    }
+
+    /**
+     * Converts one keyset page of Product entities to a paged response DTO with prices converted to the requested currency.
+     *
+     * @param products the products on the page
+     * @param size the requested page size
+     * @param nextCursor cursor of the following page, or null on the last page
+     * @param currency ISO code of the requested currency
+     * @param rate EUR to currency exchange rate
+     * @return a PagedProductResponseDto containing the mapped products and the next cursor
+     */
+    public PagedProductResponseDto toCursorPagedProductResponseDto(List<Product> products, int size, String nextCursor,
+                                                                   String currency, BigDecimal rate) {
+        List<ProductResponseDto> content = products.stream()
+                .map(product -> toResponseDto(product, currency, rate))
+                .toList();
+
+        return new PagedProductResponseDto(content, null, size, null, null, nextCursor);
+    }
+
+    private PagedProductResponseDto toPagedProductResponseDto(Page<Product> products, List<ProductResponseDto> content) {
         return new PagedProductResponseDto(
                 content,
                 products.getNumber(),
@@ -0,0 +1,39 @@
+package com.ingemark.productmanager.model.currency;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+@Table(name = "exchange_rates",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"currency", "effective_date"}))
+public class ExchangeRate {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(length = 3, nullable = false)
+    private String currency;
+
+    @Column(nullable = false, precision = 19, scale = 6)
+    private BigDecimal rate;
+
+    @Column(name = "effective_date", nullable = false)
+    private LocalDate effectiveDate;
+
+    @Column(name = "fetched_at", nullable = false)
+    @CreationTimestamp
+    private LocalDateTime fetchedAt;
+}
@@ -0,0 +1,14 @@
+package com.ingemark.productmanager.model.currency;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Published when a rate fetched from HNB differs from the rate that was served before.
+ */
+public record ExchangeRateChangedEvent(
+        String currency,
+        BigDecimal rate,
+        LocalDate effectiveDate
+) {
+}
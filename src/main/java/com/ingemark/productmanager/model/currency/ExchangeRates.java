@@ -0,0 +1,32 @@
+package com.ingemark.productmanager.model.currency;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * Immutable snapshot of the HNB rate list: EUR to currency rates keyed by ISO currency code.
+ * EUR itself is always present with rate 1.
+ */
+public record ExchangeRates(
+        Map<String, BigDecimal> rates,
+        LocalDate effectiveDate,
+        Instant fetchedAt
+) {
+    public static final String EUR_CURRENCY = "EUR";
+
+    public ExchangeRates {
+        rates = Map.copyOf(rates);
+    }
+
+    /**
+     * Returns the EUR to currency rate.
+     *
+     * @param currency ISO currency code in upper case.
+     * @return Exchange rate, or null if HNB does not publish a rate for the currency.
+     */
+    public BigDecimal rateFor(String currency) {
+        return rates.get(currency);
+    }
+}
@@ -0,0 +1,11 @@
+package com.ingemark.productmanager.model.currency.response;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public record ExchangeRateResponseDto(
+        String currency,
+        BigDecimal rate,
+        LocalDate effectiveDate
+) {
+}
@@ -1,34 +1,53 @@
 package com.ingemark.productmanager.model.product;
 
+import com.ingemark.productmanager.model.PooledSequence;
+import com.ingemark.productmanager.util.ProductCode;
+import com.ingemark.productmanager.util.TextNormalizer;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
-import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
+import static java.util.Objects.isNull;
+
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = {
+        @Index(name = "idx_products_name_code", columnList = "name, code"),
+        @Index(name = "idx_products_price_eur_code", columnList = "price_eur, code"),
+        @Index(name = "idx_products_updated_at", columnList = "updated_at")
+})
 public class Product {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @PooledSequence(name = "product_id_seq")
     private Long id;
 
-    @Column(unique = true, length = 10, nullable = false)
+    // unique per created_at through products_code_created_at_key of schema.sql; a unique constraint on the code
+    // alone cannot be added to the partitioned table
+    @Column(length = 10, nullable = false)
     private String code;
 
+    // code decoded to its sequence value, for lookups on idx_products_code_number of schema.sql; nullable only until
+    // existing rows are backfilled
+    @Column(name = "code_number")
+    private Long codeNumber;
+
     @Column(nullable = false)
     private String name;
 
+    // lowercased, accent-free name used by name search; nullable only until existing rows are backfilled
+    @Column(name = "name_normalized")
+    private String nameNormalized;
+
     @Column(name = "price_eur", nullable = false)
     private BigDecimal priceEur;
 
@@ -38,11 +57,21 @@ public class Product {
     @Column(name = "is_available", nullable = false)
     private Boolean isAvailable;
 
+    // set with the code, so the year of the code is the year of the created_at partition; now if not set
     @Column(name = "created_at", nullable = false)
-    @CreationTimestamp
     private LocalDateTime createdAt;
 
     @Column(name = "updated_at")
     @UpdateTimestamp
     private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    void deriveColumns() {
+        nameNormalized = TextNormalizer.normalize(name);
+        codeNumber = ProductCode.decode(code);
+        if (isNull(createdAt)) {
+            createdAt = LocalDateTime.now();
+        }
+    }
 }
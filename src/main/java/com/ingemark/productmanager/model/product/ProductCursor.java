@@ -0,0 +1,79 @@
+package com.ingemark.productmanager.model.product;
+
+import com.ingemark.productmanager.exception.InvalidCursorException;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position in a keyset-paginated product search: the sort key and code of the last product on the previous page.
+ * The code breaks ties between products with the same sort key, so every product is returned exactly once.
+ * That relies on codes being unique: the partitioned products table only enforces (code, created_at), so uniqueness
+ * is guaranteed by ProductCodeAllocator, which takes every code from the sequence of its year and embeds the year
+ * in the code, so codes never repeat within a year nor across years.
+ * Clients receive it as an opaque URL-safe token.
+ */
+public record ProductCursor(
+        ProductSortField sortBy,
+        boolean ascending,
+        String lastValue,
+        String lastCode
+) {
+    private static final String SEPARATOR = ":";
+
+    /**
+     * Creates the cursor pointing after the given product.
+     *
+     * @param sortBy Sort field of the search.
+     * @param ascending Sort direction of the search.
+     * @param product Last product on the page.
+     * @return Cursor for the next page.
+     */
+    public static ProductCursor after(ProductSortField sortBy, boolean ascending, Product product) {
+        String lastValue = sortBy == ProductSortField.PRICE ? product.getPriceEur().toPlainString() : product.getName();
+        return new ProductCursor(sortBy, ascending, lastValue, product.getCode());
+    }
+
+    /**
+     * Decodes a token and checks that it belongs to a search with the same sort field and direction.
+     *
+     * @param token Token returned as nextCursor by a previous search.
+     * @param sortBy Sort field of the current search.
+     * @param ascending Sort direction of the current search.
+     * @return Decoded cursor.
+     * @throws InvalidCursorException if the token is malformed or was issued for a different sort.
+     */
+    public static ProductCursor decode(String token, ProductSortField sortBy, boolean ascending) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split(SEPARATOR, 4);
+            ProductCursor cursor = new ProductCursor(ProductSortField.valueOf(parts[0]), "A".equals(parts[1]), parts[3], parts[2]);
+            if (cursor.sortBy() != sortBy || cursor.ascending() != ascending || parts[2].isEmpty()) {
+                throw new InvalidCursorException(token);
+            }
+            cursor.sortKey(); // rejects a price that is not a number
+            return cursor;
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            throw new InvalidCursorException(token);
+        }
+    }
+
+    /**
+     * Encodes the cursor as an opaque token. The sort key goes last, so it may contain the separator.
+     *
+     * @return URL-safe token.
+     */
+    public String encode() {
+        String raw = sortBy.name() + SEPARATOR + (ascending ? "A" : "D") + SEPARATOR + lastCode + SEPARATOR + lastValue;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns the sort key typed as the sorted column.
+     *
+     * @return Name for NAME sort, EUR price for PRICE sort.
+     */
+    public Comparable<?> sortKey() {
+        return sortBy == ProductSortField.PRICE ? new BigDecimal(lastValue) : lastValue;
+    }
+}
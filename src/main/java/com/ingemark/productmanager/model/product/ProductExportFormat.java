@@ -0,0 +1,24 @@
+package com.ingemark.productmanager.model.product;
+
+public enum ProductExportFormat {
+    // one JSON object per line
+    NDJSON("application/x-ndjson", "ndjson"),
+    // RFC 4180, with a header row
+    CSV("text/csv", "csv");
+
+    private final String contentType;
+    private final String extension;
+
+    ProductExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+}
@@ -3,7 +3,9 @@ package com.ingemark.productmanager.model.product;
 
 public enum ProductSortField {
     NAME("name"),
-    PRICE("priceEur");
+    PRICE("priceEur"),
+    // most similar names to the searched name first, ties by name
+    RELEVANCE("name");
 
     private final String field;
 
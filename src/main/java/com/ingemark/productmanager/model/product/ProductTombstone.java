@@ -0,0 +1,33 @@
+package com.ingemark.productmanager.model.product;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Record of a deleted product, kept for a while so that other nodes can evict it from their product caches.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+@Table(name = "product_tombstones", indexes = @Index(name = "idx_product_tombstones_deleted_at", columnList = "deleted_at"))
+public class ProductTombstone {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(length = 10, nullable = false)
+    private String code;
+
+    @Column(name = "deleted_at", nullable = false)
+    @CreationTimestamp
+    private LocalDateTime deletedAt;
+}
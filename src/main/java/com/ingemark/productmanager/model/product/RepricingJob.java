@@ -0,0 +1,62 @@
+package com.ingemark.productmanager.model.product;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Progress of a USD repricing run. All products with id up to completedUpToId are already repriced,
+ * so a run that was interrupted continues from there.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+@Table(name = "repricing_jobs")
+public class RepricingJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, precision = 19, scale = 6)
+    private BigDecimal rate;
+
+    @Column(name = "effective_date", unique = true, nullable = false)
+    private LocalDate effectiveDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private RepricingJobStatus status;
+
+    @Column(name = "max_id", nullable = false)
+    private Long maxId;
+
+    @Column(name = "chunk_size", nullable = false)
+    private Integer chunkSize;
+
+    @Column(name = "completed_up_to_id", nullable = false)
+    private Long completedUpToId;
+
+    @Column(name = "rows_updated", nullable = false)
+    private Long rowsUpdated;
+
+    @Column(nullable = false)
+    private String owner;
+
+    @Column(name = "heartbeat_at", nullable = false)
+    private LocalDateTime heartbeatAt;
+
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+}
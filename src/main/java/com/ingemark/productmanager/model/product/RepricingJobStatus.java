@@ -0,0 +1,5 @@
+package com.ingemark.productmanager.model.product;
+
+public enum RepricingJobStatus {
+    RUNNING, COMPLETED, SUPERSEDED
+}
@@ -0,0 +1,16 @@
+package com.ingemark.productmanager.model.product.request;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public record BatchGetProductsDto(
+        @NotEmpty(message = "{product.batch.codes.empty}")
+        @Size(max = BatchGetProductsDto.MAX_CODES, message = "{product.batch.codes.size}")
+        List<@NotBlank(message = "{product.batch.code.blank}") String> codes,
+        String currency
+) {
+    public static final int MAX_CODES = 100;
+}
@@ -1,11 +1,16 @@
 package com.ingemark.productmanager.model.product.request;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.ingemark.productmanager.model.product.ProductSortField;
+import jakarta.validation.constraints.AssertTrue;
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 
 import java.math.BigDecimal;
 
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
 public record SearchProductDto (
         String name,
         BigDecimal minPriceEur,
@@ -18,8 +23,16 @@ public record SearchProductDto (
         @Max(value = 20, message = "{product.search.size.max}")
         Integer size,
         ProductSortField sortBy,
-        boolean sortAscending
+        boolean sortAscending,
+        String currency,
+        String cursor
 ){
     public static final int DEFAULT_PAGE = 0;
     public static final int DEFAULT_SIZE = 5;
+
+    @JsonIgnore
+    @AssertTrue(message = "{product.search.relevance.invalid}")
+    public boolean isRelevanceSortValid() {
+        return sortBy != ProductSortField.RELEVANCE || (nonNull(name) && !name.isEmpty() && isNull(cursor));
+    }
 }
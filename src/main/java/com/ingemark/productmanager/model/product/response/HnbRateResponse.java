@@ -2,10 +2,14 @@ package com.ingemark.productmanager.model.product.response;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 
+import java.time.LocalDate;
+
 public record HnbRateResponse (
         @JsonProperty("valuta")
         String valuta,
         @JsonProperty("srednji_tecaj")
-        String srednjiTecaj
+        String srednjiTecaj,
+        @JsonProperty("datum_primjene")
+        LocalDate datumPrimjene
 ){
 }
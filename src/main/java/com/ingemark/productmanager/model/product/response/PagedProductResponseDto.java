@@ -1,12 +1,25 @@
 package com.ingemark.productmanager.model.product.response;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import java.util.List;
 
+/**
+ * Page of products.
+ * Offset pages carry page, totalElements and totalPages; cursor pages carry nextCursor instead,
+ * which is absent on the last page.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public record PagedProductResponseDto(
         List<ProductResponseDto> productResponseDtos,
         Integer page,
         Integer size,
         Long totalElements,
-        Integer totalPages
+        Integer totalPages,
+        String nextCursor
 ) {
+    public PagedProductResponseDto(List<ProductResponseDto> productResponseDtos, Integer page, Integer size,
+                                   Long totalElements, Integer totalPages) {
+        this(productResponseDtos, page, size, totalElements, totalPages, null);
+    }
 }
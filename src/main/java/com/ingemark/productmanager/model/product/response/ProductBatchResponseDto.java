@@ -0,0 +1,13 @@
+package com.ingemark.productmanager.model.product.response;
+
+import java.util.List;
+
+/**
+ * Products found by a batch lookup and the codes that were not found, each in the order the codes were requested.
+ * A code requested more than once appears once.
+ */
+public record ProductBatchResponseDto(
+        List<ProductResponseDto> products,
+        List<String> missingCodes
+) {
+}
@@ -0,0 +1,25 @@
+package com.ingemark.productmanager.model.product.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+/**
+ * Outcome of one item of a bulk import, written as one NDJSON line in the order of the uploaded items.
+ * {@code code} is present for a created product, {@code errors} for a rejected item.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ProductImportResultDto(
+        long index,
+        String code,
+        List<String> errors
+) {
+
+    public static ProductImportResultDto created(long index, String code) {
+        return new ProductImportResultDto(index, code, null);
+    }
+
+    public static ProductImportResultDto rejected(long index, List<String> errors) {
+        return new ProductImportResultDto(index, null, errors);
+    }
+}
@@ -1,12 +1,24 @@
 package com.ingemark.productmanager.model.product.response;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import java.math.BigDecimal;
 
+/**
+ * Product as returned by the API.
+ * {@code currency} and {@code price} are only present when the caller asked for a price in a specific currency.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public record ProductResponseDto(
         String name,
         String code,
         BigDecimal priceEur,
         BigDecimal priceUsd,
-        Boolean isAvailable
+        Boolean isAvailable,
+        String currency,
+        BigDecimal price
 ) {
+    public ProductResponseDto(String name, String code, BigDecimal priceEur, BigDecimal priceUsd, Boolean isAvailable) {
+        this(name, code, priceEur, priceUsd, isAvailable, null, null);
+    }
 }
@@ -0,0 +1,9 @@
+package com.ingemark.productmanager.model.user;
+
+import jakarta.validation.constraints.NotBlank;
+
+public record RevokeTokenRequest(
+        @NotBlank
+        String token
+) {
+}
@@ -1,5 +1,6 @@
 package com.ingemark.productmanager.model.user;
 
+import com.ingemark.productmanager.model.PooledSequence;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -19,7 +20,7 @@ import java.time.LocalDateTime;
 public class User {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @PooledSequence(name = "user_id_seq")
     private Long id;
 
     @Column(unique = true, nullable = false)
@@ -1,7 +1,7 @@
 package com.ingemark.productmanager.model.user;
 
 import lombok.AllArgsConstructor;
-import lombok.Data;
+import lombok.Value;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -10,15 +10,19 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 
-@Data
+/**
+ * Immutable authenticated user, safe to share between requests through the user cache.
+ */
+@Value
 @AllArgsConstructor
 public class UserPrincipal implements UserDetails {
 
-    private Long id;
-    private String username;
-    private String email;
-    private String password;
-    private Collection<? extends GrantedAuthority> authorities;
+    Long id;
+    String username;
+    String email;
+    String password;
+    Collection<? extends GrantedAuthority> authorities;
+    boolean enabled;
 
     public static UserPrincipal create(User user) {
         List<GrantedAuthority> authorities = Collections.singletonList(
@@ -30,7 +34,8 @@ public class UserPrincipal implements UserDetails {
                 user.getUsername(),
                 user.getEmail(),
                 user.getPassword(),
-                authorities
+                authorities,
+                user.isEnabled()
         );
     }
 
@@ -48,9 +53,4 @@ public class UserPrincipal implements UserDetails {
     public boolean isCredentialsNonExpired() {
         return true;
     }
-
-    @Override
-    public boolean isEnabled() {
-        return true;
-    }
 }
@@ -0,0 +1,28 @@
+package com.ingemark.productmanager.repository;
+
+import com.ingemark.productmanager.model.currency.ExchangeRate;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ExchangeRateRepository extends JpaRepository<ExchangeRate, Long> {
+
+    Optional<ExchangeRate> findFirstByCurrencyOrderByEffectiveDateDesc(String currency);
+
+    Optional<ExchangeRate> findFirstByCurrencyAndEffectiveDateLessThanEqualOrderByEffectiveDateDesc(String currency, LocalDate date);
+
+    boolean existsByCurrencyAndEffectiveDate(String currency, LocalDate effectiveDate);
+
+    boolean existsByEffectiveDate(LocalDate effectiveDate);
+
+    @Query("""
+            SELECT r FROM ExchangeRate r
+            WHERE r.effectiveDate = (SELECT MAX(latest.effectiveDate) FROM ExchangeRate latest)
+            """)
+    List<ExchangeRate> findLatestRates();
+}
@@ -0,0 +1,67 @@
+package com.ingemark.productmanager.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * The yearly product code sequences, product_code_&lt;year&gt;_seq, created on first use.
+ * Sequence names are built from the year, so they are never taken from input.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ProductCodeSequences {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductCodeSequences.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Creates the sequence of the year, unless it exists.
+     *
+     * @param year Year of the sequence.
+     * @param increment Increment of a new sequence; an existing sequence keeps its increment.
+     */
+    public void create(int year, int increment) {
+        try {
+            jdbcTemplate.execute("CREATE SEQUENCE IF NOT EXISTS " + name(year)
+                    + " START WITH 1 INCREMENT BY " + increment + " MINVALUE 1 CACHE 1");
+        } catch (DuplicateKeyException e) {
+            // IF NOT EXISTS does not cover another node creating the sequence at the same time
+            log.debug("Sequence {} was created concurrently", name(year));
+        }
+    }
+
+    /**
+     * Returns the increment of the sequence of the year.
+     *
+     * @param year Year of the sequence.
+     * @return Increment, or null if the sequence does not exist.
+     */
+    public Long increment(int year) {
+        // information_schema rather than pg_sequences, so the allocator also runs against H2 in tests
+        List<Long> increments = jdbcTemplate.queryForList(
+                "SELECT CAST(increment AS BIGINT) FROM information_schema.sequences WHERE LOWER(sequence_name) = ?",
+                Long.class, name(year));
+        return increments.isEmpty() ? null : increments.get(0);
+    }
+
+    /**
+     * Advances the sequence of the year.
+     *
+     * @param year Year of the sequence.
+     * @return The next value of the sequence.
+     */
+    public long next(int year) {
+        return jdbcTemplate.queryForObject("SELECT nextval('" + name(year) + "')", Long.class);
+    }
+
+    static String name(int year) {
+        return "product_code_" + year + "_seq";
+    }
+}
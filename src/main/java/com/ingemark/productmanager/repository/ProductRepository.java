@@ -1,36 +1,161 @@
 package com.ingemark.productmanager.repository;
 
 import com.ingemark.productmanager.model.product.Product;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
+import com.ingemark.productmanager.model.product.response.ProductResponseDto;
+import com.ingemark.productmanager.util.ProductCode;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
+import java.util.stream.Stream;
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long> {
-
-    Optional<Product> findByCode(String code);
-
-    @Query(value = "SELECT nextval('product_code_2025_seq')", nativeQuery = true)
-    Long getNextCodeSequence();
-
-    @Query("SELECT p FROM Product p WHERE " +
-            "(:name IS NULL OR :name = '' OR LOWER(p.name) LIKE LOWER(CONCAT('%', :name, '%'))) AND " +
-            "(:minPriceEur IS NULL OR p.priceEur >= :minPriceEur) AND " +
-            "(:maxPriceEur IS NULL OR p.priceEur <= :maxPriceEur) AND " +
-            "(:minPriceUsd IS NULL OR p.priceUsd >= :minPriceUsd) AND " +
-            "(:maxPriceUsd IS NULL OR p.priceUsd <= :maxPriceUsd)")
-    Page<Product> findProductsByFilters(
-            @Param("name") String name,
-            @Param("minPriceEur") BigDecimal minPriceEur,
-            @Param("maxPriceEur") BigDecimal maxPriceEur,
-            @Param("minPriceUsd") BigDecimal minPriceUsd,
-            @Param("maxPriceUsd") BigDecimal maxPriceUsd,
-            Pageable pageable
-    );
+public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product>,
+        ProductRepositoryCustom {
+
+    /**
+     * Finds a product by its code through the bigint code_number index instead of the varchar code index.
+     * A code from a yearly sequence carries the year its product was created in, so the lookup is limited to
+     * that year and PostgreSQL reads only the partition of the year.
+     * Products not yet backfilled with a code number are found by their code, which only costs a second query
+     * when no product has the code number.
+     *
+     * @param code Product code; text that is not a product code matches no product.
+     * @return The product with the code, if any.
+     */
+    default Optional<Product> findByCode(String code) {
+        if (!ProductCode.isValid(code)) {
+            return Optional.empty();
+        }
+        long codeNumber = ProductCode.decode(code);
+        // codes naming a year that has not started were not taken from a yearly sequence
+        if (ProductCode.hasYear(codeNumber) && ProductCode.year(codeNumber) <= LocalDate.now().getYear()) {
+            LocalDateTime yearStart = LocalDateTime.of(ProductCode.year(codeNumber), 1, 1, 0, 0);
+            return findByCodeNumberCreatedBetween(codeNumber, yearStart, yearStart.plusYears(1));
+        }
+        return findByCodeNumber(codeNumber).or(() -> findByCodeAndCodeNumberIsNull(code));
+    }
+
+    Optional<Product> findByCodeNumber(long codeNumber);
+
+    @Query("SELECT p FROM Product p WHERE p.codeNumber = :codeNumber AND p.createdAt >= :from AND p.createdAt < :to")
+    Optional<Product> findByCodeNumberCreatedBetween(@Param("codeNumber") long codeNumber,
+                                                     @Param("from") LocalDateTime from,
+                                                     @Param("to") LocalDateTime to);
+
+    Optional<Product> findByCodeAndCodeNumberIsNull(String code);
+
+    /**
+     * Finds the products with the given codes the way findByCode finds one: by code number, with the codes of each
+     * year looked up in that year only, so PostgreSQL reads one partition per year asked for.
+     * Products not yet backfilled with a code number are found by their code, for the codes not found by number.
+     *
+     * @param codes Product codes; texts that are not product codes match no product.
+     * @return The products found, in no particular order.
+     */
+    default List<Product> findAllByCodes(Collection<String> codes) {
+        int currentYear = LocalDate.now().getYear();
+        Map<Integer, List<Long>> codeNumbersByYear = new TreeMap<>();
+        Map<Long, String> codesWithoutYear = new HashMap<>();
+        for (String code : codes) {
+            if (!ProductCode.isValid(code)) {
+                continue;
+            }
+            long codeNumber = ProductCode.decode(code);
+            // codes naming a year that has not started were not taken from a yearly sequence
+            if (ProductCode.hasYear(codeNumber) && ProductCode.year(codeNumber) <= currentYear) {
+                codeNumbersByYear.computeIfAbsent(ProductCode.year(codeNumber), year -> new ArrayList<>()).add(codeNumber);
+            } else {
+                codesWithoutYear.put(codeNumber, code);
+            }
+        }
+        List<Product> products = new ArrayList<>();
+        codeNumbersByYear.forEach((year, codeNumbers) -> {
+            LocalDateTime yearStart = LocalDateTime.of(year, 1, 1, 0, 0);
+            products.addAll(findAllByCodeNumberInCreatedBetween(codeNumbers, yearStart, yearStart.plusYears(1)));
+        });
+        if (!codesWithoutYear.isEmpty()) {
+            findAllByCodeNumberIn(codesWithoutYear.keySet()).forEach(product -> {
+                codesWithoutYear.remove(product.getCodeNumber());
+                products.add(product);
+            });
+            if (!codesWithoutYear.isEmpty()) {
+                products.addAll(findAllByCodeInAndCodeNumberIsNull(codesWithoutYear.values()));
+            }
+        }
+        return products;
+    }
+
+    @Query("SELECT p FROM Product p WHERE p.codeNumber IN :codeNumbers AND p.createdAt >= :from AND p.createdAt < :to")
+    List<Product> findAllByCodeNumberInCreatedBetween(@Param("codeNumbers") Collection<Long> codeNumbers,
+                                                      @Param("from") LocalDateTime from,
+                                                      @Param("to") LocalDateTime to);
+
+    List<Product> findAllByCodeNumberIn(Collection<Long> codeNumbers);
+
+    List<Product> findAllByCodeInAndCodeNumberIsNull(Collection<String> codes);
+
+    @Query("SELECT p.code FROM Product p WHERE p.updatedAt > :since")
+    List<String> findCodesUpdatedAfter(@Param("since") LocalDateTime since, Limit limit);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "10000"))
+    @Query("SELECT p.code FROM Product p")
+    Stream<String> streamAllCodes();
+
+    /**
+     * Streams every product, in id order, read from a server-side cursor in chunks of the fetch size.
+     * Rows are mapped straight to DTOs, so nothing is kept in the persistence context while the stream is read.
+     * Must be read and closed inside a transaction.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new com.ingemark.productmanager.model.product.response.ProductResponseDto("
+            + "p.name, p.code, p.priceEur, p.priceUsd, p.isAvailable) FROM Product p ORDER BY p.id")
+    Stream<ProductResponseDto> streamAllForExport();
+
+    @Query("SELECT MIN(p.id) FROM Product p")
+    Long findMinId();
+
+    @Query("SELECT MAX(p.id) FROM Product p")
+    Long findMaxId();
+
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE products SET price_usd = ROUND(price_eur * :rate, 2), updated_at = CURRENT_TIMESTAMP " +
+            "WHERE id BETWEEN :fromId AND :toId",
+            nativeQuery = true)
+    int repriceUsdInIdRange(@Param("rate") BigDecimal rate, @Param("fromId") long fromId, @Param("toId") long toId);
+
+    /**
+     * Reprices the id range with the rate of a repricing job, but only while the job is still running on the given node.
+     * Once the job is superseded or taken over by another node, nothing is updated and 0 is returned.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE products SET price_usd = ROUND(price_eur * :rate, 2), updated_at = CURRENT_TIMESTAMP " +
+            "WHERE id BETWEEN :fromId AND :toId " +
+            "AND EXISTS (SELECT 1 FROM repricing_jobs j WHERE j.id = :jobId AND j.owner = :owner AND j.status = 'RUNNING')",
+            nativeQuery = true)
+    int repriceUsdInIdRangeForJob(@Param("jobId") long jobId,
+                                  @Param("owner") String owner,
+                                  @Param("rate") BigDecimal rate,
+                                  @Param("fromId") long fromId,
+                                  @Param("toId") long toId);
 }
@@ -0,0 +1,40 @@
+package com.ingemark.productmanager.repository;
+
+import com.ingemark.productmanager.model.product.Product;
+import com.ingemark.productmanager.model.product.ProductCursor;
+import com.ingemark.productmanager.model.product.ProductSortField;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+public interface ProductRepositoryCustom {
+
+    /**
+     * Finds one page of products after the cursor, using keyset pagination.
+     * Runs no count query and reads only the requested rows, so every page costs the same regardless of depth.
+     *
+     * @param filter Search filters, see ProductSpecifications.
+     * @param sortBy Sort field; products with the same sort key are ordered by code.
+     * @param ascending Sort direction.
+     * @param after Position after which to start; null for the first page.
+     * @param limit Maximum number of products to return.
+     * @return Products following the cursor in sort order.
+     */
+    List<Product> findProductsAfterCursor(
+            Specification<Product> filter,
+            ProductSortField sortBy,
+            boolean ascending,
+            ProductCursor after,
+            int limit
+    );
+
+    /**
+     * Inserts new products with JDBC batching, on the connection of the current transaction.
+     * Bypasses the persistence context, so the products must carry their codes and USD prices.
+     * Products without a creation time are created now.
+     * Ids are taken from the product id sequence and set on the products.
+     *
+     * @param products Products to insert.
+     */
+    void insertAll(List<Product> products);
+}
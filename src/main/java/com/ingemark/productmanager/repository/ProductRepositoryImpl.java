@@ -0,0 +1,128 @@
+package com.ingemark.productmanager.repository;
+
+import com.ingemark.productmanager.model.product.Product;
+import com.ingemark.productmanager.model.product.ProductCursor;
+import com.ingemark.productmanager.model.product.ProductSortField;
+import com.ingemark.productmanager.util.ProductCode;
+import com.ingemark.productmanager.util.TextNormalizer;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Objects.nonNull;
+
+/**
+ * Keyset pagination for product search, implemented with the Criteria API on top of the ProductSpecifications filters,
+ * and batched inserts for bulk imports.
+ */
+public class ProductRepositoryImpl implements ProductRepositoryCustom {
+
+    private static final String INSERT_PRODUCT = "INSERT INTO products "
+            + "(id, code, code_number, name, name_normalized, price_eur, price_usd, is_available, created_at, updated_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Product> findProductsAfterCursor(Specification<Product> filter,
+                                                 ProductSortField sortBy,
+                                                 boolean ascending,
+                                                 ProductCursor after,
+                                                 int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Product> query = cb.createQuery(Product.class);
+        Root<Product> product = query.from(Product.class);
+
+        List<Predicate> predicates = new ArrayList<>();
+        Predicate filters = filter.toPredicate(product, query, cb);
+        if (nonNull(filters)) {
+            predicates.add(filters);
+        }
+
+        Path<String> code = product.get("code");
+        if (sortBy == ProductSortField.PRICE) {
+            Path<BigDecimal> priceEur = product.get(sortBy.getField());
+            if (nonNull(after)) {
+                predicates.add(after(cb, priceEur, (BigDecimal) after.sortKey(), code, after.lastCode(), ascending));
+            }
+            query.orderBy(ascending ? cb.asc(priceEur) : cb.desc(priceEur), ascending ? cb.asc(code) : cb.desc(code));
+        } else {
+            Path<String> productName = product.get(sortBy.getField());
+            if (nonNull(after)) {
+                predicates.add(after(cb, productName, (String) after.sortKey(), code, after.lastCode(), ascending));
+            }
+            query.orderBy(ascending ? cb.asc(productName) : cb.desc(productName), ascending ? cb.asc(code) : cb.desc(code));
+        }
+
+        query.select(product).where(predicates.toArray(Predicate[]::new));
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /**
+     * Builds the keyset condition (key, code) > (lastKey, lastCode), or < for descending order,
+     * written out so that it works on every database and can use a (key, code) index.
+     */
+    private <T extends Comparable<? super T>> Predicate after(CriteriaBuilder cb,
+                                                              Path<T> key,
+                                                              T lastKey,
+                                                              Path<String> code,
+                                                              String lastCode,
+                                                              boolean ascending) {
+        if (ascending) {
+            return cb.or(
+                    cb.greaterThan(key, lastKey),
+                    cb.and(cb.equal(key, lastKey), cb.greaterThan(code, lastCode)));
+        }
+        return cb.or(
+                cb.lessThan(key, lastKey),
+                cb.and(cb.equal(key, lastKey), cb.lessThan(code, lastCode)));
+    }
+
+    @Override
+    public void insertAll(List<Product> products) {
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        BeforeExecutionGenerator idGenerator = (BeforeExecutionGenerator) session.getFactory().getMappingMetamodel()
+                .getEntityDescriptor(Product.class)
+                .getGenerator();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        session.doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_PRODUCT)) {
+                for (Product product : products) {
+                    // ids come from the block reserved by the pooled sequence generator, as for persisted products
+                    product.setId((Long) idGenerator.generate(session, product, null, EventType.INSERT));
+                    statement.setLong(1, product.getId());
+                    product.setCodeNumber(ProductCode.decode(product.getCode()));
+                    statement.setString(2, product.getCode());
+                    statement.setLong(3, product.getCodeNumber());
+                    statement.setString(4, product.getName());
+                    statement.setString(5, TextNormalizer.normalize(product.getName()));
+                    statement.setBigDecimal(6, product.getPriceEur());
+                    statement.setBigDecimal(7, product.getPriceUsd());
+                    statement.setBoolean(8, product.getIsAvailable());
+                    statement.setTimestamp(9, nonNull(product.getCreatedAt()) ? Timestamp.valueOf(product.getCreatedAt()) : now);
+                    statement.setTimestamp(10, now);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+        });
+    }
+}
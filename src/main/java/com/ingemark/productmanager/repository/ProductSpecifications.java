@@ -0,0 +1,104 @@
+package com.ingemark.productmanager.repository;
+
+import com.ingemark.productmanager.model.product.Product;
+import com.ingemark.productmanager.model.product.request.SearchProductDto;
+import com.ingemark.productmanager.util.TextNormalizer;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Order;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+/**
+ * Product search filters as Specifications.
+ * A filter that is not set contributes no predicate, so the generated SQL contains only the conditions
+ * the search actually uses and the database plans every filter combination on its own.
+ */
+public final class ProductSpecifications {
+
+    private ProductSpecifications() {
+    }
+
+    /**
+     * Combines all filters of a search.
+     *
+     * @param searchProductDto Search filters.
+     * @return Specification matching products that pass every set filter.
+     */
+    public static Specification<Product> matching(SearchProductDto searchProductDto) {
+        return Specification.allOf(
+                nameContains(searchProductDto.name()),
+                priceEurBetween(searchProductDto.minPriceEur(), searchProductDto.maxPriceEur()),
+                priceUsdBetween(searchProductDto.minPriceUsd(), searchProductDto.maxPriceUsd())
+        );
+    }
+
+    /**
+     * Case- and diacritic-insensitive name substring filter, matched against the stored normalized name.
+     *
+     * @param name Substring to look for; no filter if null or empty.
+     * @return Name filter.
+     */
+    public static Specification<Product> nameContains(String name) {
+        return (product, query, cb) -> isNull(name) || name.isEmpty()
+                ? null
+                : cb.like(product.get("nameNormalized"), "%" + TextNormalizer.normalize(name) + "%");
+    }
+
+    public static Specification<Product> priceEurBetween(BigDecimal min, BigDecimal max) {
+        return priceBetween("priceEur", min, max);
+    }
+
+    public static Specification<Product> priceUsdBetween(BigDecimal min, BigDecimal max) {
+        return priceBetween("priceUsd", min, max);
+    }
+
+    /**
+     * Orders products by how well their name matches the searched name, most relevant first, ties by name and code.
+     * Adds no predicate, so it is combined with nameContains, whose LIKE uses the trigram index on PostgreSQL.
+     *
+     * @param name Searched name.
+     * @param trigramSimilarity Rank by pg_trgm similarity(); otherwise earlier and shorter matches rank higher.
+     * @return Specification that only sets the order.
+     */
+    public static Specification<Product> orderedByRelevanceTo(String name, boolean trigramSimilarity) {
+        return (product, query, cb) -> {
+            Expression<String> productName = product.get("nameNormalized");
+            String searched = TextNormalizer.normalize(name);
+            List<Order> orders = new ArrayList<>();
+            if (trigramSimilarity) {
+                orders.add(cb.desc(cb.function("similarity", Double.class, productName, cb.literal(searched))));
+            } else {
+                orders.add(cb.asc(cb.locate(productName, searched)));
+                orders.add(cb.asc(cb.length(productName)));
+            }
+            orders.add(cb.asc(product.get("name")));
+            orders.add(cb.asc(product.get("code")));
+            query.orderBy(orders);
+            return null;
+        };
+    }
+
+    /**
+     * Inclusive price range filter; either bound may be left open.
+     */
+    private static Specification<Product> priceBetween(String field, BigDecimal min, BigDecimal max) {
+        return (product, query, cb) -> {
+            if (nonNull(min) && nonNull(max)) {
+                return cb.between(product.get(field), min, max);
+            }
+            if (nonNull(min)) {
+                return cb.greaterThanOrEqualTo(product.get(field), min);
+            }
+            if (nonNull(max)) {
+                return cb.lessThanOrEqualTo(product.get(field), max);
+            }
+            return null;
+        };
+    }
+}
@@ -0,0 +1,63 @@
+package com.ingemark.productmanager.repository;
+
+import com.ingemark.productmanager.model.product.RepricingJob;
+import com.ingemark.productmanager.model.product.RepricingJobStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface RepricingJobRepository extends JpaRepository<RepricingJob, Long> {
+
+    List<RepricingJob> findByStatusAndHeartbeatAtBefore(RepricingJobStatus status, LocalDateTime heartbeatBefore);
+
+    boolean existsByIdAndOwnerAndStatus(Long id, String owner, RepricingJobStatus status);
+
+    Optional<RepricingJob> findFirstByOrderByIdDesc();
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE RepricingJob j SET j.status = :superseded, j.finishedAt = :now WHERE j.status = :running AND j.id <> :currentId")
+    int supersedeRunningJobs(@Param("currentId") Long currentId,
+                             @Param("running") RepricingJobStatus running,
+                             @Param("superseded") RepricingJobStatus superseded,
+                             @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE RepricingJob j SET j.owner = :owner, j.heartbeatAt = :now " +
+            "WHERE j.id = :id AND j.status = :running AND j.heartbeatAt < :staleBefore")
+    int claimStaleJob(@Param("id") Long id,
+                      @Param("owner") String owner,
+                      @Param("running") RepricingJobStatus running,
+                      @Param("now") LocalDateTime now,
+                      @Param("staleBefore") LocalDateTime staleBefore);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE RepricingJob j SET j.completedUpToId = :completedUpToId, j.rowsUpdated = :rowsUpdated, j.heartbeatAt = :now " +
+            "WHERE j.id = :id AND j.owner = :owner AND j.status = :running")
+    int updateProgress(@Param("id") Long id,
+                       @Param("owner") String owner,
+                       @Param("running") RepricingJobStatus running,
+                       @Param("completedUpToId") Long completedUpToId,
+                       @Param("rowsUpdated") Long rowsUpdated,
+                       @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE RepricingJob j SET j.status = :completed, j.finishedAt = :now " +
+            "WHERE j.id = :id AND j.owner = :owner AND j.status = :running")
+    int completeJob(@Param("id") Long id,
+                    @Param("owner") String owner,
+                    @Param("running") RepricingJobStatus running,
+                    @Param("completed") RepricingJobStatus completed,
+                    @Param("now") LocalDateTime now);
+}
@@ -0,0 +1,27 @@
+package com.ingemark.productmanager.repository;
+
+import com.ingemark.productmanager.model.user.TokenRevocation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface TokenRevocationRepository extends JpaRepository<TokenRevocation, Long> {
+
+    @Query("SELECT r FROM TokenRevocation r WHERE r.expiresAt > :now")
+    List<TokenRevocation> findActive(@Param("now") LocalDateTime now);
+
+    @Query("SELECT r FROM TokenRevocation r WHERE r.revokedAt > :since AND r.expiresAt > :now")
+    List<TokenRevocation> findActiveRevokedAfter(@Param("since") LocalDateTime since, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM TokenRevocation r WHERE r.expiresAt < :before")
+    int deleteExpiredBefore(@Param("before") LocalDateTime before);
+}
@@ -2,8 +2,10 @@ package com.ingemark.productmanager.repository;
 
 import com.ingemark.productmanager.model.user.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
 import java.util.Optional;
+import java.util.Set;
 
 public interface UserRepository extends JpaRepository<User, Long> {
 
@@ -12,4 +14,7 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Boolean existsByUsername(String username);
 
     Boolean existsByEmail(String email);
+
+    @Query("SELECT u.username FROM User u WHERE u.enabled = false")
+    Set<String> findDisabledUsernames();
 }
@@ -1,69 +1,303 @@
 package com.ingemark.productmanager.service;
 
+import com.ingemark.productmanager.client.CircuitOpenException;
+import com.ingemark.productmanager.client.HnbClient;
+import com.ingemark.productmanager.exception.ExchangeRateNotFoundException;
+import com.ingemark.productmanager.exception.ExchangeRateUnavailableException;
+import com.ingemark.productmanager.exception.UnsupportedCurrencyException;
+import com.ingemark.productmanager.model.currency.ExchangeRate;
+import com.ingemark.productmanager.model.currency.ExchangeRateChangedEvent;
+import com.ingemark.productmanager.model.currency.ExchangeRates;
 import com.ingemark.productmanager.model.product.response.HnbRateResponse;
+import com.ingemark.productmanager.repository.ExchangeRateRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.ResponseEntity;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.ingemark.productmanager.model.currency.ExchangeRates.EUR_CURRENCY;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
 
 /**
  * Service to handle currency conversion.
- * Fetches EUR to USD exchange rate from HNB API and calculates USD price.
- * Falls back to a predefined rate on API failure.
+ * Keeps the full HNB rate list in memory as an immutable snapshot and converts EUR prices with it.
+ * The list is fetched with a single HNB call and refreshed on a schedule, so neither writes nor reads call HNB
+ * once the cache is warm.
+ * Every fetched rate is stored, so the latest rates are available on startup and during HNB outages.
  */
 @Service
 @RequiredArgsConstructor
-public class CurrencyService {
-    private final RestTemplate restTemplate;
+public class CurrencyService implements MeterBinder {
+    private final HnbClient hnbClient;
     private final MessageService messageService;
+    private final ExchangeRateRepository exchangeRateRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
-    @Value("${hnb.api.url}")
-    private String hnbApiUrl;
-
-    private static final BigDecimal FALLBACK_RATE = new BigDecimal("1.10");
     private static final String US_CURRENCY = "USD";
     private static final Logger log = LoggerFactory.getLogger(CurrencyService.class);
 
+    private final AtomicReference<ExchangeRates> cachedRates = new AtomicReference<>();
+    private final AtomicReference<CompletableFuture<ExchangeRates>> inFlightFetch = new AtomicReference<>();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+
     /**
-     * Calculates the USD price for a given EUR price using the latest exchange rate.
-     * Falls back to a fixed rate if the external API is unavailable.
+     * Calculates the USD price for a given EUR price using the cached exchange rate.
+     * Falls back to the last stored rate if the rate is not cached and the external API is unavailable.
      *
      * @param priceEur Price in EUR.
      * @return Equivalent price in USD, rounded to 2 decimals.
      */
     public BigDecimal calculateUsdPrice(BigDecimal priceEur) {
+        return priceEur.multiply(getUsdRate()).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Returns the cached EUR to USD rate.
+     *
+     * @return EUR to USD exchange rate.
+     * @throws ExchangeRateUnavailableException if no rate was ever fetched.
+     */
+    public BigDecimal getUsdRate() {
+        return getRate(US_CURRENCY);
+    }
+
+    /**
+     * Returns the cached EUR to currency rate.
+     *
+     * @param currency ISO currency code, case-insensitive.
+     * @return EUR to currency exchange rate.
+     * @throws UnsupportedCurrencyException if HNB does not publish a rate for the currency.
+     * @throws ExchangeRateUnavailableException if no rate was ever fetched.
+     */
+    public BigDecimal getRate(String currency) {
+        String currencyCode = currency.toUpperCase();
+        BigDecimal rate = getRates(currencyCode).rateFor(currencyCode);
+        if (isNull(rate)) {
+            throw new UnsupportedCurrencyException(currencyCode);
+        }
+        return rate;
+    }
+
+    /**
+     * Finds the rate that was in effect on the given date.
+     *
+     * @param currency Currency code (e.g., "USD").
+     * @param date Date for which the rate is requested; the latest rate is returned if null.
+     * @return Stored exchange rate effective on the given date.
+     * @throws ExchangeRateNotFoundException if no rate is stored for that date.
+     */
+    public ExchangeRate getRateAsOf(String currency, LocalDate date) {
+        String currencyCode = currency.toUpperCase();
+        if (isNull(date)) {
+            return exchangeRateRepository.findFirstByCurrencyOrderByEffectiveDateDesc(currencyCode)
+                    .orElseThrow(() -> new ExchangeRateNotFoundException(currencyCode, LocalDate.now()));
+        }
+        return exchangeRateRepository.findFirstByCurrencyAndEffectiveDateLessThanEqualOrderByEffectiveDateDesc(currencyCode, date)
+                .orElseThrow(() -> new ExchangeRateNotFoundException(currencyCode, date));
+    }
+
+    /**
+     * Loads the latest stored rates into the cache on startup, without calling HNB API.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadStoredRates() {
+        List<ExchangeRate> stored = exchangeRateRepository.findLatestRates();
+        if (!stored.isEmpty()) {
+            cachedRates.compareAndSet(null, toExchangeRates(stored));
+        }
+    }
+
+    /**
+     * Refreshes the cached rates from HNB API. The previous rates keep being served while the refresh runs
+     * and stay in place if the refresh fails.
+     */
+    @Scheduled(cron = "${hnb.rate.refresh-cron}")
+    public void refreshRate() {
+        try {
+            fetchRates();
+        } catch (Exception e) {
+            log.warn("Scheduled HNB rate refresh failed, keeping the cached rates", e);
+        }
+    }
+
+    /**
+     * Returns how long ago the cached rates were fetched.
+     *
+     * @return Age of the cached rates, or null if no rates are cached yet.
+     */
+    public Duration getCacheAge() {
+        ExchangeRates rates = cachedRates.get();
+        return isNull(rates) ? null : Duration.between(rates.fetchedAt(), Instant.now());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("currency.rate.cache.age", this, service -> {
+                    Duration age = service.getCacheAge();
+                    return isNull(age) ? Double.NaN : age.toMillis() / 1000.0;
+                })
+                .description("Seconds since the cached HNB rates were fetched")
+                .baseUnit("seconds")
+                .register(registry);
+        FunctionCounter.builder("currency.rate.cache.requests", cacheHits, LongAdder::sum)
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("currency.rate.cache.requests", cacheMisses, LongAdder::sum)
+                .tag("result", "miss")
+                .register(registry);
+    }
+
+    /**
+     * Returns the cached rate list. On a cold cache all concurrent callers wait on a single fetch.
+     *
+     * @param currency Currency the caller needs, reported if no rates are available at all.
+     * @return Snapshot of the rate list.
+     */
+    private ExchangeRates getRates(String currency) {
+        ExchangeRates rates = cachedRates.get();
+        if (rates != null) {
+            cacheHits.increment();
+            return rates;
+        }
+
+        cacheMisses.increment();
         try {
-            BigDecimal exchangeRate = getEurToCurrencyRate(US_CURRENCY);
-            return priceEur.multiply(exchangeRate).setScale(2, RoundingMode.HALF_UP);
+            return fetchRates();
+        } catch (CircuitOpenException e) {
+            log.debug(e.getMessage());
+            return lastStoredRates(currency);
         } catch (Exception e) {
             String errorMessage = messageService.getMessage("currency.service.unavailable");
             log.warn(errorMessage, e);
-            return priceEur.multiply(FALLBACK_RATE).setScale(2, RoundingMode.HALF_UP);
+            return lastStoredRates(currency);
+        }
+    }
+
+    /**
+     * Serves the last stored rates while HNB is unavailable. They are cached until the next successful refresh,
+     * so the database is not queried on every call during an outage.
+     *
+     * @param currency Currency the caller needs, reported if no rates are stored.
+     * @return Latest stored rates.
+     */
+    private ExchangeRates lastStoredRates(String currency) {
+        List<ExchangeRate> stored = exchangeRateRepository.findLatestRates();
+        if (stored.isEmpty()) {
+            throw new ExchangeRateUnavailableException(currency);
+        }
+        ExchangeRates rates = toExchangeRates(stored);
+        return cachedRates.compareAndSet(null, rates) ? rates : cachedRates.get();
+    }
+
+    /**
+     * Fetches the rate list from HNB API and stores it in the cache.
+     * Joins the fetch that is already running instead of starting a second one.
+     * Publishes an ExchangeRateChangedEvent for every rate that differs from the one served before.
+     *
+     * @return Freshly fetched rates.
+     */
+    private ExchangeRates fetchRates() {
+        CompletableFuture<ExchangeRates> fetch = new CompletableFuture<>();
+        CompletableFuture<ExchangeRates> running = inFlightFetch.compareAndExchange(null, fetch);
+        if (running != null) {
+            return running.join();
+        }
+
+        try {
+            ExchangeRates rates = getEurRates();
+            ExchangeRates previous = cachedRates.getAndSet(rates);
+            storeRates(rates);
+            rates.rates().forEach((currency, rate) -> {
+                BigDecimal previousRate = isNull(previous) ? null : previous.rateFor(currency);
+                if (!EUR_CURRENCY.equals(currency) && (isNull(previousRate) || previousRate.compareTo(rate) != 0)) {
+                    eventPublisher.publishEvent(new ExchangeRateChangedEvent(currency, rate, rates.effectiveDate()));
+                }
+            });
+            fetch.complete(rates);
+            return rates;
+        } catch (RuntimeException e) {
+            fetch.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlightFetch.compareAndSet(fetch, null);
+        }
+    }
+
+    /**
+     * Stores the fetched rates unless the rates for their effective date are already stored.
+     * A failure to store is logged and does not affect the cached rates.
+     *
+     * @param rates Freshly fetched rates.
+     */
+    private void storeRates(ExchangeRates rates) {
+        try {
+            if (!exchangeRateRepository.existsByEffectiveDate(rates.effectiveDate())) {
+                exchangeRateRepository.saveAll(rates.rates().entrySet().stream()
+                        .filter(entry -> !EUR_CURRENCY.equals(entry.getKey()))
+                        .map(entry -> ExchangeRate.builder()
+                                .currency(entry.getKey())
+                                .rate(entry.getValue())
+                                .effectiveDate(rates.effectiveDate())
+                                .build())
+                        .toList());
+            }
+        } catch (Exception e) {
+            log.warn("Failed to store HNB rates for {}", rates.effectiveDate(), e);
         }
     }
 
     /**
-     * Retrieves EUR to target currency exchange rate from HNB API.
+     * Retrieves the full EUR rate list from HNB API with a single call.
      *
-     * @param currency Target currency code (e.g., "USD").
-     * @return Exchange rate as BigDecimal.
+     * @return Exchange rates with their effective date.
      * @throws IllegalStateException if no exchange rate data is returned.
      */
-    private BigDecimal getEurToCurrencyRate(String currency) {
-        ResponseEntity<HnbRateResponse[]> response = restTemplate.getForEntity(hnbApiUrl + currency, HnbRateResponse[].class);
-        HnbRateResponse[] rates = response.getBody();
+    private ExchangeRates getEurRates() {
+        HnbRateResponse[] rates = hnbClient.fetchRates();
 
         if (rates == null || rates.length == 0) {
             throw new IllegalStateException("No exchange rate data returned from HNB");
         }
 
-        String rateStr = rates[0].srednjiTecaj().replace(",", "."); // HNB uses commas as decimal separator
-        return new BigDecimal(rateStr);
+        Map<String, BigDecimal> rateByCurrency = new HashMap<>();
+        rateByCurrency.put(EUR_CURRENCY, BigDecimal.ONE);
+        for (HnbRateResponse rate : rates) {
+            String rateStr = rate.srednjiTecaj().replace(",", "."); // HNB uses commas as decimal separator
+            rateByCurrency.put(rate.valuta(), new BigDecimal(rateStr));
+        }
+        LocalDate effectiveDate = nonNull(rates[0].datumPrimjene()) ? rates[0].datumPrimjene() : LocalDate.now();
+        return new ExchangeRates(rateByCurrency, effectiveDate, Instant.now());
+    }
+
+    private ExchangeRates toExchangeRates(List<ExchangeRate> stored) {
+        Map<String, BigDecimal> rateByCurrency = new HashMap<>();
+        rateByCurrency.put(EUR_CURRENCY, BigDecimal.ONE);
+        stored.forEach(rate -> rateByCurrency.put(rate.getCurrency(), rate.getRate()));
+        ExchangeRate latest = stored.get(0);
+        return new ExchangeRates(rateByCurrency, latest.getEffectiveDate(),
+                latest.getFetchedAt().atZone(ZoneId.systemDefault()).toInstant());
     }
 }
@@ -1,11 +1,13 @@
 package com.ingemark.productmanager.service;
 
+import com.ingemark.productmanager.cache.UserPrincipalCache;
 import com.ingemark.productmanager.exception.UserNotFoundException;
 import com.ingemark.productmanager.model.user.User;
 import com.ingemark.productmanager.model.user.UserPrincipal;
 import com.ingemark.productmanager.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
@@ -13,24 +15,48 @@ import org.springframework.transaction.annotation.Transactional;
 
 /**
  * Service implementing Spring Security's UserDetailsService.
- * Loads user details for authentication by username.
+ * Loads user details for authentication by username, through a cache of immutable principals.
+ * As UserDetailsPasswordService it stores password hashes upgraded to the current bcrypt cost after a successful login.
  */
 @Service
 @RequiredArgsConstructor
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
+    private final UserPrincipalCache userPrincipalCache;
 
     /**
-     * Loads a user by username.
+     * Loads a user by username. Repeated logins are served from the cache, without a query.
      *
      * @param username Username of the user.
      * @return UserDetails implementation for authentication.
      * @throws UserNotFoundException if user is not found.
      */
     @Override
-    @Transactional
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+        return userPrincipalCache.get(username, this::findUser);
+    }
+
+    /**
+     * Replaces the password hash of a user, after it was re-hashed with the current bcrypt cost.
+     *
+     * @param userDetails User who has just logged in.
+     * @param newPassword New password hash.
+     * @return UserDetails with the new password hash.
+     * @throws UserNotFoundException if user is not found.
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        User user = userRepository.findByUsername(userDetails.getUsername())
+                .orElseThrow(() -> new UserNotFoundException(userDetails.getUsername()));
+        user.setPassword(newPassword);
+        userPrincipalCache.invalidate(user.getUsername());
+
+        return UserPrincipal.create(user);
+    }
+
+    private UserPrincipal findUser(String username) {
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new UserNotFoundException(username));
 
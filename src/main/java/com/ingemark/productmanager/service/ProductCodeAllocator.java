@@ -0,0 +1,200 @@
+package com.ingemark.productmanager.service;
+
+import com.ingemark.productmanager.configuration.ProductCodeAllocatorConfig;
+import com.ingemark.productmanager.repository.ProductCodeSequences;
+import com.ingemark.productmanager.util.ProductCode;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntToLongFunction;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+/**
+ * Hands out product code numbers from blocks reserved in memory, instead of one nextval round trip per product.
+ * Every year has its own code sequence, product_code_&lt;year&gt;_seq, created on the first request for a code of the year.
+ * The sequences are incremented by the block size, so a nextval result of n reserves the values n to
+ * n + block size - 1 for this node alone, and codes stay unique across nodes.
+ * Values are taken from the current block with an atomic counter, without locking. When refill-threshold of the block
+ * is left, the next block is fetched in the background, so callers only wait for the database if a block runs out
+ * before its successor arrives, or when the year changes. A block is also replaced once it is max-block-age old,
+ * so a node never hands out codes far below the ones other nodes already use. The unused rest of a block is lost
+ * on shutdown, when it gets too old and at the end of the year, which leaves a gap in the codes.
+ */
+@Component
+public class ProductCodeAllocator implements MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductCodeAllocator.class);
+
+    private final IntToLongFunction blockStarts;
+    private final int blockSize;
+    private final int refillAfter;
+    private final long maxBlockAgeNanos;
+    private final ExecutorService refillExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "product-code-refill");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile Block current;
+    // next block of the year of the current block, requested once refill-threshold of the current block is left;
+    // guarded by this
+    private CompletableFuture<Block> prefetched;
+    private int prefetchedYear;
+    private final LongAdder blocksFetched = new LongAdder();
+    private final LongAdder stalls = new LongAdder();
+
+    @Autowired
+    public ProductCodeAllocator(ProductCodeSequences productCodeSequences, ProductCodeAllocatorConfig productCodeAllocatorConfig) {
+        this(verifiedBlockStarts(productCodeSequences, productCodeAllocatorConfig.getBlockSize()), productCodeAllocatorConfig);
+    }
+
+    ProductCodeAllocator(IntToLongFunction blockStarts, ProductCodeAllocatorConfig productCodeAllocatorConfig) {
+        this.blockStarts = blockStarts;
+        this.blockSize = productCodeAllocatorConfig.getBlockSize();
+        this.refillAfter = (int) (blockSize * (1 - productCodeAllocatorConfig.getRefillThreshold()));
+        this.maxBlockAgeNanos = productCodeAllocatorConfig.getMaxBlockAge().toNanos();
+    }
+
+    /**
+     * Returns the next unused code number of a year.
+     *
+     * @param year Year the product is created in.
+     * @return Code number, unique across all nodes, see ProductCode.
+     */
+    public long next(int year) {
+        while (true) {
+            Block block = current;
+            if (nonNull(block) && block.year == year && !block.expired()) {
+                long value = block.next.getAndIncrement();
+                if (value <= block.last) {
+                    if (value == block.refillAt) {
+                        prefetch(block.year);
+                    }
+                    return value;
+                }
+            }
+            advance(block, year);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refillExecutor.shutdownNow();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("product.code.allocator.remaining", this, ProductCodeAllocator::remaining)
+                .description("Code sequence values left in the current block")
+                .register(registry);
+        FunctionCounter.builder("product.code.allocator.blocks", blocksFetched, LongAdder::sum)
+                .description("Blocks of code sequence values reserved")
+                .register(registry);
+        FunctionCounter.builder("product.code.allocator.stalls", stalls, LongAdder::sum)
+                .description("Times a block ran out before the next one was fetched, so a caller waited for the database")
+                .register(registry);
+    }
+
+    long remaining() {
+        Block block = current;
+        return isNull(block) ? 0 : Math.max(0, block.last - block.next.get() + 1);
+    }
+
+    long blocksFetched() {
+        return blocksFetched.sum();
+    }
+
+    long stalls() {
+        return stalls.sum();
+    }
+
+    /**
+     * Replaces the exhausted or expired block, or the block of another year, with the prefetched one, or with one
+     * fetched now if none was prefetched for the year, the prefetch failed or the prefetched block expired as well.
+     * Only the first caller to see the block replaces it.
+     */
+    private synchronized void advance(Block replaced, int year) {
+        if (current != replaced) {
+            return;
+        }
+        CompletableFuture<Block> next = prefetched;
+        prefetched = null;
+        if (nonNull(next) && prefetchedYear == year) {
+            try {
+                Block block = next.join();
+                if (!block.expired()) {
+                    current = block;
+                    return;
+                }
+            } catch (CompletionException e) {
+                log.warn("Prefetching product codes failed, fetching them now", e.getCause());
+            }
+        }
+        if (nonNull(replaced) && replaced.year == year && !replaced.expired()) {
+            stalls.increment();
+        }
+        current = fetchBlock(year);
+    }
+
+    private synchronized void prefetch(int year) {
+        if (isNull(prefetched)) {
+            prefetched = CompletableFuture.supplyAsync(() -> fetchBlock(year), refillExecutor);
+            prefetchedYear = year;
+        }
+    }
+
+    private Block fetchBlock(int year) {
+        // taken before the reservation, so the block never outlives max-block-age from it
+        long expiresAt = System.nanoTime() + maxBlockAgeNanos;
+        long start = blockStarts.applyAsLong(year);
+        blocksFetched.increment();
+        long first = ProductCode.number(year, start);
+        return new Block(year, ProductCode.number(year, start + blockSize - 1), first + refillAfter, expiresAt,
+                new AtomicLong(first));
+    }
+
+    /**
+     * Reads block starts from the sequence of the year, creating it if needed, after checking once per year that
+     * its increment matches the block size. A mismatch would let two nodes hand out the same codes,
+     * so it fails every allocation instead.
+     */
+    private static IntToLongFunction verifiedBlockStarts(ProductCodeSequences productCodeSequences, int blockSize) {
+        Set<Integer> verifiedYears = ConcurrentHashMap.newKeySet();
+        return year -> {
+            if (!verifiedYears.contains(year)) {
+                productCodeSequences.create(year, blockSize);
+                Long increment = productCodeSequences.increment(year);
+                if (isNull(increment) || increment != blockSize) {
+                    throw new IllegalStateException("The product code sequence of " + year + " is incremented by "
+                            + increment + ", but app.product-code-allocator.block-size is " + blockSize);
+                }
+                verifiedYears.add(year);
+            }
+            return productCodeSequences.next(year);
+        };
+    }
+
+    private record Block(int year, long last, long refillAt, long expiresAt, AtomicLong next) {
+
+        boolean expired() {
+            return System.nanoTime() - expiresAt >= 0;
+        }
+    }
+}
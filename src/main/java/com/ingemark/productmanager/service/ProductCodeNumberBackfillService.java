@@ -0,0 +1,44 @@
+package com.ingemark.productmanager.service;
+
+import com.ingemark.productmanager.util.ProductCode;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+/**
+ * Fills code_number for products stored before the column was added, so they can be found through its index.
+ * Codes that were not generated from the sequence cannot be decoded and are left without a code number.
+ */
+@Service
+@RequiredArgsConstructor
+public class ProductCodeNumberBackfillService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductCodeNumberBackfillService.class);
+
+    private final ProductColumnBackfill productColumnBackfill;
+
+    /**
+     * Decodes the codes of all products that have no code number yet.
+     *
+     * @return Number of products backfilled.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public long backfill() {
+        long backfilled = productColumnBackfill.fill("code_number", "code", ProductCodeNumberBackfillService::decode);
+        if (backfilled > 0) {
+            log.info("Backfilled code numbers of {} products", backfilled);
+        }
+        return backfilled;
+    }
+
+    private static Long decode(String code) {
+        if (!ProductCode.isValid(code)) {
+            log.warn("Product code {} is not a product code; leaving it without a code number", code);
+            return null;
+        }
+        return ProductCode.decode(code);
+    }
+}
@@ -0,0 +1,65 @@
+package com.ingemark.productmanager.service;
+
+import com.ingemark.productmanager.configuration.ProductBackfillConfig;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import static java.util.Objects.nonNull;
+
+/**
+ * Fills a column added to products for the rows stored before it existed, deriving it from another column.
+ * Rows are read by ascending id in batches of batch-size, each batch updated in one transaction, so no long
+ * transaction locks the table and an interrupted backfill continues where it stopped on the next start.
+ * Rows are updated with plain JDBC, so updated_at is not touched.
+ */
+@Component
+@RequiredArgsConstructor
+public class ProductColumnBackfill {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ProductBackfillConfig productBackfillConfig;
+
+    /**
+     * Fills the column of every product where it is null.
+     *
+     * @param column Column to fill.
+     * @param sourceColumn Text column the value is derived from.
+     * @param derive Derives the value from the source column; null leaves the row as it is.
+     * @return Number of products filled.
+     */
+    public long fill(String column, String sourceColumn, Function<String, Object> derive) {
+        String select = "SELECT id, " + sourceColumn + " FROM products WHERE " + column + " IS NULL AND id > ? "
+                + "ORDER BY id LIMIT ?";
+        String update = "UPDATE products SET " + column + " = ? WHERE id = ?";
+        int batchSize = productBackfillConfig.getBatchSize();
+        long filled = 0;
+        long lastId = 0;
+        int rows;
+        do {
+            List<Object[]> batch = jdbcTemplate.query(select,
+                    (rs, rowNum) -> new Object[]{rs.getString(sourceColumn), rs.getLong("id")},
+                    lastId, batchSize);
+            rows = batch.size();
+            if (rows > 0) {
+                lastId = (long) batch.get(rows - 1)[1];
+                List<Object[]> updates = new ArrayList<>(rows);
+                for (Object[] row : batch) {
+                    Object value = derive.apply((String) row[0]);
+                    if (nonNull(value)) {
+                        updates.add(new Object[]{value, row[1]});
+                    }
+                }
+                transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(update, updates));
+                filled += updates.size();
+            }
+        } while (rows == batchSize);
+        return filled;
+    }
+}
@@ -0,0 +1,175 @@
+package com.ingemark.productmanager.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.ingemark.productmanager.configuration.ProductExportConfig;
+import com.ingemark.productmanager.exception.ProductExportBusyException;
+import com.ingemark.productmanager.model.product.ProductExportFormat;
+import com.ingemark.productmanager.model.product.response.ProductResponseDto;
+import com.ingemark.productmanager.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Stream;
+
+import static java.util.Objects.isNull;
+
+/**
+ * Service for exporting the whole product catalog.
+ * Products are read from a server-side cursor and each one is written as soon as it is read, so memory use does
+ * not depend on the size of the catalog. The read runs in one read-only transaction: it sees a consistent snapshot
+ * without blocking concurrent writes. Each export holds a database connection until it finishes, so only
+ * {@code app.product-export.max-concurrent} exports may run at once; further requests are rejected.
+ */
+@Service
+public class ProductExportService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductExportService.class);
+
+    private static final String CSV_HEADER = "code,name,priceEur,priceUsd,isAvailable";
+    private static final String CSV_LINE_END = "\r\n";
+    private static final int CSV_BUFFER_SIZE = 64 * 1024;
+
+    private final ProductRepository productRepository;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Semaphore permits;
+
+    public ProductExportService(ProductRepository productRepository,
+                                TransactionTemplate readOnlyTransactionTemplate,
+                                ObjectMapper objectMapper,
+                                ProductExportConfig productExportConfig) {
+        this.productRepository = productRepository;
+        this.readOnlyTransactionTemplate = readOnlyTransactionTemplate;
+        this.objectMapper = objectMapper;
+        this.permits = new Semaphore(productExportConfig.getMaxConcurrent());
+    }
+
+    /**
+     * Writes every product, in id order, to the output opened from the given target.
+     * The target is only opened once the export is allowed to run, so a rejected export writes nothing.
+     *
+     * @param format Format to write the products in.
+     * @param target Opens the output the products are written to; the output is closed when the export ends.
+     * @throws ProductExportBusyException if too many exports are already running.
+     * @throws IOException if the products cannot be written.
+     */
+    public void exportProducts(ProductExportFormat format, Output target) throws IOException {
+        if (!permits.tryAcquire()) {
+            throw new ProductExportBusyException();
+        }
+        try (OutputStream output = target.open()) {
+            long start = System.nanoTime();
+            long count = readOnlyTransactionTemplate.execute(status -> {
+                try (Stream<ProductResponseDto> products = productRepository.streamAllForExport()) {
+                    return switch (format) {
+                        case NDJSON -> writeNdjson(products.iterator(), output);
+                        case CSV -> writeCsv(products.iterator(), output);
+                    };
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            log.info("Exported {} products as {} in {} ms", count, format, (System.nanoTime() - start) / 1_000_000);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            permits.release();
+        }
+    }
+
+    private long writeNdjson(Iterator<ProductResponseDto> products, OutputStream output) throws IOException {
+        long count = 0;
+        // rows are flushed when the generator's buffer fills, not after every row
+        SequenceWriter writer = objectMapper.writer()
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .withRootValueSeparator("\n")
+                .writeValues(output);
+        while (products.hasNext()) {
+            writer.write(products.next());
+            count++;
+        }
+        writer.flush();
+        return count;
+    }
+
+    private long writeCsv(Iterator<ProductResponseDto> products, OutputStream output) throws IOException {
+        long count = 0;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), CSV_BUFFER_SIZE);
+        writer.write(CSV_HEADER);
+        writer.write(CSV_LINE_END);
+        while (products.hasNext()) {
+            ProductResponseDto product = products.next();
+            writeCsvField(writer, product.code());
+            writer.write(',');
+            writeCsvField(writer, product.name());
+            writer.write(',');
+            writer.write(toPlainString(product.priceEur()));
+            writer.write(',');
+            writer.write(toPlainString(product.priceUsd()));
+            writer.write(',');
+            writer.write(String.valueOf(product.isAvailable()));
+            writer.write(CSV_LINE_END);
+            count++;
+        }
+        writer.flush();
+        return count;
+    }
+
+    /**
+     * Writes a CSV field, quoted as RFC 4180 requires when it contains a separator, a quote or a line break.
+     */
+    private static void writeCsvField(Writer writer, String value) throws IOException {
+        if (isNull(value)) {
+            return;
+        }
+        if (!needsQuoting(value)) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                writer.write('"');
+            }
+            writer.write(c);
+        }
+        writer.write('"');
+    }
+
+    private static boolean needsQuoting(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\r' || c == '\n') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String toPlainString(BigDecimal value) {
+        return isNull(value) ? "" : value.toPlainString();
+    }
+
+    /**
+     * Opens the output an export is written to.
+     */
+    @FunctionalInterface
+    public interface Output {
+        OutputStream open() throws IOException;
+    }
+}
@@ -0,0 +1,212 @@
+package com.ingemark.productmanager.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.ingemark.productmanager.cache.ProductCodeFilter;
+import com.ingemark.productmanager.configuration.ProductImportConfig;
+import com.ingemark.productmanager.mapper.ProductMapper;
+import com.ingemark.productmanager.model.product.Product;
+import com.ingemark.productmanager.model.product.request.CreateProductDto;
+import com.ingemark.productmanager.model.product.response.ProductImportResultDto;
+import com.ingemark.productmanager.repository.ProductRepository;
+import com.ingemark.productmanager.util.ProductCode;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+/**
+ * Service for importing many products in one request.
+ * The upload is read item by item and the results are written as they are produced, so memory use does not
+ * depend on the size of the upload: at most one batch of items is held at a time.
+ * The USD rate is resolved once per import. Each batch takes its codes from the product code allocator and is
+ * inserted with one JDBC batch in its own transaction, so a failed batch does not undo the batches before it.
+ */
+@Service
+public class ProductImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductImportService.class);
+
+    private final ProductRepository productRepository;
+    private final ProductMapper productMapper;
+    private final CurrencyService currencyService;
+    private final TransactionTemplate transactionTemplate;
+    private final ProductCodeFilter productCodeFilter;
+    private final MessageService messageService;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final ProductImportConfig productImportConfig;
+    private final ProductCodeAllocator productCodeAllocator;
+
+    public ProductImportService(ProductRepository productRepository,
+                                ProductMapper productMapper,
+                                CurrencyService currencyService,
+                                TransactionTemplate transactionTemplate,
+                                ProductCodeFilter productCodeFilter,
+                                MessageService messageService,
+                                Validator validator,
+                                ObjectMapper objectMapper,
+                                ProductImportConfig productImportConfig,
+                                ProductCodeAllocator productCodeAllocator) {
+        this.productRepository = productRepository;
+        this.productMapper = productMapper;
+        this.currencyService = currencyService;
+        this.transactionTemplate = transactionTemplate;
+        this.productCodeFilter = productCodeFilter;
+        this.messageService = messageService;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.productImportConfig = productImportConfig;
+        this.productCodeAllocator = productCodeAllocator;
+    }
+
+    /**
+     * Imports the products of a JSON array or of NDJSON (one product per line) and writes one result per item,
+     * as NDJSON in upload order. Items that fail validation are rejected without stopping the import.
+     * Malformed JSON ends the import with a rejected result for the item that could not be read.
+     *
+     * @param upload Uploaded JSON array or NDJSON of CreateProductDto.
+     * @param results Stream the NDJSON results are written to.
+     * @throws IOException if the upload cannot be read or the results cannot be written.
+     */
+    public void importProducts(InputStream upload, OutputStream results) throws IOException {
+        BigDecimal usdRate = currencyService.getUsdRate();
+        try (JsonParser parser = objectMapper.getFactory().createParser(upload);
+             SequenceWriter writer = objectMapper.writer().withRootValueSeparator("\n").writeValues(results)) {
+            Batch batch = new Batch(productImportConfig.getBatchSize());
+            long index = 0;
+            try {
+                JsonToken token = parser.nextToken();
+                boolean array = token == JsonToken.START_ARRAY;
+                if (array) {
+                    token = parser.nextToken();
+                }
+                while (nonNull(token) && token != JsonToken.END_ARRAY) {
+                    JsonNode item = parser.readValueAsTree();
+                    batch.add(index++, item, usdRate);
+                    if (batch.isFull()) {
+                        flush(batch, writer);
+                        batch = new Batch(productImportConfig.getBatchSize());
+                    }
+                    token = parser.nextToken();
+                }
+            } catch (JsonProcessingException e) {
+                batch.reject(index, List.of(messageService.getMessage("product.import.malformed", e.getOriginalMessage())));
+            }
+            flush(batch, writer);
+        }
+    }
+
+    private void flush(Batch batch, SequenceWriter writer) throws IOException {
+        if (!batch.products.isEmpty()) {
+            insert(batch);
+        }
+        for (ProductImportResultDto result : batch.results) {
+            writer.write(result);
+        }
+        writer.flush();
+    }
+
+    /**
+     * Assigns codes to the valid items of the batch and inserts them, or rejects them all if the batch fails.
+     */
+    private void insert(Batch batch) {
+        List<Product> products = batch.products;
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            for (Product product : products) {
+                product.setCreatedAt(now);
+                product.setCode(ProductCode.encode(productCodeAllocator.next(now.getYear())));
+            }
+            transactionTemplate.executeWithoutResult(status -> productRepository.insertAll(products));
+        } catch (DataAccessException e) {
+            log.warn("Importing a batch of {} products failed", products.size(), e);
+            String error = messageService.getMessage("product.import.failed");
+            for (int i = 0; i < products.size(); i++) {
+                int position = batch.positions.get(i);
+                batch.results.set(position, ProductImportResultDto.rejected(batch.results.get(position).index(), List.of(error)));
+            }
+            return;
+        }
+        for (int i = 0; i < products.size(); i++) {
+            String code = products.get(i).getCode();
+            productCodeFilter.add(code);
+            int position = batch.positions.get(i);
+            batch.results.set(position, ProductImportResultDto.created(batch.results.get(position).index(), code));
+        }
+    }
+
+    /**
+     * Items read since the last flush: a result for every item, in upload order, and a product for every valid one.
+     * Results of valid items get their code once the batch is inserted.
+     */
+    private class Batch {
+
+        private final int size;
+        private final List<ProductImportResultDto> results;
+        private final List<Product> products;
+        // position in results of each product
+        private final List<Integer> positions;
+
+        Batch(int size) {
+            this.size = size;
+            this.results = new ArrayList<>(size);
+            this.products = new ArrayList<>(size);
+            this.positions = new ArrayList<>(size);
+        }
+
+        void add(long index, JsonNode item, BigDecimal usdRate) {
+            CreateProductDto createProductDto;
+            try {
+                createProductDto = objectMapper.treeToValue(item, CreateProductDto.class);
+            } catch (JsonProcessingException e) {
+                reject(index, List.of(messageService.getMessage("product.import.malformed", e.getOriginalMessage())));
+                return;
+            }
+            if (isNull(createProductDto)) {
+                reject(index, List.of(messageService.getMessage("product.import.malformed", "null")));
+                return;
+            }
+            List<String> errors = validator.validate(createProductDto).stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .toList();
+            if (!errors.isEmpty()) {
+                reject(index, errors);
+                return;
+            }
+            Product product = productMapper.toEntity(createProductDto);
+            product.setPriceUsd(createProductDto.priceEur().multiply(usdRate).setScale(2, RoundingMode.HALF_UP));
+            positions.add(results.size());
+            results.add(ProductImportResultDto.created(index, null));
+            products.add(product);
+        }
+
+        void reject(long index, List<String> errors) {
+            results.add(ProductImportResultDto.rejected(index, errors));
+        }
+
+        boolean isFull() {
+            return results.size() >= size;
+        }
+    }
+}
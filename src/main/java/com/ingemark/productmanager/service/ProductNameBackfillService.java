@@ -0,0 +1,35 @@
+package com.ingemark.productmanager.service;
+
+import com.ingemark.productmanager.util.TextNormalizer;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+/**
+ * Fills name_normalized for products stored before the column was added, once the application is ready.
+ */
+@Service
+@RequiredArgsConstructor
+public class ProductNameBackfillService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductNameBackfillService.class);
+
+    private final ProductColumnBackfill productColumnBackfill;
+
+    /**
+     * Normalizes the names of all products that have no normalized name yet.
+     *
+     * @return Number of products backfilled.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public long backfill() {
+        long backfilled = productColumnBackfill.fill("name_normalized", "name", TextNormalizer::normalize);
+        if (backfilled > 0) {
+            log.info("Backfilled normalized names of {} products", backfilled);
+        }
+        return backfilled;
+    }
+}
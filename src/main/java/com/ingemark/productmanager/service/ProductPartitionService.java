@@ -0,0 +1,43 @@
+package com.ingemark.productmanager.service;
+
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+
+/**
+ * Creates the partitions of the products table (PostgreSQL, see schema.sql) ahead of the years they hold.
+ * schema.sql creates the partitions of the current and the next year on startup; this keeps creating the next one
+ * on nodes that run into a new year, so inserts never find their partition missing.
+ */
+@Service
+@RequiredArgsConstructor
+public class ProductPartitionService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductPartitionService.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Creates the partitions of the current and the next year, unless they exist.
+     * A failure is retried on the next run, a year ahead of the partition being needed.
+     */
+    @Scheduled(cron = "${app.product-partitions.cron:0 0 3 * * *}")
+    public void createPartitions() {
+        int year = LocalDate.now().getYear();
+        try {
+            createPartition(year);
+            createPartition(year + 1);
+        } catch (Exception e) {
+            log.warn("Creating the product partitions of {} and {} failed, retrying on the next run", year, year + 1, e);
+        }
+    }
+
+    private void createPartition(int year) {
+        jdbcTemplate.queryForList("SELECT create_products_partition(?)", year);
+    }
+}
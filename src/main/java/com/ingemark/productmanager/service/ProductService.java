@@ -1,23 +1,45 @@
 package com.ingemark.productmanager.service;
 
+import com.ingemark.productmanager.cache.ProductCache;
+import com.ingemark.productmanager.cache.ProductCodeFilter;
+import com.ingemark.productmanager.configuration.SearchConfig;
+import com.ingemark.productmanager.exception.InvalidCursorException;
 import com.ingemark.productmanager.exception.ProductNotFoundException;
+import com.ingemark.productmanager.exception.UnsupportedCurrencyException;
 import com.ingemark.productmanager.mapper.ProductMapper;
 import com.ingemark.productmanager.model.product.Product;
+import com.ingemark.productmanager.model.product.ProductCursor;
 import com.ingemark.productmanager.model.product.ProductSortField;
+import com.ingemark.productmanager.model.product.ProductTombstone;
+import com.ingemark.productmanager.model.product.request.BatchGetProductsDto;
 import com.ingemark.productmanager.model.product.request.CreateProductDto;
 import com.ingemark.productmanager.model.product.request.SearchProductDto;
 import com.ingemark.productmanager.model.product.request.UpdateProductDto;
 import com.ingemark.productmanager.model.product.response.PagedProductResponseDto;
+import com.ingemark.productmanager.model.product.response.ProductBatchResponseDto;
 import com.ingemark.productmanager.model.product.response.ProductResponseDto;
 import com.ingemark.productmanager.repository.ProductRepository;
+import com.ingemark.productmanager.repository.ProductSpecifications;
+import com.ingemark.productmanager.repository.ProductTombstoneRepository;
+import com.ingemark.productmanager.util.ProductCode;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import static com.ingemark.productmanager.model.product.request.SearchProductDto.DEFAULT_PAGE;
 import static com.ingemark.productmanager.model.product.request.SearchProductDto.DEFAULT_SIZE;
@@ -26,6 +48,7 @@ import static java.util.Objects.nonNull;
 /**
  * Service class to manage product business logic.
  * Handles creating, updating, deleting, and searching products.
+ * Exchange rates are resolved before a transaction is opened, so a slow rate lookup never holds a pooled connection.
  */
 @Service
 @RequiredArgsConstructor
@@ -34,32 +57,43 @@ public class ProductService {
     private final ProductRepository productRepository;
     private final ProductMapper productMapper;
     private final CurrencyService currencyService;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final SearchConfig searchConfig;
+    private final ProductCache productCache;
+    private final ProductCodeFilter productCodeFilter;
+    private final ProductTombstoneRepository productTombstoneRepository;
+    private final ProductCodeAllocator productCodeAllocator;
 
     /**
      * Searches products based on filter criteria with pagination.
+     * Prices are converted to the requested currency when the search specifies one.
+     * The rate is resolved before the read transaction starts.
+     * A search with a cursor (empty for the first page) uses keyset pagination instead of page numbers.
+     * A RELEVANCE search ranks the products matching the name by similarity to it.
      *
      * @param searchProductDto Search filters and pagination info; if null, returns all with default pagination.
      * @return Paged response with matching products.
      */
-    @Transactional(readOnly = true)
     public PagedProductResponseDto searchProducts(SearchProductDto searchProductDto) {
         if (nonNull(searchProductDto)) {
+            String currency = searchProductDto.currency();
+            BigDecimal rate = nonNull(currency) ? currencyService.getRate(currency) : null;
+            if (nonNull(searchProductDto.cursor())) {
+                return searchProductsAfterCursor(searchProductDto, currency, rate);
+            }
             Pageable pageable = resolvePageable(searchProductDto);
-            Page<Product> searchedProducts = productRepository.findProductsByFilters(
-                    searchProductDto.name(),
-                    searchProductDto.minPriceEur(),
-                    searchProductDto.maxPriceEur(),
-                    searchProductDto.minPriceUsd(),
-                    searchProductDto.maxPriceUsd(),
-                    pageable
-            );
+            return readOnlyTransactionTemplate.execute(status -> {
+                Page<Product> searchedProducts = productRepository.findAll(resolveSpecification(searchProductDto), pageable);
 
-            return productMapper.toPagedProductResponseDto(searchedProducts);
+                return nonNull(rate)
+                        ? productMapper.toPagedProductResponseDto(searchedProducts, currency.toUpperCase(), rate)
+                        : productMapper.toPagedProductResponseDto(searchedProducts);
+            });
         }
         Pageable pageable = PageRequest.of(DEFAULT_PAGE, DEFAULT_SIZE, Sort.by(ProductSortField.NAME.getField()).ascending());
-        Page<Product> searchedProducts = productRepository.findAll(pageable);
-
-        return productMapper.toPagedProductResponseDto(searchedProducts);
+        return readOnlyTransactionTemplate.execute(status ->
+                productMapper.toPagedProductResponseDto(productRepository.findAll(pageable)));
     }
 
     /**
@@ -69,77 +103,214 @@ public class ProductService {
      * @return Product response DTO.
      * @throws ProductNotFoundException if no product with the code is found.
      */
-    @Transactional(readOnly = true)
     public ProductResponseDto getProductByCode(String code) {
-        Product product = productRepository.findByCode(code)
-                .orElseThrow(() -> new ProductNotFoundException(code));
-        return productMapper.toResponseDto(product);
+        return getProductByCode(code, null);
+    }
+
+    /**
+     * Finds a product by its unique code, with its price converted to the requested currency.
+     * Products are served from the product cache; the database is read only on a cache miss.
+     * Codes rejected by the product code filter do not exist and are answered without reading the database.
+     * The rate is resolved before the read transaction starts.
+     *
+     * @param code Unique product code.
+     * @param currency ISO code of the requested currency; if null, no converted price is returned.
+     * @return Product response DTO.
+     * @throws ProductNotFoundException if no product with the code is found.
+     * @throws UnsupportedCurrencyException if HNB does not publish a rate for the currency.
+     */
+    public ProductResponseDto getProductByCode(String code, String currency) {
+        BigDecimal rate = nonNull(currency) ? currencyService.getRate(currency) : null;
+        if (!productCodeFilter.mightExist(code)) {
+            throw new ProductNotFoundException(code);
+        }
+        ProductResponseDto product = productCache.get(code, this::loadProduct);
+        return nonNull(rate)
+                ? productMapper.withConvertedPrice(product, currency.toUpperCase(), rate)
+                : product;
+    }
+
+    /**
+     * Finds the products with the given codes, with their prices converted to the requested currency.
+     * Repeated codes are looked up once. Cached products are served from the product cache, codes rejected by the
+     * product code filter are missing without a lookup, and the rest are read with one query. Products read by that
+     * query are not added to the cache: a bulk load cannot be coordinated with invalidations the way a single load is.
+     * The rate is resolved before the read transaction starts.
+     *
+     * @param batchGetProductsDto Codes to look up and the optional currency.
+     * @return Found products and missing codes, each in request order.
+     * @throws UnsupportedCurrencyException if HNB does not publish a rate for the currency.
+     */
+    public ProductBatchResponseDto getProductsByCodes(BatchGetProductsDto batchGetProductsDto) {
+        String currency = batchGetProductsDto.currency();
+        BigDecimal rate = nonNull(currency) ? currencyService.getRate(currency) : null;
+        Set<String> codes = new LinkedHashSet<>(batchGetProductsDto.codes());
+
+        Map<String, ProductResponseDto> found = new HashMap<>();
+        List<String> toLoad = new ArrayList<>();
+        for (String code : codes) {
+            if (!productCodeFilter.mightExist(code)) {
+                continue;
+            }
+            ProductResponseDto cached = productCache.getIfPresent(code);
+            if (nonNull(cached)) {
+                found.put(code, cached);
+            } else {
+                toLoad.add(code);
+            }
+        }
+        if (!toLoad.isEmpty()) {
+            readOnlyTransactionTemplate.executeWithoutResult(status -> productRepository.findAllByCodes(toLoad)
+                    .forEach(product -> found.put(product.getCode(), productMapper.toResponseDto(product))));
+            toLoad.stream().filter(code -> !found.containsKey(code))
+                    .forEach(productCodeFilter::recordFalsePositive);
+        }
+
+        List<ProductResponseDto> products = new ArrayList<>(found.size());
+        List<String> missingCodes = new ArrayList<>();
+        for (String code : codes) {
+            ProductResponseDto product = found.get(code);
+            if (nonNull(product)) {
+                products.add(nonNull(rate) ? productMapper.withConvertedPrice(product, currency.toUpperCase(), rate) : product);
+            } else {
+                missingCodes.add(code);
+            }
+        }
+        return new ProductBatchResponseDto(products, missingCodes);
     }
 
     /**
      * Creates a new product.
      * Generates a unique code for the product and calculates the USD price.
+     * The code is taken from the product code allocator, for the year the product is created in, and the USD price
+     * is calculated before the transaction starts, so no connection is held while the rate is resolved.
+     * The code is added to the product code filter once the product is committed.
      *
      * @param createProductDto DTO with creation details.
      * @return Created product response DTO.
      */
-    @Transactional
     public ProductResponseDto createProduct(CreateProductDto createProductDto) {
         Product product = productMapper.toEntity(createProductDto);
         product.setPriceUsd(currencyService.calculateUsdPrice(createProductDto.priceEur()));
-        product.setCode(fromSequence(productRepository.getNextCodeSequence()));
-        Product savedProduct = productRepository.save(product);
-        return productMapper.toResponseDto(savedProduct);
+        product.setCreatedAt(LocalDateTime.now());
+        product.setCode(ProductCode.encode(productCodeAllocator.next(product.getCreatedAt().getYear())));
+        ProductResponseDto createdProduct = transactionTemplate.execute(status -> {
+            Product savedProduct = productRepository.save(product);
+            return productMapper.toResponseDto(savedProduct);
+        });
+        productCache.invalidate(product.getCode());
+        productCodeFilter.add(product.getCode());
+        return createdProduct;
     }
 
     /**
      * Updates a product identified by code with new data.
+     * The USD price is calculated before the transaction starts, so no connection is held while the rate is resolved.
+     * The cached product is invalidated once the update is committed, so readers cannot cache the old version again.
      *
      * @param code Product code.
      * @param updateProductDto DTO with updated product data.
      * @return Updated product response DTO.
      * @throws ProductNotFoundException if product does not exist.
      */
-    @Transactional
     public ProductResponseDto updateProductByCode(String code, @Valid UpdateProductDto updateProductDto) {
-        Product product = productRepository.findByCode(code)
-                .orElseThrow(() -> new ProductNotFoundException(code));
-        product.setName(updateProductDto.name());
-        product.setPriceEur(updateProductDto.priceEur());
-        product.setPriceUsd(currencyService.calculateUsdPrice(updateProductDto.priceEur()));
-        product.setIsAvailable(updateProductDto.isAvailable());
-        return productMapper.toResponseDto(product);
+        BigDecimal priceUsd = currencyService.calculateUsdPrice(updateProductDto.priceEur());
+        ProductResponseDto updatedProduct = transactionTemplate.execute(status -> {
+            Product product = productRepository.findByCode(code)
+                    .orElseThrow(() -> new ProductNotFoundException(code));
+            product.setName(updateProductDto.name());
+            product.setPriceEur(updateProductDto.priceEur());
+            product.setPriceUsd(priceUsd);
+            product.setIsAvailable(updateProductDto.isAvailable());
+            return productMapper.toResponseDto(product);
+        });
+        productCache.invalidate(code);
+        return updatedProduct;
     }
 
     /**
      * Deletes a product identified by its code.
+     * The cached product is invalidated once the deletion is committed.
+     * A tombstone is stored with the deletion, so that other nodes evict the product from their caches as well.
      *
      * @param code Product code.
      * @throws ProductNotFoundException if product does not exist.
      */
-    @Transactional
     public void deleteProductByCode(String code) {
-        Product product = productRepository.findByCode(code)
-                .orElseThrow(() -> new ProductNotFoundException(code));
-        productRepository.delete(product);
+        transactionTemplate.executeWithoutResult(status -> {
+            Product product = productRepository.findByCode(code)
+                    .orElseThrow(() -> new ProductNotFoundException(code));
+            productRepository.delete(product);
+            productTombstoneRepository.save(ProductTombstone.builder().code(code).build());
+        });
+        productCache.invalidate(code);
+    }
+
+    private ProductResponseDto loadProduct(String code) {
+        return readOnlyTransactionTemplate.execute(status -> productRepository.findByCode(code)
+                .map(productMapper::toResponseDto)
+                .orElseThrow(() -> {
+                    productCodeFilter.recordFalsePositive(code);
+                    return new ProductNotFoundException(code);
+                }));
     }
 
     /**
-     * Converts a sequence value to a padded, uppercase Base36 code.
+     * Returns the page of products after the search cursor, without counting all matches.
+     * One extra product is read to find out whether a next page exists.
      *
-     * @param sequenceValue The numeric sequence value (from DB)
-     * @return A 10-character unique product code
+     * @param searchProductDto Search filters with a non-null cursor.
+     * @param currency Requested currency, or null.
+     * @param rate EUR to currency rate, or null if no currency is requested.
+     * @return Page of products with the cursor of the next page.
+     * @throws InvalidCursorException if the cursor is malformed or was issued for a different sort.
      */
-    private String fromSequence(long sequenceValue) {
-        String base36 = Long.toString(sequenceValue, 36).toUpperCase();
-        return String.format("%10s", base36).replace(' ', '0');
+    private PagedProductResponseDto searchProductsAfterCursor(SearchProductDto searchProductDto, String currency, BigDecimal rate) {
+        ProductSortField sortBy = nonNull(searchProductDto.sortBy()) ? searchProductDto.sortBy() : ProductSortField.NAME;
+        boolean ascending = searchProductDto.sortAscending();
+        int size = nonNull(searchProductDto.size()) ? searchProductDto.size() : DEFAULT_SIZE;
+        ProductCursor after = searchProductDto.cursor().isEmpty()
+                ? null
+                : ProductCursor.decode(searchProductDto.cursor(), sortBy, ascending);
+
+        return readOnlyTransactionTemplate.execute(status -> {
+            List<Product> products = productRepository.findProductsAfterCursor(
+                    ProductSpecifications.matching(searchProductDto),
+                    sortBy,
+                    ascending,
+                    after,
+                    size + 1
+            );
+
+            String nextCursor = null;
+            if (products.size() > size) {
+                products = products.subList(0, size);
+                nextCursor = ProductCursor.after(sortBy, ascending, products.get(size - 1)).encode();
+            }
+            return nonNull(rate)
+                    ? productMapper.toCursorPagedProductResponseDto(products, size, nextCursor, currency.toUpperCase(), rate)
+                    : productMapper.toCursorPagedProductResponseDto(products, size, nextCursor);
+        });
+    }
+
+    private Specification<Product> resolveSpecification(SearchProductDto searchProductDto) {
+        Specification<Product> specification = ProductSpecifications.matching(searchProductDto);
+        if (searchProductDto.sortBy() == ProductSortField.RELEVANCE) {
+            return specification.and(ProductSpecifications.orderedByRelevanceTo(
+                    searchProductDto.name(), searchConfig.isTrigramSimilarity()));
+        }
+        return specification;
     }
 
     private Pageable resolvePageable(SearchProductDto searchProductDto) {
-        String sortBy = nonNull(searchProductDto.sortBy()) ? searchProductDto.sortBy().getField() : ProductSortField.NAME.getField();
-        Sort sort = searchProductDto.sortAscending() ? Sort.by(sortBy).ascending() : Sort.by(sortBy).descending();
         int page = nonNull(searchProductDto.page()) ? searchProductDto.page() : DEFAULT_PAGE;
         int size = nonNull(searchProductDto.size()) ? searchProductDto.size() : DEFAULT_SIZE;
+        if (searchProductDto.sortBy() == ProductSortField.RELEVANCE) {
+            return PageRequest.of(page, size); // ordered by the relevance specification
+        }
+
+        String sortBy = nonNull(searchProductDto.sortBy()) ? searchProductDto.sortBy().getField() : ProductSortField.NAME.getField();
+        Sort sort = searchProductDto.sortAscending() ? Sort.by(sortBy).ascending() : Sort.by(sortBy).descending();
 
         return PageRequest.of(page, size, sort);
     }
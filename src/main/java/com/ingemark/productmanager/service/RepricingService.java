@@ -0,0 +1,269 @@
+package com.ingemark.productmanager.service;
+
+import com.ingemark.productmanager.configuration.RepricingConfig;
+import com.ingemark.productmanager.model.currency.ExchangeRateChangedEvent;
+import com.ingemark.productmanager.model.product.RepricingJob;
+import com.ingemark.productmanager.model.product.RepricingJobStatus;
+import com.ingemark.productmanager.repository.ProductRepository;
+import com.ingemark.productmanager.repository.RepricingJobRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.BitSet;
+import java.util.UUID;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.util.Objects.isNull;
+
+/**
+ * Service that recomputes stored USD prices of all products when the EUR to USD rate changes.
+ * The products table is repriced in id-range chunks that run in parallel on a bounded pool.
+ * Progress is stored in the repricing_jobs table, so a job interrupted by a restart or crash is resumed.
+ * A chunk only updates products while its job is still running on this node, so a superseded or taken over job
+ * cannot overwrite prices written by the job that replaced it.
+ */
+@Service
+public class RepricingService implements MeterBinder {
+
+    private static final String US_CURRENCY = "USD";
+    private static final Logger log = LoggerFactory.getLogger(RepricingService.class);
+
+    private final ProductRepository productRepository;
+    private final RepricingJobRepository repricingJobRepository;
+    private final RepricingConfig repricingConfig;
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final ExecutorService coordinator = Executors.newSingleThreadExecutor(namedThreads("repricing-coordinator"));
+    private final ExecutorService chunkExecutor;
+    private final AtomicReference<JobProgress> currentJob = new AtomicReference<>();
+    private final LongAdder rowsRepriced = new LongAdder();
+    private final LongAdder chunksRepriced = new LongAdder();
+
+    public RepricingService(ProductRepository productRepository,
+                            RepricingJobRepository repricingJobRepository,
+                            RepricingConfig repricingConfig) {
+        this.productRepository = productRepository;
+        this.repricingJobRepository = repricingJobRepository;
+        this.repricingConfig = repricingConfig;
+        this.chunkExecutor = Executors.newFixedThreadPool(repricingConfig.getParallelism(), namedThreads("repricing-chunk"));
+    }
+
+    /**
+     * Starts a repricing job in the background when a new USD rate is detected.
+     *
+     * @param event Event carrying the new rate.
+     */
+    @EventListener
+    public void onExchangeRateChanged(ExchangeRateChangedEvent event) {
+        if (US_CURRENCY.equals(event.currency())) {
+            coordinator.execute(() -> reprice(event.rate(), event.effectiveDate()));
+        }
+    }
+
+    /**
+     * Resumes running jobs that stopped reporting progress, e.g. because their node was restarted.
+     */
+    @Scheduled(initialDelayString = "PT30S", fixedDelayString = "${app.repricing.stale-after:PT5M}")
+    public void resumeStaleJobs() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime staleBefore = now.minus(repricingConfig.getStaleAfter());
+        for (RepricingJob job : repricingJobRepository.findByStatusAndHeartbeatAtBefore(RepricingJobStatus.RUNNING, staleBefore)) {
+            if (repricingJobRepository.claimStaleJob(job.getId(), nodeId, RepricingJobStatus.RUNNING, now, staleBefore) == 1) {
+                log.info("Resuming repricing job {} from product id {}", job.getId(), job.getCompletedUpToId() + 1);
+                job.setOwner(nodeId);
+                coordinator.execute(() -> runJob(job));
+            }
+        }
+    }
+
+    /**
+     * Reprices all products with the given rate. Any job still running for an older rate is superseded.
+     * Only one node runs the job for a given effective date.
+     *
+     * @param rate New EUR to USD rate.
+     * @param effectiveDate Date on which the rate became effective.
+     * @return The job that was run, or null if another node already started it.
+     */
+    public RepricingJob reprice(BigDecimal rate, LocalDate effectiveDate) {
+        LocalDateTime now = LocalDateTime.now();
+        Long minId = productRepository.findMinId();
+        Long maxId = productRepository.findMaxId();
+        RepricingJob job = RepricingJob.builder()
+                .rate(rate)
+                .effectiveDate(effectiveDate)
+                .status(RepricingJobStatus.RUNNING)
+                .maxId(isNull(maxId) ? 0L : maxId)
+                .chunkSize(repricingConfig.getChunkSize())
+                .completedUpToId(isNull(minId) ? 0L : minId - 1)
+                .rowsUpdated(0L)
+                .owner(nodeId)
+                .heartbeatAt(now)
+                .startedAt(now)
+                .build();
+        try {
+            job = repricingJobRepository.saveAndFlush(job);
+        } catch (DataIntegrityViolationException e) {
+            log.info("Repricing for rate effective on {} was already started by another node", effectiveDate);
+            return null;
+        }
+        repricingJobRepository.supersedeRunningJobs(job.getId(), RepricingJobStatus.RUNNING, RepricingJobStatus.SUPERSEDED, now);
+
+        runJob(job);
+        return job;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        coordinator.shutdownNow();
+        chunkExecutor.shutdownNow();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("repricing.rows", rowsRepriced, LongAdder::sum)
+                .description("Products whose USD price was recomputed by repricing jobs")
+                .register(registry);
+        FunctionCounter.builder("repricing.chunks", chunksRepriced, LongAdder::sum)
+                .description("Id-range chunks completed by repricing jobs")
+                .register(registry);
+        Gauge.builder("repricing.job.progress", currentJob, job -> {
+                    JobProgress progress = job.get();
+                    return isNull(progress) ? Double.NaN : progress.ratio();
+                })
+                .description("Completed fraction of the running repricing job")
+                .register(registry);
+    }
+
+    /**
+     * Runs the remaining chunks of the job, starting after its completed watermark.
+     * The watermark only advances over contiguous completed chunks, so a resumed job never skips a chunk.
+     * The heartbeat is updated after every completed chunk, so a slow chunk does not make the job look stale.
+     *
+     * @param job Job to run; must be owned by this node.
+     */
+    private void runJob(RepricingJob job) {
+        long firstId = job.getCompletedUpToId() + 1;
+        int chunkSize = job.getChunkSize();
+        int chunkCount = (int) Math.max(0, (job.getMaxId() - firstId + chunkSize) / chunkSize);
+        JobProgress progress = new JobProgress(chunkCount);
+        AtomicBoolean cancelled = new AtomicBoolean();
+        currentJob.set(progress);
+
+        CompletionService<ChunkResult> completionService = new ExecutorCompletionService<>(chunkExecutor);
+        for (int i = 0; i < chunkCount; i++) {
+            int chunk = i;
+            long fromId = firstId + (long) chunk * chunkSize;
+            long toId = Math.min(fromId + chunkSize - 1, job.getMaxId());
+            completionService.submit(() -> cancelled.get()
+                    ? new ChunkResult(chunk, 0)
+                    : new ChunkResult(chunk, repriceChunk(job, fromId, toId)));
+        }
+
+        BitSet completedChunks = new BitSet(chunkCount);
+        int contiguousChunks = 0;
+        long rowsUpdated = job.getRowsUpdated();
+        try {
+            for (int i = 0; i < chunkCount; i++) {
+                ChunkResult result = completionService.take().get();
+                completedChunks.set(result.chunk());
+                rowsUpdated += result.rows();
+                rowsRepriced.add(result.rows());
+                chunksRepriced.increment();
+                progress.completed().incrementAndGet();
+
+                contiguousChunks = completedChunks.nextClearBit(contiguousChunks);
+                long completedUpToId = Math.min(firstId + (long) contiguousChunks * chunkSize - 1, job.getMaxId());
+                if (repricingJobRepository.updateProgress(job.getId(), job.getOwner(), RepricingJobStatus.RUNNING,
+                        completedUpToId, rowsUpdated, LocalDateTime.now()) == 0) {
+                    log.info("Repricing job {} was superseded, stopping", job.getId());
+                    cancelled.set(true);
+                    return;
+                }
+            }
+            repricingJobRepository.completeJob(job.getId(), job.getOwner(), RepricingJobStatus.RUNNING,
+                    RepricingJobStatus.COMPLETED, LocalDateTime.now());
+            job.setStatus(RepricingJobStatus.COMPLETED);
+            job.setRowsUpdated(rowsUpdated);
+            log.info("Repricing job {} completed, {} products repriced", job.getId(), rowsUpdated);
+        } catch (InterruptedException e) {
+            cancelled.set(true);
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            cancelled.set(true);
+            log.error("Repricing job {} failed, it will be resumed once its heartbeat is stale", job.getId(), e.getCause());
+        } finally {
+            currentJob.compareAndSet(progress, null);
+        }
+    }
+
+    /**
+     * Reprices one chunk of the job. The update checks that the job is still running on this node, but an update
+     * that started just before the job was superseded still completes. Such a chunk is detected afterwards and
+     * its range is repriced again with the rate of the newest job.
+     */
+    private int repriceChunk(RepricingJob job, long fromId, long toId) {
+        int rows = productRepository.repriceUsdInIdRangeForJob(job.getId(), job.getOwner(), job.getRate(), fromId, toId);
+        if (rows > 0 && !repricingJobRepository.existsByIdAndOwnerAndStatus(job.getId(), job.getOwner(), RepricingJobStatus.RUNNING)) {
+            repriceWithNewestJob(fromId, toId);
+        }
+        return rows;
+    }
+
+    /**
+     * Reprices the id range with the rate of the newest job, again if an even newer job was started meanwhile.
+     */
+    private void repriceWithNewestJob(long fromId, long toId) {
+        RepricingJob newest = repricingJobRepository.findFirstByOrderByIdDesc().orElseThrow();
+        RepricingJob applied;
+        do {
+            applied = newest;
+            log.info("Repricing ids {} to {} again with the rate of job {}", fromId, toId, applied.getId());
+            productRepository.repriceUsdInIdRange(applied.getRate(), fromId, toId);
+            newest = repricingJobRepository.findFirstByOrderByIdDesc().orElseThrow();
+        } while (!newest.getId().equals(applied.getId()));
+    }
+
+    private static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private record ChunkResult(int chunk, int rows) {
+    }
+
+    private record JobProgress(int chunkCount, AtomicInteger completed) {
+
+        JobProgress(int chunkCount) {
+            this(chunkCount, new AtomicInteger());
+        }
+
+        double ratio() {
+            return chunkCount == 0 ? 1.0 : (double) completed.get() / chunkCount;
+        }
+    }
+}
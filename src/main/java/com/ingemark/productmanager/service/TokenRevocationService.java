@@ -0,0 +1,102 @@
+package com.ingemark.productmanager.service;
+
+import com.ingemark.productmanager.cache.UserPrincipalCache;
+import com.ingemark.productmanager.configuration.jwt.JwtUtil;
+import com.ingemark.productmanager.configuration.jwt.TokenRevocations;
+import com.ingemark.productmanager.exception.InvalidTokenException;
+import com.ingemark.productmanager.exception.UserNotFoundException;
+import com.ingemark.productmanager.model.user.TokenRevocation;
+import com.ingemark.productmanager.repository.TokenRevocationRepository;
+import com.ingemark.productmanager.repository.UserRepository;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+
+import static java.util.Objects.isNull;
+
+/**
+ * Service for revoking issued JWT tokens before they expire.
+ * Revocations are stored, so they survive restarts and reach the other nodes, and take effect on this node at once.
+ */
+@Service
+public class TokenRevocationService {
+
+    private final TokenRevocationRepository tokenRevocationRepository;
+    private final UserRepository userRepository;
+    private final JwtUtil jwtUtil;
+    private final TokenRevocations tokenRevocations;
+    private final UserPrincipalCache userPrincipalCache;
+    private final long jwtMaxAgeInMs;
+
+    public TokenRevocationService(TokenRevocationRepository tokenRevocationRepository,
+                                  UserRepository userRepository,
+                                  JwtUtil jwtUtil,
+                                  TokenRevocations tokenRevocations,
+                                  UserPrincipalCache userPrincipalCache,
+                                  @Value("${app.jwtMaxAgeInMs:86400000}") long jwtMaxAgeInMs) {
+        this.tokenRevocationRepository = tokenRevocationRepository;
+        this.userRepository = userRepository;
+        this.jwtUtil = jwtUtil;
+        this.tokenRevocations = tokenRevocations;
+        this.userPrincipalCache = userPrincipalCache;
+        this.jwtMaxAgeInMs = jwtMaxAgeInMs;
+    }
+
+    /**
+     * Revokes a single token. The revocation is kept until the token expires.
+     *
+     * @param token the JWT token string
+     * @throws InvalidTokenException if the token is not a valid, unexpired token issued by this application
+     */
+    public void revokeToken(String token) {
+        Claims claims;
+        try {
+            claims = jwtUtil.parseToken(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            throw new InvalidTokenException();
+        }
+        if (isNull(claims.getId())) {
+            throw new InvalidTokenException();
+        }
+        LocalDateTime expiresAt = LocalDateTime.ofInstant(claims.getExpiration().toInstant(), ZoneId.systemDefault());
+        save(TokenRevocation.builder()
+                .jti(claims.getId())
+                .revokedAt(LocalDateTime.now())
+                .expiresAt(expiresAt)
+                .build());
+    }
+
+    /**
+     * Revokes all tokens issued to the user so far. Tokens issued by later logins stay valid: tokens carry their
+     * issue time in microseconds, which is compared with the time of the revocation.
+     * The revocation is kept for the max token age, after which the revoked tokens are rejected anyway.
+     * The user is evicted from the user cache, so a role changed in the database applies to the next login at once.
+     *
+     * @param username Username of the user.
+     * @throws UserNotFoundException if the user does not exist.
+     */
+    public void revokeUser(String username) {
+        if (!userRepository.existsByUsername(username)) {
+            throw new UserNotFoundException(username);
+        }
+        // the precision of the stored timestamp, so every node compares tokens with the same time
+        LocalDateTime revokedAt = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        save(TokenRevocation.builder()
+                .username(username)
+                .revokedAt(revokedAt)
+                .expiresAt(revokedAt.plus(Duration.ofMillis(jwtMaxAgeInMs)))
+                .build());
+        userPrincipalCache.invalidate(username);
+    }
+
+    private void save(TokenRevocation revocation) {
+        tokenRevocations.add(tokenRevocationRepository.save(revocation));
+    }
+}
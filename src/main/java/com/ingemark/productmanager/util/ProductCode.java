@@ -0,0 +1,150 @@
+package com.ingemark.productmanager.util;
+
+import static java.util.Objects.isNull;
+
+/**
+ * Converts between code numbers and product codes: the number in uppercase Base36, left-padded with zeros
+ * to 10 characters, so 123 is "000000003F".
+ * Codes taken from the yearly sequences start with the year since 2000 in two digits, followed by the sequence value
+ * in eight, so value 123 of 2026 is "0Q0000003F". Codes from before the yearly sequences start with "00": they were
+ * taken from a single sequence that stays far below 36^8 values, so year digits other than "00" always come from a
+ * yearly sequence, whatever year a deployment switched to them in.
+ * Encoding writes the digits straight into a char array and decoding reads them in place,
+ * so neither builds intermediate strings.
+ */
+public final class ProductCode {
+
+    public static final int LENGTH = 10;
+    // 36^10 - 1, the largest value with 10 Base36 digits
+    public static final long MAX_VALUE = 3_656_158_440_062_975L;
+    // 36^8, the number of sequence values per year
+    public static final long VALUES_PER_YEAR = 2_821_109_907_456L;
+    // year digits "00" are left to codes from before the yearly sequences
+    public static final int FIRST_YEAR = 2001;
+    public static final int LAST_YEAR = 3295;
+
+    private static final char[] DIGITS = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ".toCharArray();
+
+    private ProductCode() {
+    }
+
+    /**
+     * Encodes a sequence value as a product code.
+     *
+     * @param sequenceValue Sequence value, from 0 to MAX_VALUE.
+     * @return 10-character product code.
+     * @throws IllegalArgumentException if the value is out of range.
+     */
+    public static String encode(long sequenceValue) {
+        char[] code = new char[LENGTH];
+        encode(sequenceValue, code, 0);
+        return new String(code);
+    }
+
+    /**
+     * Writes the product code of a sequence value to LENGTH characters of the destination, starting at the offset.
+     *
+     * @param sequenceValue Sequence value, from 0 to MAX_VALUE.
+     * @param destination Array the code is written to.
+     * @param offset Position of the first character of the code.
+     * @throws IllegalArgumentException if the value is out of range.
+     */
+    public static void encode(long sequenceValue, char[] destination, int offset) {
+        if (sequenceValue < 0 || sequenceValue > MAX_VALUE) {
+            throw new IllegalArgumentException("Sequence value out of range: " + sequenceValue);
+        }
+        long remaining = sequenceValue;
+        for (int i = offset + LENGTH - 1; i >= offset; i--) {
+            destination[i] = DIGITS[(int) (remaining % 36)];
+            remaining /= 36;
+        }
+    }
+
+    /**
+     * Returns the code number of a value of the code sequence of a year.
+     *
+     * @param year Year of the sequence, from FIRST_YEAR to LAST_YEAR.
+     * @param sequenceValue Sequence value, from 0 to VALUES_PER_YEAR - 1.
+     * @return Code number, to be encoded with encode.
+     * @throws IllegalArgumentException if the year or the value is out of range.
+     */
+    public static long number(int year, long sequenceValue) {
+        if (year < FIRST_YEAR || year > LAST_YEAR) {
+            throw new IllegalArgumentException("Year out of range: " + year);
+        }
+        if (sequenceValue < 0 || sequenceValue >= VALUES_PER_YEAR) {
+            throw new IllegalArgumentException("Sequence value out of range for one year: " + sequenceValue);
+        }
+        return (year - 2000) * VALUES_PER_YEAR + sequenceValue;
+    }
+
+    /**
+     * Checks whether a code number was taken from a yearly sequence, so it tells the year its product was created in.
+     *
+     * @param codeNumber Decoded product code.
+     * @return false for codes from before the yearly sequences, which start with "00".
+     */
+    public static boolean hasYear(long codeNumber) {
+        return codeNumber >= VALUES_PER_YEAR;
+    }
+
+    /**
+     * Returns the year of the sequence a code number was taken from.
+     *
+     * @param codeNumber Decoded product code, see hasYear.
+     * @return Year the product was created in.
+     */
+    public static int year(long codeNumber) {
+        return 2000 + (int) (codeNumber / VALUES_PER_YEAR);
+    }
+
+    /**
+     * Checks whether the text is a product code: 10 characters, each a digit or an uppercase letter.
+     *
+     * @param code Text to check, may be null.
+     * @return true if the text can be decoded.
+     */
+    public static boolean isValid(CharSequence code) {
+        if (isNull(code) || code.length() != LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < LENGTH; i++) {
+            if (digit(code.charAt(i)) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Decodes a product code back to its sequence value.
+     *
+     * @param code Product code.
+     * @return Sequence value of the code.
+     * @throws IllegalArgumentException if the text is not a product code, see isValid.
+     */
+    public static long decode(CharSequence code) {
+        if (isNull(code) || code.length() != LENGTH) {
+            throw new IllegalArgumentException("Not a product code: " + code);
+        }
+        long value = 0;
+        for (int i = 0; i < LENGTH; i++) {
+            int digit = digit(code.charAt(i));
+            if (digit < 0) {
+                throw new IllegalArgumentException("Not a product code: " + code);
+            }
+            value = value * 36 + digit;
+        }
+        return value;
+    }
+
+    private static int digit(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'A' && c <= 'Z') {
+            return c - 'A' + 10;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,37 @@
+package com.ingemark.productmanager.util;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+import static java.util.Objects.isNull;
+
+/**
+ * Folds text for case- and diacritic-insensitive matching, so that "cokolada" matches "Čokolada".
+ */
+public final class TextNormalizer {
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    private TextNormalizer() {
+    }
+
+    /**
+     * Decomposes the text (NFKD), strips the accents and lowercases it.
+     * Letters with a stroke do not decompose, so đ, ł and ø are mapped to their base letters explicitly.
+     *
+     * @param text Text to normalize.
+     * @return Normalized text, or null if the text is null.
+     */
+    public static String normalize(String text) {
+        if (isNull(text)) {
+            return null;
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFKD);
+        return COMBINING_MARKS.matcher(decomposed).replaceAll("")
+                .toLowerCase(Locale.ROOT)
+                .replace('đ', 'd')
+                .replace('ł', 'l')
+                .replace('ø', 'o');
+    }
+}
@@ -1,5 +1,74 @@
 CREATE SEQUENCE IF NOT EXISTS product_code_2025_seq
     START WITH 1
-    INCREMENT BY 1
+    INCREMENT BY 1000
     MINVALUE 1
-    CACHE 10;
\ No newline at end of file
+    CACHE 1;
+
+-- every nextval reserves a block of app.product-code-allocator.block-size (1000) codes for one node;
+-- sequences created with INCREMENT BY 1 are moved to the block size, which only skips codes, never repeats them.
+-- The sequences of later years, product_code_<year>_seq, are created by the application when first used
+ALTER SEQUENCE product_code_2025_seq INCREMENT BY 1000 CACHE 1;
+
+-- products and users had IDENTITY ids before they moved to pooled sequences, named apart from the identity
+-- sequences; a nextval result of n reserves the ids n - 49 to n, so the new sequences start one allocation (50)
+-- past the existing ids
+SELECT setval('product_id_seq', (SELECT MAX(id) FROM products) + 50)
+WHERE (SELECT MAX(id) FROM products) + 50 > (SELECT last_value FROM product_id_seq);
+SELECT setval('user_id_seq', (SELECT MAX(id) FROM users) + 50)
+WHERE (SELECT MAX(id) FROM users) + 50 > (SELECT last_value FROM user_id_seq);
+
+-- products is range-partitioned by the year of created_at, one partition per year, so lookups by a code that
+-- carries its year read one partition and old years can be detached or archived without touching the current one.
+-- Function bodies are single-quoted because the script is split at semicolons outside quotes
+CREATE OR REPLACE FUNCTION create_products_partition(partition_year int) RETURNS void LANGUAGE plpgsql AS '
+BEGIN
+    EXECUTE format(''CREATE TABLE IF NOT EXISTS products_%s PARTITION OF products FOR VALUES FROM (%L) TO (%L)'',
+                   partition_year, make_date(partition_year, 1, 1), make_date(partition_year + 1, 1, 1));
+EXCEPTION
+    -- created by another node at the same time
+    WHEN duplicate_table OR unique_violation THEN NULL;
+END';
+
+-- Hibernate creates products as a plain table; this replaces it once with a partitioned one and moves its rows.
+-- Unique indexes of a partitioned table have to include created_at, so codes and ids are unique per creation time;
+-- their sequences keep them unique overall
+CREATE OR REPLACE FUNCTION partition_products() RETURNS void LANGUAGE plpgsql AS '
+DECLARE
+    partition_year int;
+BEGIN
+    IF (SELECT relkind FROM pg_class WHERE oid = ''products''::regclass) <> ''r'' THEN
+        RETURN;
+    END IF;
+    LOCK TABLE products IN ACCESS EXCLUSIVE MODE;
+    ALTER TABLE products RENAME TO products_unpartitioned;
+    ALTER TABLE products_unpartitioned RENAME CONSTRAINT products_pkey TO products_unpartitioned_pkey;
+    CREATE TABLE products (LIKE products_unpartitioned INCLUDING DEFAULTS INCLUDING CONSTRAINTS)
+        PARTITION BY RANGE (created_at);
+    ALTER TABLE products ADD PRIMARY KEY (id, created_at);
+    FOR partition_year IN
+        SELECT EXTRACT(YEAR FROM created_at)::int FROM products_unpartitioned
+        UNION
+        SELECT EXTRACT(YEAR FROM CURRENT_DATE)::int
+    LOOP
+        PERFORM create_products_partition(partition_year);
+    END LOOP;
+    INSERT INTO products SELECT * FROM products_unpartitioned;
+    DROP TABLE products_unpartitioned;
+    CREATE UNIQUE INDEX products_code_created_at_key ON products (code, created_at);
+    CREATE UNIQUE INDEX idx_products_code_number ON products (code_number, created_at);
+    CREATE INDEX idx_products_name_code ON products (name, code);
+    CREATE INDEX idx_products_price_eur_code ON products (price_eur, code);
+    CREATE INDEX idx_products_updated_at ON products (updated_at);
+END';
+
+SELECT partition_products();
+-- ProductPartitionService creates the partition of the next year ahead on running nodes
+SELECT create_products_partition(EXTRACT(YEAR FROM CURRENT_DATE)::int);
+SELECT create_products_partition(EXTRACT(YEAR FROM CURRENT_DATE)::int + 1);
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+-- serves name_normalized LIKE '%...%' searches, which a B-tree index cannot
+DROP INDEX IF EXISTS idx_products_name_trgm;
+CREATE INDEX IF NOT EXISTS idx_products_name_normalized_trgm
+    ON products USING gin (name_normalized gin_trgm_ops);
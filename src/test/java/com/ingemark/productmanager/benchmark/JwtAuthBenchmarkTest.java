@@ -0,0 +1,121 @@
+package com.ingemark.productmanager.benchmark;
+
+import com.ingemark.productmanager.configuration.jwt.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * JMH benchmark of the JWT work done by JwtRequestFilter for one request, not counting the user lookup.
+ * "before" repeats what the filter did before the token was parsed once: three parses, each building the key
+ * and the parser again. "afterMiss" is the first request with a token, "afterHit" every later one.
+ */
+@Tag("benchmark")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class JwtAuthBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(JwtAuthBenchmarkTest.class);
+    private static final String SECRET = "benchmark-secret-of-at-least-256-bits";
+    private static final int DISTINCT_TOKENS = 10_000;
+
+    private UserDetails user;
+    private String token;
+    private String[] tokens;
+    private int next;
+    private JwtUtil jwtUtil;
+    private JwtUtil uncachedJwtUtil;
+
+    @Setup
+    public void setUp() {
+        user = User.withUsername("user").password("").authorities("ROLE_CUSTOMER").build();
+        jwtUtil = new JwtUtil(SECRET, 3_600_000, 3_600_000, 10_000);
+        // cache of one entry, cycled through more tokens than it holds, so every parse is a miss
+        uncachedJwtUtil = new JwtUtil(SECRET, 3_600_000, 3_600_000, 1);
+        token = jwtUtil.generateToken(user);
+        tokens = new String[DISTINCT_TOKENS];
+        for (int i = 0; i < DISTINCT_TOKENS; i++) {
+            tokens[i] = jwtUtil.generateToken(User.withUsername("user" + i).password("").authorities("ROLE_CUSTOMER").build());
+        }
+    }
+
+    @Benchmark
+    public boolean before() {
+        String username = legacyClaim(token, Claims::getSubject); // getUsernameFromToken in the filter
+        // validateToken
+        return username != null
+                && legacyClaim(token, Claims::getSubject).equals(user.getUsername())
+                && !legacyClaim(token, Claims::getExpiration).before(new Date());
+    }
+
+    @Benchmark
+    public boolean afterMiss() {
+        String nextToken = tokens[next++ % DISTINCT_TOKENS];
+        return uncachedJwtUtil.parseToken(nextToken).getSubject() != null;
+    }
+
+    @Benchmark
+    public boolean afterHit() {
+        return jwtUtil.validateToken(jwtUtil.parseToken(token));
+    }
+
+    private static <T> T legacyClaim(String token, Function<Claims, T> claimsResolver) {
+        Claims claims = Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                .build()
+                .parseSignedClaims(token)
+                .getPayload();
+        return claimsResolver.apply(claims);
+    }
+
+    @Test
+    void authenticateRequest_BeforeAndAfter() throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(JwtAuthBenchmarkTest.class.getName() + "\\.")
+                .forks(1)
+                .warmupIterations(3)
+                .warmupTime(TimeValue.seconds(1))
+                .measurementIterations(5)
+                .measurementTime(TimeValue.seconds(1))
+                .build();
+
+        Collection<RunResult> results = new Runner(options).run();
+
+        Map<String, Double> nanosPerRequest = results.stream().collect(Collectors.toMap(
+                result -> result.getParams().getBenchmark().replaceAll(".*\\.", ""),
+                result -> result.getPrimaryResult().getScore()));
+        log.warn("JWT authentication per request (ns): {}", nanosPerRequest);
+        assertThat(nanosPerRequest.get("afterMiss")).isLessThan(nanosPerRequest.get("before"));
+        assertThat(nanosPerRequest.get("afterHit")).isLessThan(nanosPerRequest.get("afterMiss"));
+    }
+}
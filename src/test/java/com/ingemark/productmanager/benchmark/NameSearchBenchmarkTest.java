@@ -0,0 +1,105 @@
+package com.ingemark.productmanager.benchmark;
+
+import com.ingemark.productmanager.model.product.ProductSortField;
+import com.ingemark.productmanager.model.product.request.SearchProductDto;
+import com.ingemark.productmanager.model.product.response.PagedProductResponseDto;
+import com.ingemark.productmanager.service.ProductService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares name searches that scan the products table with LIKE against the same searches served by the pg_trgm
+ * index, and measures RELEVANCE searches on top of the index.
+ * The indexed runs need PostgreSQL: pass -Dspring.datasource.url (with username, password and driver-class-name)
+ * and -Dapp.search.trigram-similarity=true. On the test database only the LIKE scan is measured.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@ActiveProfiles("test")
+class NameSearchBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(NameSearchBenchmarkTest.class);
+    private static final int INSERT_BATCH_SIZE = 5_000;
+    private static final int WARMUP_SEARCHES = 5;
+    private static final int MEASURED_SEARCHES = 20;
+    private static final List<String> WORDS = List.of("Chair", "Desk", "Lamp", "Shelf", "Table", "Sofa", "Bed", "Mirror");
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @ParameterizedTest
+    @ValueSource(ints = {100_000, 1_000_000})
+    void searchByName(int rows) {
+        seedProducts(rows);
+        boolean postgres = "PostgreSQL".equals(jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName()));
+
+        if (postgres) {
+            jdbcTemplate.execute("DROP INDEX IF EXISTS idx_products_name_trgm");
+            jdbcTemplate.execute("ANALYZE products");
+        }
+        log.warn("{} products, LIKE scan: {} ms per search", rows, String.format("%.2f", measure(search(ProductSortField.NAME))));
+
+        if (!postgres) {
+            log.warn("Skipping the trigram index runs, they need PostgreSQL with pg_trgm");
+            return;
+        }
+        jdbcTemplate.execute("CREATE EXTENSION IF NOT EXISTS pg_trgm");
+        jdbcTemplate.execute("CREATE INDEX idx_products_name_trgm ON products USING gin (LOWER(name) gin_trgm_ops)");
+        jdbcTemplate.execute("ANALYZE products");
+        log.warn("{} products, trigram index: {} ms per search", rows, String.format("%.2f", measure(search(ProductSortField.NAME))));
+        log.warn("{} products, trigram index ranked by relevance: {} ms per search",
+                rows, String.format("%.2f", measure(search(ProductSortField.RELEVANCE))));
+    }
+
+    private SearchProductDto search(ProductSortField sortBy) {
+        return new SearchProductDto("lamp 4242", null, null, null, null, 0, 20, sortBy, true, null, null);
+    }
+
+    private double measure(SearchProductDto search) {
+        for (int i = 0; i < WARMUP_SEARCHES; i++) {
+            productService.searchProducts(search);
+        }
+        long start = System.nanoTime();
+        PagedProductResponseDto result = null;
+        for (int i = 0; i < MEASURED_SEARCHES; i++) {
+            result = productService.searchProducts(search);
+        }
+        assertThat(result.productResponseDtos()).isNotEmpty();
+        return (System.nanoTime() - start) / 1_000_000.0 / MEASURED_SEARCHES;
+    }
+
+    private void seedProducts(int rows) {
+        jdbcTemplate.update("DELETE FROM products");
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> batch = new ArrayList<>(INSERT_BATCH_SIZE);
+        for (int i = 1; i <= rows; i++) {
+            String name = WORDS.get(i % WORDS.size()) + " " + i;
+            batch.add(new Object[]{(long) i, String.format("S%09d", i), name, BigDecimal.valueOf(i % 10_000, 2), now, now});
+            if (batch.size() == INSERT_BATCH_SIZE || i == rows) {
+                jdbcTemplate.batchUpdate("INSERT INTO products (id, code, name, price_eur, price_usd, is_available, created_at, updated_at) " +
+                        "VALUES (?, ?, ?, ?, 0, TRUE, ?, ?)", batch);
+                batch.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.ingemark.productmanager.benchmark;
+
+import com.ingemark.productmanager.util.ProductCode;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * JMH benchmark of product code encoding and decoding.
+ * "encodeBefore" is what ProductService.fromSequence did before ProductCode: Long.toString, toUpperCase,
+ * String.format and replace. "decodeBefore" is the closest JDK equivalent of ProductCode.decode.
+ * Besides the time per operation, the bytes allocated per operation are reported by the GC profiler.
+ */
+@Tag("benchmark")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ProductCodeBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductCodeBenchmarkTest.class);
+    private static final int VALUES = 1024;
+
+    private long[] values;
+    private String[] codes;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        values = new long[VALUES];
+        codes = new String[VALUES];
+        for (int i = 0; i < VALUES; i++) {
+            values[i] = ThreadLocalRandom.current().nextLong(1, 10_000_000_000L);
+            codes[i] = ProductCode.encode(values[i]);
+        }
+    }
+
+    @Benchmark
+    public String encodeBefore() {
+        String base36 = Long.toString(values[next++ & (VALUES - 1)], 36).toUpperCase();
+        return String.format("%10s", base36).replace(' ', '0');
+    }
+
+    @Benchmark
+    public String encodeAfter() {
+        return ProductCode.encode(values[next++ & (VALUES - 1)]);
+    }
+
+    @Benchmark
+    public long decodeBefore() {
+        return Long.parseLong(codes[next++ & (VALUES - 1)], 36);
+    }
+
+    @Benchmark
+    public long decodeAfter() {
+        return ProductCode.decode(codes[next++ & (VALUES - 1)]);
+    }
+
+    @Test
+    void encodeAndDecode_BeforeAndAfter() throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(ProductCodeBenchmarkTest.class.getName() + "\\.")
+                .addProfiler(GCProfiler.class)
+                .forks(1)
+                .warmupIterations(3)
+                .warmupTime(TimeValue.seconds(1))
+                .measurementIterations(5)
+                .measurementTime(TimeValue.seconds(1))
+                .build();
+
+        Collection<RunResult> results = new Runner(options).run();
+
+        Map<String, Double> nanosPerOperation = new TreeMap<>();
+        Map<String, Double> bytesPerOperation = new TreeMap<>();
+        for (RunResult result : results) {
+            String benchmark = result.getParams().getBenchmark().replaceAll(".*\\.", "");
+            nanosPerOperation.put(benchmark, result.getPrimaryResult().getScore());
+            bytesPerOperation.put(benchmark, result.getSecondaryResults().get("gc.alloc.rate.norm").getScore());
+        }
+        log.warn("Product code per operation (ns): {}, allocated (bytes): {}", nanosPerOperation, bytesPerOperation);
+        assertThat(nanosPerOperation.get("encodeAfter")).isLessThan(nanosPerOperation.get("encodeBefore"));
+        assertThat(bytesPerOperation.get("encodeAfter")).isLessThan(bytesPerOperation.get("encodeBefore"));
+        assertThat(bytesPerOperation.get("decodeAfter")).isLessThan(1.0);
+    }
+}
@@ -0,0 +1,70 @@
+package com.ingemark.productmanager.benchmark;
+
+import com.ingemark.productmanager.model.product.RepricingJob;
+import com.ingemark.productmanager.model.product.RepricingJobStatus;
+import com.ingemark.productmanager.service.RepricingService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Measures how long a full USD reprice of the products table takes.
+ * Runs against the test database by default; pass -Dspring.datasource.url (with username, password and
+ * driver-class-name) to run it against PostgreSQL. Row count is set with -Dbenchmark.rows (default 1,000,000).
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@ActiveProfiles("test")
+class RepricingBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(RepricingBenchmarkTest.class);
+    private static final int INSERT_BATCH_SIZE = 5_000;
+
+    @Autowired
+    private RepricingService repricingService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void reprice_FullCatalog() {
+        int rows = Integer.getInteger("benchmark.rows", 1_000_000);
+        seedProducts(rows);
+
+        long start = System.nanoTime();
+        RepricingJob job = repricingService.reprice(new BigDecimal("1.1734"), LocalDate.now());
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertThat(job.getStatus()).isEqualTo(RepricingJobStatus.COMPLETED);
+        assertThat(job.getRowsUpdated()).isEqualTo(rows);
+        log.warn("Repriced {} products in {} ms ({} rows/s)", rows, elapsedMs, rows * 1000L / Math.max(1, elapsedMs));
+    }
+
+    private void seedProducts(int rows) {
+        jdbcTemplate.update("DELETE FROM products");
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> batch = new ArrayList<>(INSERT_BATCH_SIZE);
+        for (int i = 1; i <= rows; i++) {
+            batch.add(new Object[]{(long) i, String.format("B%09d", i), "Product " + i, BigDecimal.valueOf(i % 10_000, 2), now, now});
+            if (batch.size() == INSERT_BATCH_SIZE || i == rows) {
+                jdbcTemplate.batchUpdate("INSERT INTO products (id, code, name, price_eur, price_usd, is_available, created_at, updated_at) " +
+                        "VALUES (?, ?, ?, ?, 0, TRUE, ?, ?)", batch);
+                batch.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.ingemark.productmanager.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class BloomFilterTest {
+
+    @Test
+    void mightContain_ForAddedCodes_IsAlwaysTrue() {
+        // Given
+        BloomFilter filter = new BloomFilter(100_000, 0.01);
+
+        // When
+        IntStream.range(0, 100_000).forEach(i -> filter.put(code(i)));
+
+        // Then
+        assertThat(IntStream.range(0, 100_000).allMatch(i -> filter.mightContain(code(i)))).isTrue();
+    }
+
+    @Test
+    void mightContain_ForOtherCodes_KeepsFalsePositiveRateNearTarget() {
+        // Given
+        BloomFilter filter = new BloomFilter(100_000, 0.01);
+        IntStream.range(0, 100_000).forEach(i -> filter.put(code(i)));
+
+        // When
+        long falsePositives = IntStream.range(100_000, 200_000).filter(i -> filter.mightContain(code(i))).count();
+
+        // Then
+        assertThat(falsePositives / 100_000.0).isLessThan(0.015);
+        assertThat(filter.expectedFalsePositiveRate()).isCloseTo(0.01, within(0.003));
+        assertThat(filter.hashCount()).isEqualTo(7);
+        assertThat(filter.memoryBytes()).isBetween(119_000L, 121_000L); // 9.6 bits per code
+    }
+
+    @Test
+    void expectedFalsePositiveRate_BeyondExpectedInsertions_Rises() {
+        // Given
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+
+        // When
+        IntStream.range(0, 30_000).forEach(i -> filter.put(code(i)));
+
+        // Then
+        assertThat(filter.expectedFalsePositiveRate()).isGreaterThan(0.2);
+    }
+
+    private static String code(int sequence) {
+        String base36 = Integer.toString(sequence, 36).toUpperCase();
+        return String.format("%10s", base36).replace(' ', '0');
+    }
+}
@@ -0,0 +1,120 @@
+package com.ingemark.productmanager.cache;
+
+import com.ingemark.productmanager.configuration.ProductCacheConfig;
+import com.ingemark.productmanager.configuration.ProductCodeAllocatorConfig;
+import com.ingemark.productmanager.configuration.ProductCodeFilterConfig;
+import com.ingemark.productmanager.repository.ProductRepository;
+import com.ingemark.productmanager.repository.ProductTombstoneRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductCacheCoherencePollerTest {
+
+    @Mock
+    private ProductCache productCache;
+
+    @Mock
+    private ProductCodeFilter productCodeFilter;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private ProductTombstoneRepository productTombstoneRepository;
+
+    private ProductCacheCoherencePoller poller;
+
+    @BeforeEach
+    void setUp() {
+        ProductCacheConfig config = new ProductCacheConfig();
+        config.setMaxInvalidationsPerPoll(2);
+        poller = new ProductCacheCoherencePoller(productCache, productCodeFilter, productRepository, productTombstoneRepository, config);
+    }
+
+    @Test
+    void poll_WithFewChanges_InvalidatesOnlyChangedAndDeletedProducts() {
+        // Given
+        when(productRepository.findCodesUpdatedAfter(any(LocalDateTime.class), eq(Limit.of(3)))).thenReturn(List.of("A", "B"));
+        when(productTombstoneRepository.findCodesDeletedAfter(any(LocalDateTime.class))).thenReturn(List.of("C"));
+
+        // When
+        poller.poll();
+
+        // Then
+        verify(productCache).invalidate("A");
+        verify(productCache).invalidate("B");
+        verify(productCache).invalidate("C");
+        verify(productCache, never()).invalidateAll();
+        verify(productCodeFilter).add("A");
+        verify(productCodeFilter).add("B");
+        verify(productCodeFilter).caughtUpTo(any(LocalDateTime.class));
+    }
+
+    @Test
+    void poll_WithMoreChangesThanLimit_ClearsWholeCache() {
+        // Given
+        when(productRepository.findCodesUpdatedAfter(any(LocalDateTime.class), eq(Limit.of(3)))).thenReturn(List.of("A", "B", "C"));
+
+        // When
+        poller.poll();
+
+        // Then
+        verify(productCache).invalidateAll();
+        verify(productCache, never()).invalidate("A");
+        verify(productCodeFilter).fellBehind();
+        verify(productCodeFilter, never()).rebuild();
+    }
+
+    @Test
+    void poll_WithMoreChangesThanLimit_DoesNotReadAllCodes() {
+        // Given
+        ProductCacheConfig config = new ProductCacheConfig();
+        config.setMaxInvalidationsPerPoll(2);
+        ProductCodeFilter filter = new ProductCodeFilter(productRepository,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), new ProductCodeFilterConfig(),
+                new ProductCodeAllocatorConfig());
+        poller = new ProductCacheCoherencePoller(productCache, filter, productRepository, productTombstoneRepository, config);
+        when(productRepository.findCodesUpdatedAfter(any(LocalDateTime.class), eq(Limit.of(3)))).thenReturn(List.of("A", "B", "C"));
+
+        // When
+        poller.poll();
+        poller.poll();
+
+        // Then
+        verify(productCache, times(2)).invalidateAll();
+        verify(productRepository, never()).streamAllCodes();
+        verify(productRepository, never()).count();
+    }
+
+    @Test
+    void poll_WhenDatabaseFails_KeepsWatermarkForNextPoll() throws InterruptedException {
+        // Given
+        when(productRepository.findCodesUpdatedAfter(any(LocalDateTime.class), any(Limit.class)))
+                .thenThrow(new IllegalStateException("database down"));
+        Thread.sleep(20);
+
+        // When
+        poller.poll();
+
+        // Then
+        assertThat(poller.getLag()).isGreaterThanOrEqualTo(Duration.ofMillis(20));
+        verifyNoInteractions(productCache);
+        verify(productCodeFilter, never()).caughtUpTo(any());
+    }
+}
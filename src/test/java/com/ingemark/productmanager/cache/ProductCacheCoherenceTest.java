@@ -0,0 +1,123 @@
+package com.ingemark.productmanager.cache;
+
+import com.ingemark.productmanager.ProductManagerApplication;
+import com.ingemark.productmanager.exception.ProductNotFoundException;
+import com.ingemark.productmanager.model.product.Product;
+import com.ingemark.productmanager.repository.ProductRepository;
+import com.ingemark.productmanager.service.ProductService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.concurrent.Callable;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs two application contexts, standing in for two nodes, on one shared H2 database and checks that a write
+ * made through one node evicts the product from the cache of the other.
+ */
+class ProductCacheCoherenceTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    private ConfigurableApplicationContext nodeA;
+    private ConfigurableApplicationContext nodeB;
+
+    @BeforeEach
+    void setUp() {
+        nodeA = startNode("create-drop");
+        nodeB = startNode("none");
+    }
+
+    @AfterEach
+    void tearDown() {
+        nodeB.close();
+        nodeA.close();
+    }
+
+    @Test
+    void productUpdatedOnOneNode_IsEvictedOnTheOther() throws Exception {
+        // Given
+        Product product = nodeA.getBean(ProductRepository.class).save(product("COHERENT01", "Old name"));
+        ProductService productServiceB = nodeB.getBean(ProductService.class);
+        awaitFound(productServiceB, "COHERENT01"); // node B learns the new code from the poll
+        assertThat(productServiceB.getProductByCode("COHERENT01").name()).isEqualTo("Old name");
+
+        // When
+        product.setName("New name");
+        nodeA.getBean(ProductRepository.class).save(product);
+
+        // Then
+        awaitTrue(() -> "New name".equals(productServiceB.getProductByCode("COHERENT01").name()));
+        assertThat(nodeB.getBean(ProductCacheCoherencePoller.class).getLag()).isLessThan(TIMEOUT);
+    }
+
+    @Test
+    void productDeletedOnOneNode_IsEvictedOnTheOther() throws Exception {
+        // Given
+        nodeA.getBean(ProductRepository.class).save(product("COHERENT02", "Doomed"));
+        ProductService productServiceB = nodeB.getBean(ProductService.class);
+        awaitFound(productServiceB, "COHERENT02");
+
+        // When
+        nodeA.getBean(ProductService.class).deleteProductByCode("COHERENT02");
+
+        // Then
+        awaitTrue(() -> {
+            try {
+                productServiceB.getProductByCode("COHERENT02");
+                return false;
+            } catch (ProductNotFoundException e) {
+                return true;
+            }
+        });
+        assertThatThrownBy(() -> productServiceB.getProductByCode("COHERENT02"))
+                .isInstanceOf(ProductNotFoundException.class);
+    }
+
+    private ConfigurableApplicationContext startNode(String ddlAuto) {
+        return new SpringApplicationBuilder(ProductManagerApplication.class)
+                .profiles("test")
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:coherence;DB_CLOSE_DELAY=-1",
+                        "spring.jpa.hibernate.ddl-auto=" + ddlAuto,
+                        "spring.jpa.show-sql=false",
+                        "app.product-cache.poll-interval=100ms")
+                .run();
+    }
+
+    private static void awaitFound(ProductService productService, String code) throws Exception {
+        awaitTrue(() -> {
+            try {
+                productService.getProductByCode(code);
+                return true;
+            } catch (ProductNotFoundException e) {
+                return false;
+            }
+        });
+    }
+
+    private static void awaitTrue(Callable<Boolean> condition) throws Exception {
+        long deadline = System.nanoTime() + TIMEOUT.toNanos();
+        while (!condition.call()) {
+            assertThat(System.nanoTime()).as("condition not met within %s", TIMEOUT).isLessThan(deadline);
+            Thread.sleep(50);
+        }
+    }
+
+    private static Product product(String code, String name) {
+        return Product.builder()
+                .code(code)
+                .name(name)
+                .priceEur(new BigDecimal("10.00"))
+                .priceUsd(new BigDecimal("11.60"))
+                .isAvailable(true)
+                .build();
+    }
+}
@@ -0,0 +1,133 @@
+package com.ingemark.productmanager.cache;
+
+import com.ingemark.productmanager.configuration.ProductCacheConfig;
+import com.ingemark.productmanager.model.product.response.ProductResponseDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ProductCacheTest {
+
+    private static final ProductResponseDto STALE = product("Old name");
+    private static final ProductResponseDto FRESH = product("New name");
+
+    @Test
+    void get_WhenInvalidatedWhileLoading_DoesNotKeepTheLoadedValue() throws Exception {
+        // Given
+        ProductCache productCache = new ProductCache(new ProductCacheConfig());
+        CountDownLatch loadStarted = new CountDownLatch(1);
+        CountDownLatch writeCommitted = new CountDownLatch(1);
+        CompletableFuture<ProductResponseDto> reader = CompletableFuture.supplyAsync(() -> productCache.get("CODE", code -> {
+            loadStarted.countDown();
+            await(writeCommitted); // the value was read before the concurrent update committed
+            return STALE;
+        }));
+        assertThat(loadStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // When
+        CompletableFuture<Void> writer = CompletableFuture.runAsync(() -> productCache.invalidate("CODE"));
+        writeCommitted.countDown();
+        reader.get(5, TimeUnit.SECONDS);
+        writer.get(5, TimeUnit.SECONDS);
+
+        // Then
+        assertThat(productCache.get("CODE", code -> FRESH)).isEqualTo(FRESH);
+    }
+
+    @Test
+    void get_WithConcurrentMisses_LoadsOnce() {
+        // Given
+        ProductCache productCache = new ProductCache(new ProductCacheConfig());
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        // When
+        CompletableFuture<?>[] readers = new CompletableFuture<?>[8];
+        for (int i = 0; i < readers.length; i++) {
+            readers[i] = CompletableFuture.supplyAsync(() -> productCache.get("CODE", code -> {
+                loads.incrementAndGet();
+                await(release);
+                return FRESH;
+            }));
+        }
+        release.countDown();
+        CompletableFuture.allOf(readers).join();
+
+        // Then
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void get_WhenLoaderThrows_CachesNothing() {
+        // Given
+        ProductCache productCache = new ProductCache(new ProductCacheConfig());
+
+        // When
+        assertThatThrownBy(() -> productCache.get("CODE", code -> {
+            throw new IllegalStateException("not found");
+        })).isInstanceOf(IllegalStateException.class);
+
+        // Then
+        assertThat(productCache.get("CODE", code -> FRESH)).isEqualTo(FRESH);
+    }
+
+    @Test
+    void get_AfterTimeToLive_ReloadsValue() {
+        // Given
+        ProductCacheConfig config = new ProductCacheConfig();
+        config.setExpireAfterWrite(Duration.ofMinutes(10));
+        AtomicLong nanos = new AtomicLong();
+        ProductCache productCache = new ProductCache(config, nanos::get);
+        productCache.get("CODE", code -> STALE);
+
+        // When
+        nanos.addAndGet(Duration.ofMinutes(11).toNanos());
+
+        // Then
+        assertThat(productCache.get("CODE", code -> FRESH)).isEqualTo(FRESH);
+    }
+
+    @Test
+    void get_BeyondMaximumSize_EvictsAndReportsMetrics() {
+        // Given
+        ProductCacheConfig config = new ProductCacheConfig();
+        config.setMaximumSize(100);
+        ProductCache productCache = new ProductCache(config);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        productCache.bindTo(registry);
+
+        // When
+        for (int i = 0; i < 1_000; i++) {
+            productCache.get("CODE" + i, code -> FRESH);
+        }
+        productCache.get("CODE999", code -> FRESH);
+
+        // Then
+        assertThat(productCache.estimatedSize()).isLessThanOrEqualTo(100);
+        assertThat(registry.get("cache.gets").tag("result", "miss").functionCounter().count()).isEqualTo(1_000);
+        assertThat(registry.get("cache.gets").tag("result", "hit").functionCounter().count()).isEqualTo(1);
+        assertThat(registry.get("cache.evictions").functionCounter().count()).isGreaterThanOrEqualTo(900);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static ProductResponseDto product(String name) {
+        return new ProductResponseDto(name, "CODE", new BigDecimal("10.00"), new BigDecimal("11.60"), true);
+    }
+}
@@ -0,0 +1,206 @@
+package com.ingemark.productmanager.cache;
+
+import com.ingemark.productmanager.configuration.ProductCodeAllocatorConfig;
+import com.ingemark.productmanager.configuration.ProductCodeFilterConfig;
+import com.ingemark.productmanager.model.product.Product;
+import com.ingemark.productmanager.repository.ProductRepository;
+import com.ingemark.productmanager.util.ProductCode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+class ProductCodeFilterTest {
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private ProductCodeFilter productCodeFilter;
+
+    @BeforeEach
+    void setUp() {
+        productCodeFilter = new ProductCodeFilter(productRepository, readOnlyTransactionTemplate(), new ProductCodeFilterConfig(),
+                new ProductCodeAllocatorConfig());
+    }
+
+    @Test
+    void mightExist_BeforeFirstBuild_AcceptsEveryCode() {
+        // When & Then
+        assertThat(productCodeFilter.mightExist("MISSING123")).isTrue();
+    }
+
+    @Test
+    void rebuild_WithStoredProducts_RejectsOnlyCodesThatDoNotExist() {
+        // Given
+        productRepository.save(product("EXISTING01"));
+        productRepository.save(product("EXISTING02"));
+
+        // When
+        productCodeFilter.rebuild();
+
+        // Then
+        assertThat(productCodeFilter.mightExist("EXISTING01")).isTrue();
+        assertThat(productCodeFilter.mightExist("EXISTING02")).isTrue();
+        assertThat(productCodeFilter.mightExist("MISSING123")).isFalse();
+    }
+
+    @Test
+    void add_AfterRebuild_AcceptsNewCode() {
+        // Given
+        productCodeFilter.rebuild();
+
+        // When
+        productCodeFilter.add("CREATED001");
+
+        // Then
+        assertThat(productCodeFilter.mightExist("CREATED001")).isTrue();
+    }
+
+    @Test
+    void rebuild_AfterDeletion_RejectsDeletedCode() {
+        // Given
+        Product product = productRepository.save(product("DELETED001"));
+        productCodeFilter.rebuild();
+        productRepository.delete(product);
+
+        // When
+        productCodeFilter.rebuild();
+
+        // Then
+        assertThat(productCodeFilter.mightExist("DELETED001")).isFalse();
+    }
+
+    @Test
+    void bindTo_ReportsLookupsFalsePositiveRatesAndMemory() {
+        // Given
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        productCodeFilter.bindTo(registry);
+        productRepository.save(product("EXISTING01"));
+        productCodeFilter.rebuild();
+
+        // When
+        productCodeFilter.mightExist("EXISTING01");
+        productCodeFilter.mightExist("MISSING123");
+        productCodeFilter.mightExist("MISSING456");
+        productCodeFilter.recordFalsePositive("EXISTING01");
+
+        // Then
+        assertThat(registry.get("product.code.filter.lookups").tag("result", "rejected").functionCounter().count()).isEqualTo(2);
+        assertThat(registry.get("product.code.filter.lookups").tag("result", "passed").functionCounter().count()).isEqualTo(1);
+        assertThat(registry.get("product.code.filter.false.positive.rate").tag("kind", "observed").gauge().value())
+                .isEqualTo(1 / 3.0);
+        assertThat(registry.get("product.code.filter.false.positive.rate").tag("kind", "expected").gauge().value())
+                .isLessThan(0.01);
+        assertThat(registry.get("product.code.filter.memory").gauge().value()).isEqualTo(11_984); // sized for 10 000 codes
+    }
+
+    @Test
+    void mightExist_WithCodeCreatedOnAnotherNodeBeforeThePoll_IsNotRejected() {
+        // Given
+        ProductCodeFilter otherNode = new ProductCodeFilter(productRepository, readOnlyTransactionTemplate(),
+                new ProductCodeFilterConfig(), new ProductCodeAllocatorConfig());
+        productCodeFilter.rebuild();
+        otherNode.rebuild();
+        productCodeFilter.caughtUpTo(LocalDateTime.now());
+        otherNode.caughtUpTo(LocalDateTime.now());
+        String code = ProductCode.encode(ProductCode.number(LocalDate.now().getYear(), 42));
+
+        // When
+        productRepository.save(product(code));
+        productCodeFilter.add(code);
+
+        // Then
+        assertThat(otherNode.mightExist(code)).isTrue();
+        assertThat(productRepository.findByCode(code)).isPresent();
+    }
+
+    @Test
+    void mightExist_WithCodeOfYearBeforeTheFilterCaughtUp_IsRejected() {
+        // Given
+        productCodeFilter.rebuild();
+        productCodeFilter.caughtUpTo(LocalDateTime.now().plusYears(1));
+        String code = ProductCode.encode(ProductCode.number(LocalDate.now().getYear(), 42));
+
+        // When & Then
+        assertThat(productCodeFilter.mightExist(code)).isFalse();
+    }
+
+    @Test
+    void mightExist_WithUnknownCodeOfTheCurrentYear_IsRejectedOnlyBelowTheWatermark() {
+        // Given
+        int year = LocalDate.now().getYear();
+        productRepository.save(product(ProductCode.encode(ProductCode.number(year, 5000))));
+        productCodeFilter.rebuild();
+        productCodeFilter.caughtUpTo(LocalDateTime.now());
+        String belowBeforeBlocksExpired = ProductCode.encode(ProductCode.number(year, 42));
+        boolean passedBeforeBlocksExpired = productCodeFilter.mightExist(belowBeforeBlocksExpired);
+
+        // When
+        // lower codes may still be handed out from blocks reserved earlier until max-block-age has passed
+        productCodeFilter.caughtUpTo(LocalDateTime.now().plusMinutes(2));
+
+        // Then
+        assertThat(passedBeforeBlocksExpired).isTrue();
+        assertThat(productCodeFilter.mightExist(belowBeforeBlocksExpired)).isFalse();
+        assertThat(productCodeFilter.mightExist(ProductCode.encode(ProductCode.number(year, 5001)))).isTrue();
+    }
+
+    @Test
+    void mightExist_BeforeTheFilterCaughtUp_AcceptsCodesOfTheCurrentYear() {
+        // Given
+        productCodeFilter.rebuild();
+        String code = ProductCode.encode(ProductCode.number(LocalDate.now().getYear(), 42));
+
+        // When & Then
+        assertThat(productCodeFilter.mightExist(code)).isTrue();
+        assertThat(productCodeFilter.mightExist("MISSING123")).isFalse();
+    }
+
+    @Test
+    void caughtUpTo_AfterFallingBehind_WaitsForTheNextRebuild() {
+        // Given
+        productCodeFilter.rebuild();
+        String code = ProductCode.encode(ProductCode.number(LocalDate.now().getYear(), 42));
+        productCodeFilter.fellBehind();
+
+        // When
+        productCodeFilter.caughtUpTo(LocalDateTime.now().plusYears(1));
+
+        // Then
+        assertThat(productCodeFilter.mightExist(code)).isTrue();
+        productCodeFilter.rebuild();
+        productCodeFilter.caughtUpTo(LocalDateTime.now().plusYears(1));
+        assertThat(productCodeFilter.mightExist(code)).isFalse();
+    }
+
+    private TransactionTemplate readOnlyTransactionTemplate() {
+        TransactionTemplate readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        readOnlyTransactionTemplate.setReadOnly(true);
+        return readOnlyTransactionTemplate;
+    }
+
+    private static Product product(String code) {
+        return Product.builder()
+                .code(code)
+                .name("Product " + code)
+                .priceEur(new BigDecimal("10.00"))
+                .priceUsd(new BigDecimal("11.60"))
+                .isAvailable(true)
+                .build();
+    }
+}
@@ -0,0 +1,112 @@
+package com.ingemark.productmanager.cache;
+
+import com.ingemark.productmanager.configuration.UserCacheConfig;
+import com.ingemark.productmanager.model.user.UserPrincipal;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class UserPrincipalCacheTest {
+
+    private static final UserPrincipal CUSTOMER = user("ROLE_CUSTOMER");
+    private static final UserPrincipal ADMIN = user("ROLE_ADMIN");
+
+    @Test
+    void get_WithConcurrentMisses_LoadsOnce() {
+        // Given
+        UserPrincipalCache userPrincipalCache = new UserPrincipalCache(new UserCacheConfig());
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        // When
+        CompletableFuture<?>[] readers = new CompletableFuture<?>[8];
+        for (int i = 0; i < readers.length; i++) {
+            readers[i] = CompletableFuture.supplyAsync(() -> userPrincipalCache.get("user", username -> {
+                loads.incrementAndGet();
+                await(release);
+                return CUSTOMER;
+            }));
+        }
+        release.countDown();
+        CompletableFuture.allOf(readers).join();
+
+        // Then
+        assertThat(loads).hasValue(1);
+        assertThat(userPrincipalCache.estimatedSize()).isEqualTo(1);
+    }
+
+    @Test
+    void get_WhenLoaderThrows_CachesNothing() {
+        // Given
+        UserPrincipalCache userPrincipalCache = new UserPrincipalCache(new UserCacheConfig());
+
+        // When
+        assertThatThrownBy(() -> userPrincipalCache.get("missing", username -> {
+            throw new IllegalStateException("not found");
+        })).isInstanceOf(IllegalStateException.class);
+
+        // Then
+        assertThat(userPrincipalCache.estimatedSize()).isZero();
+    }
+
+    @Test
+    void get_AfterTimeToLive_LoadsAgain() {
+        // Given
+        UserCacheConfig config = new UserCacheConfig();
+        config.setExpireAfterWrite(Duration.ofMinutes(5));
+        AtomicLong nanos = new AtomicLong();
+        UserPrincipalCache userPrincipalCache = new UserPrincipalCache(config, nanos::get);
+        userPrincipalCache.get("user", username -> CUSTOMER);
+
+        // When
+        nanos.addAndGet(Duration.ofMinutes(6).toNanos());
+
+        // Then
+        assertThat(userPrincipalCache.get("user", username -> ADMIN)).isEqualTo(ADMIN);
+    }
+
+    @Test
+    void invalidate_InTransaction_EvictsOnlyAfterCommit() {
+        // Given
+        UserPrincipalCache userPrincipalCache = new UserPrincipalCache(new UserCacheConfig());
+        userPrincipalCache.get("user", username -> CUSTOMER);
+
+        // When
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            userPrincipalCache.invalidate("user");
+
+            // Then
+            assertThat(userPrincipalCache.get("user", username -> ADMIN)).isEqualTo(CUSTOMER);
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertThat(userPrincipalCache.get("user", username -> ADMIN)).isEqualTo(ADMIN);
+    }
+
+    private static UserPrincipal user(String role) {
+        return new UserPrincipal(1L, "user", "user@example.com", "encodedPass",
+                List.of(new SimpleGrantedAuthority(role)), true);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.ingemark.productmanager.client;
+
+import com.ingemark.productmanager.configuration.HnbClientConfig;
+import com.ingemark.productmanager.configuration.RestTemplateConfig;
+import com.ingemark.productmanager.model.product.response.HnbRateResponse;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs HnbClient against a local stub server that answers with scripted healthy, slow and failing responses.
+ */
+class HnbClientTest {
+
+    private static final String RATES_JSON = """
+            [{"valuta":"USD","srednji_tecaj":"1,1600","datum_primjene":"2025-08-01"}]
+            """;
+
+    private HttpServer server;
+    private final Queue<StubResponse> script = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger requests = new AtomicInteger();
+    private CloseableHttpClient httpClient;
+    private HnbClient hnbClient;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/tecajn-eur/v3", this::handle);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        hnbClient.shutdown();
+        httpClient.close();
+        server.stop(0);
+    }
+
+    @Test
+    void fetchRates_WithHealthyServer_ReturnsRates() {
+        // Given
+        hnbClient = client(null);
+        script.add(StubResponse.ok(Duration.ZERO));
+
+        // When
+        HnbRateResponse[] rates = hnbClient.fetchRates();
+
+        // Then
+        assertThat(rates).containsExactly(new HnbRateResponse("USD", "1,1600", LocalDate.of(2025, 8, 1)));
+        assertThat(hnbClient.getCircuitState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void fetchRates_WhenServerIsSlow_FailsWithinReadTimeout() {
+        // Given
+        hnbClient = client(null);
+        script.add(StubResponse.ok(Duration.ofSeconds(3)));
+        long start = System.nanoTime();
+
+        // When & Then
+        assertThatThrownBy(() -> hnbClient.fetchRates()).isInstanceOf(ResourceAccessException.class);
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(2));
+    }
+
+    @Test
+    void fetchRates_AfterRepeatedFailures_OpensCircuitAndStopsCallingServer() {
+        // Given
+        hnbClient = client(null);
+        for (int i = 0; i < 3; i++) {
+            script.add(StubResponse.error());
+        }
+
+        // When
+        for (int i = 0; i < 3; i++) {
+            assertThatThrownBy(() -> hnbClient.fetchRates()).isInstanceOf(RestClientException.class);
+        }
+
+        // Then
+        assertThatThrownBy(() -> hnbClient.fetchRates()).isInstanceOf(CircuitOpenException.class);
+        assertThat(hnbClient.getCircuitState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(requests.get()).isEqualTo(3);
+    }
+
+    @Test
+    void fetchRates_WhenServerFlaps_ReopensOnFailedTrialAndClosesOnSuccessfulOne() throws InterruptedException {
+        // Given
+        hnbClient = client(null);
+        for (int i = 0; i < 3; i++) {
+            script.add(StubResponse.error());
+        }
+        script.add(StubResponse.error());
+        script.add(StubResponse.ok(Duration.ZERO));
+        for (int i = 0; i < 3; i++) {
+            assertThatThrownBy(() -> hnbClient.fetchRates()).isInstanceOf(RestClientException.class);
+        }
+
+        // When & Then
+        Thread.sleep(300);
+        assertThatThrownBy(() -> hnbClient.fetchRates()).isInstanceOf(RestClientException.class);
+        assertThat(hnbClient.getCircuitState()).isEqualTo(CircuitBreaker.State.OPEN);
+
+        Thread.sleep(300);
+        assertThat(hnbClient.fetchRates()).hasSize(1);
+        assertThat(hnbClient.getCircuitState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(requests.get()).isEqualTo(5);
+    }
+
+    @Test
+    void fetchRates_WithHedgingAndSlowFirstResponse_ReturnsHedgedResponse() {
+        // Given
+        hnbClient = client(Duration.ofMillis(100));
+        script.add(StubResponse.ok(Duration.ofMillis(1500)));
+        script.add(StubResponse.ok(Duration.ZERO));
+        long start = System.nanoTime();
+
+        // When
+        HnbRateResponse[] rates = hnbClient.fetchRates();
+
+        // Then
+        assertThat(rates).hasSize(1);
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofMillis(1000));
+        assertThat(requests.get()).isEqualTo(2);
+    }
+
+    @Test
+    void fetchRates_WithHedgingAndFailedFirstResponse_RetriesWithoutWaitingForHedgeDelay() {
+        // Given
+        hnbClient = client(Duration.ofSeconds(5));
+        script.add(StubResponse.error());
+        script.add(StubResponse.ok(Duration.ZERO));
+        long start = System.nanoTime();
+
+        // When
+        HnbRateResponse[] rates = hnbClient.fetchRates();
+
+        // Then
+        assertThat(rates).hasSize(1);
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(2));
+        assertThat(hnbClient.getCircuitState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    private HnbClient client(Duration hedgeDelay) {
+        HnbClientConfig config = new HnbClientConfig();
+        config.setConnectTimeout(Duration.ofMillis(500));
+        config.setReadTimeout(Duration.ofMillis(1000));
+        config.setFailureThreshold(3);
+        config.setOpenDuration(Duration.ofMillis(200));
+        config.setHedgeDelay(hedgeDelay);
+
+        RestTemplateConfig restTemplateConfig = new RestTemplateConfig();
+        httpClient = restTemplateConfig.hnbHttpClient(config);
+        String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/tecajn-eur/v3";
+        return new HnbClient(restTemplateConfig.hnbRestTemplate(httpClient), config, url);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        StubResponse response = Objects.requireNonNullElse(script.poll(), StubResponse.ok(Duration.ZERO));
+        try {
+            Thread.sleep(response.delay().toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        byte[] body = (response.status() == 200 ? RATES_JSON : "{}").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(response.status(), body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        } catch (IOException e) {
+            // the client already gave up on a slow response
+        }
+    }
+
+    private record StubResponse(int status, Duration delay) {
+
+        static StubResponse ok(Duration delay) {
+            return new StubResponse(200, delay);
+        }
+
+        static StubResponse error() {
+            return new StubResponse(500, Duration.ZERO);
+        }
+    }
+}
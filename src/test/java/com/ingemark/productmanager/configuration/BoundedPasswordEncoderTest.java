@@ -0,0 +1,127 @@
+package com.ingemark.productmanager.configuration;
+
+import com.ingemark.productmanager.exception.PasswordHashingBusyException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BoundedPasswordEncoderTest {
+
+    @Test
+    void resolveStrength_WithConfiguredStrength_SkipsCalibration() {
+        // Given
+        PasswordHashingConfig config = new PasswordHashingConfig();
+        config.setStrength(7);
+
+        // When & Then
+        assertThat(BoundedPasswordEncoder.resolveStrength(config)).isEqualTo(7);
+    }
+
+    @Test
+    void resolveStrength_StaysWithinBounds() {
+        // Given
+        PasswordHashingConfig config = new PasswordHashingConfig();
+        config.setMinStrength(4);
+        config.setMaxStrength(6);
+
+        // When
+        config.setTargetDuration(Duration.ofNanos(1));
+        int fastest = BoundedPasswordEncoder.resolveStrength(config);
+        config.setTargetDuration(Duration.ofSeconds(10));
+        int slowest = BoundedPasswordEncoder.resolveStrength(config);
+
+        // Then
+        assertThat(fastest).isEqualTo(4);
+        assertThat(slowest).isEqualTo(6);
+    }
+
+    @Test
+    void encode_HashesOnPasswordHashingThreadAndRecordsLatency() {
+        // Given
+        PasswordHashingConfig config = new PasswordHashingConfig();
+        config.setStrength(4);
+        BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(config);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        encoder.bindTo(registry);
+
+        // When
+        String encoded = encoder.encode("secret");
+
+        // Then
+        assertThat(encoder.matches("secret", encoded)).isTrue();
+        assertThat(encoder.matches("wrong", encoded)).isFalse();
+        assertThat(registry.get("password.hash.duration").tag("operation", "encode").timer().count()).isEqualTo(1);
+        assertThat(registry.get("password.hash.duration").tag("operation", "matches").timer().count()).isEqualTo(2);
+        assertThat(registry.get("password.hash.strength").gauge().value()).isEqualTo(4);
+    }
+
+    @Test
+    void encode_WhenQueueIsFull_FailsFast() throws Exception {
+        // Given
+        PasswordHashingConfig config = new PasswordHashingConfig();
+        config.setThreads(1);
+        config.setQueueCapacity(1);
+        CountDownLatch hashing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordEncoder slowEncoder = new BCryptPasswordEncoder(4) {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                hashing.countDown();
+                await(release);
+                return super.encode(rawPassword);
+            }
+        };
+        BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(config, slowEncoder, 4);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        encoder.bindTo(registry);
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> encoder.encode("first"));
+        assertThat(hashing.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> encoder.encode("second"));
+        awaitQueueDepth(registry, 1);
+
+        // When & Then
+        assertThatThrownBy(() -> encoder.encode("third")).isInstanceOf(PasswordHashingBusyException.class);
+        assertThat(registry.get("password.hash.rejected").functionCounter().count()).isEqualTo(1);
+
+        release.countDown();
+        assertThat(running.get(5, TimeUnit.SECONDS)).startsWith("$2a$04$");
+        assertThat(queued.get(5, TimeUnit.SECONDS)).startsWith("$2a$04$");
+    }
+
+    @Test
+    void upgradeEncoding_ForHashWithLowerCost_IsTrue() {
+        // Given
+        PasswordHashingConfig config = new PasswordHashingConfig();
+        config.setStrength(5);
+        BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(config);
+
+        // When & Then
+        assertThat(encoder.upgradeEncoding(new BCryptPasswordEncoder(4).encode("secret"))).isTrue();
+        assertThat(encoder.upgradeEncoding(encoder.encode("secret"))).isFalse();
+    }
+
+    private static void awaitQueueDepth(SimpleMeterRegistry registry, int depth) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (registry.get("password.hash.queue.depth").gauge().value() < depth) {
+            assertThat(System.nanoTime()).isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.ingemark.productmanager.configuration;
+
+import com.ingemark.productmanager.service.ProductService;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class TransactionConfigTest {
+
+    @Autowired
+    private ProductService productService;
+
+    @Test
+    void productService_GetsReadOnlyTemplateForReads() {
+        Object service = AopProxyUtils.getSingletonTarget(productService);
+
+        assertThat(template(service, "readOnlyTransactionTemplate").isReadOnly()).isTrue();
+        assertThat(template(service, "transactionTemplate").isReadOnly()).isFalse();
+    }
+
+    private TransactionTemplate template(Object service, String field) {
+        return (TransactionTemplate) ReflectionTestUtils.getField(service, field);
+    }
+}
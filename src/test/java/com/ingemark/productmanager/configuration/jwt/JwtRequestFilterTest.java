@@ -0,0 +1,118 @@
+package com.ingemark.productmanager.configuration.jwt;
+
+import com.ingemark.productmanager.cache.UserPrincipalCache;
+import com.ingemark.productmanager.configuration.UserCacheConfig;
+import com.ingemark.productmanager.model.user.UserPrincipal;
+import com.ingemark.productmanager.repository.UserRepository;
+import io.jsonwebtoken.Claims;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class JwtRequestFilterTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private TokenRevocations tokenRevocations;
+
+    private JwtUtil jwtUtil;
+    private DisabledUsers disabledUsers;
+    private JwtRequestFilter jwtRequestFilter;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtil = new JwtUtil("test-secret-of-at-least-256-bits-for-hs256", 3_600_000, 3_600_000, 100);
+        disabledUsers = new DisabledUsers(userRepository, new UserPrincipalCache(new UserCacheConfig()));
+        jwtRequestFilter = new JwtRequestFilter(jwtUtil, disabledUsers, tokenRevocations);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void doFilter_WithValidToken_AuthenticatesFromClaimsWithoutLoadingUser() throws Exception {
+        // Given
+        MockHttpServletRequest request = requestWithToken(jwtUtil.generateToken(admin()));
+
+        // When
+        jwtRequestFilter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+        // Then
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        assertThat(authentication.getName()).isEqualTo("admin");
+        assertThat(authentication.getAuthorities()).extracting("authority").containsExactly("ROLE_ADMIN");
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void doFilter_AfterUserIsDisabled_DoesNotAuthenticate() throws Exception {
+        // Given
+        MockHttpServletRequest request = requestWithToken(jwtUtil.generateToken(admin()));
+        when(userRepository.findDisabledUsernames()).thenReturn(Set.of("admin"));
+        disabledUsers.refresh();
+
+        // When
+        jwtRequestFilter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+        // Then
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+    }
+
+    @Test
+    void doFilter_WithRevokedToken_DoesNotAuthenticate() throws Exception {
+        // Given
+        MockHttpServletRequest request = requestWithToken(jwtUtil.generateToken(admin()));
+        when(tokenRevocations.isRevoked(any(Claims.class))).thenReturn(true);
+
+        // When
+        jwtRequestFilter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+        // Then
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+    }
+
+    @Test
+    void doFilter_WithTamperedToken_DoesNotAuthenticate() throws Exception {
+        // Given
+        String token = jwtUtil.generateToken(admin());
+        MockHttpServletRequest request = requestWithToken(token.substring(0, token.length() - 2) + "xx");
+
+        // When
+        jwtRequestFilter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+        // Then
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+    }
+
+    private static MockHttpServletRequest requestWithToken(String token) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/products/CODE");
+        request.addHeader("Authorization", "Bearer " + token);
+        return request;
+    }
+
+    private static UserPrincipal admin() {
+        return new UserPrincipal(1L, "admin", "admin@example.com", "encodedPass",
+                List.of(new SimpleGrantedAuthority("ROLE_ADMIN")), true);
+    }
+}
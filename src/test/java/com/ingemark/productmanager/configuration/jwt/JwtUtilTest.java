@@ -0,0 +1,134 @@
+package com.ingemark.productmanager.configuration.jwt;
+
+import com.ingemark.productmanager.model.user.UserPrincipal;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.WeakKeyException;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JwtUtilTest {
+
+    private static final String SECRET = "test-secret-of-at-least-256-bits-for-hs256";
+
+    private final UserPrincipal user = new UserPrincipal(7L, "user", "user@example.com", "encodedPass",
+            List.of(new SimpleGrantedAuthority("ROLE_CUSTOMER")), true);
+
+    @Test
+    void parseToken_WithValidToken_ReturnsClaimsOfTheUser() {
+        // Given
+        JwtUtil jwtUtil = new JwtUtil(SECRET, 3_600_000, 3_600_000, 100);
+        String token = jwtUtil.generateToken(user);
+
+        // When
+        Claims claims = jwtUtil.parseToken(token);
+
+        // Then
+        assertThat(jwtUtil.validateToken(claims)).isTrue();
+        UserPrincipal principal = jwtUtil.getUserPrincipal(claims);
+        assertThat(principal.getId()).isEqualTo(7L);
+        assertThat(principal.getUsername()).isEqualTo("user");
+        assertThat(principal.getAuthorities()).extracting("authority").containsExactly("ROLE_CUSTOMER");
+        assertThat(principal.getPassword()).isNull();
+    }
+
+    @Test
+    void parseToken_WhenCalledAgain_ReturnsCachedClaims() {
+        // Given
+        JwtUtil jwtUtil = new JwtUtil(SECRET, 3_600_000, 3_600_000, 100);
+        String token = jwtUtil.generateToken(user);
+
+        // When
+        Claims first = jwtUtil.parseToken(token);
+        Claims second = jwtUtil.parseToken(token);
+
+        // Then
+        assertThat(second).isSameAs(first);
+    }
+
+    @Test
+    void parseToken_WithTokenSignedByOtherKey_Throws() {
+        // Given
+        String token = new JwtUtil("other-secret-of-at-least-256-bits-for-hs256", 3_600_000, 3_600_000, 100)
+                .generateToken(user);
+        JwtUtil jwtUtil = new JwtUtil(SECRET, 3_600_000, 3_600_000, 100);
+
+        // When & Then
+        assertThatThrownBy(() -> jwtUtil.parseToken(token)).isInstanceOf(JwtException.class);
+    }
+
+    @Test
+    void parseToken_AfterTokenExpires_ThrowsEvenIfCached() throws InterruptedException {
+        // Given
+        JwtUtil jwtUtil = new JwtUtil(SECRET, 1_000, 3_600_000, 100);
+        String token = jwtUtil.generateToken(user);
+        jwtUtil.parseToken(token);
+
+        // When
+        Thread.sleep(2_000); // exp has a precision of seconds
+
+        // Then
+        assertThatThrownBy(() -> jwtUtil.parseToken(token)).isInstanceOf(ExpiredJwtException.class);
+    }
+
+    @Test
+    void validateToken_OlderThanMaxAge_IsFalse() {
+        // Given
+        JwtUtil jwtUtil = new JwtUtil(SECRET, 3_600_000, 60_000, 100);
+        String token = signedToken(Jwts.builder()
+                .subject("user")
+                .claim(JwtUtil.ROLES_CLAIM, List.of("ROLE_CUSTOMER"))
+                .claim(JwtUtil.ENABLED_CLAIM, true)
+                .issuedAt(new Date(System.currentTimeMillis() - 120_000))
+                .expiration(new Date(System.currentTimeMillis() + 3_600_000)));
+
+        // When & Then
+        assertThat(jwtUtil.validateToken(jwtUtil.parseToken(token))).isFalse();
+    }
+
+    @Test
+    void validateToken_WithoutUserClaims_IsFalse() {
+        // Given
+        JwtUtil jwtUtil = new JwtUtil(SECRET, 3_600_000, 3_600_000, 100);
+        String token = signedToken(Jwts.builder()
+                .subject("user")
+                .issuedAt(new Date())
+                .expiration(new Date(System.currentTimeMillis() + 3_600_000)));
+
+        // When & Then
+        assertThat(jwtUtil.validateToken(jwtUtil.parseToken(token))).isFalse();
+    }
+
+    @Test
+    void validateToken_OfDisabledUser_IsFalse() {
+        // Given
+        JwtUtil jwtUtil = new JwtUtil(SECRET, 3_600_000, 3_600_000, 100);
+        UserPrincipal disabledUser = new UserPrincipal(7L, "user", "user@example.com", "encodedPass",
+                List.of(new SimpleGrantedAuthority("ROLE_CUSTOMER")), false);
+        String token = jwtUtil.generateToken(disabledUser);
+
+        // When & Then
+        assertThat(jwtUtil.validateToken(jwtUtil.parseToken(token))).isFalse();
+    }
+
+    @Test
+    void constructor_WithWeakSecret_Throws() {
+        // When & Then
+        assertThatThrownBy(() -> new JwtUtil("short", 3_600_000, 3_600_000, 100)).isInstanceOf(WeakKeyException.class);
+    }
+
+    private static String signedToken(JwtBuilder builder) {
+        return builder.signWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8))).compact();
+    }
+}
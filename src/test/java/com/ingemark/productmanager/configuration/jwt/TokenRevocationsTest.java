@@ -0,0 +1,129 @@
+package com.ingemark.productmanager.configuration.jwt;
+
+import com.ingemark.productmanager.model.user.TokenRevocation;
+import com.ingemark.productmanager.repository.TokenRevocationRepository;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+class TokenRevocationsTest {
+
+    @Autowired
+    private TokenRevocationRepository tokenRevocationRepository;
+
+    @Test
+    void refresh_AfterRestart_LoadsStoredRevocations() {
+        // Given
+        String revokedId = UUID.randomUUID().toString();
+        LocalDateTime now = LocalDateTime.now();
+        tokenRevocationRepository.save(TokenRevocation.builder()
+                .jti(revokedId).revokedAt(now).expiresAt(now.plusHours(1)).build());
+        TokenRevocations tokenRevocations = new TokenRevocations(tokenRevocationRepository);
+
+        // When
+        tokenRevocations.refresh();
+
+        // Then
+        assertThat(tokenRevocations.isRevoked(claims(revokedId, "user", now.minusMinutes(1)))).isTrue();
+        assertThat(tokenRevocations.isRevoked(claims(UUID.randomUUID().toString(), "user", now.minusMinutes(1)))).isFalse();
+    }
+
+    @Test
+    void isRevoked_ForRevokedUser_RejectsOnlyTokensIssuedBefore() {
+        // Given
+        LocalDateTime revokedAt = LocalDateTime.now().minusMinutes(5);
+        TokenRevocations tokenRevocations = new TokenRevocations(tokenRevocationRepository);
+
+        // When
+        tokenRevocations.add(TokenRevocation.builder()
+                .username("user").revokedAt(revokedAt).expiresAt(revokedAt.plusDays(1)).build());
+
+        // Then
+        assertThat(tokenRevocations.isRevoked(claims(UUID.randomUUID().toString(), "user", revokedAt.minusMinutes(1)))).isTrue();
+        assertThat(tokenRevocations.isRevoked(claims(UUID.randomUUID().toString(), "user", revokedAt.plusMinutes(1)))).isFalse();
+        assertThat(tokenRevocations.isRevoked(claims(UUID.randomUUID().toString(), "other", revokedAt.minusMinutes(1)))).isFalse();
+    }
+
+    @Test
+    void isRevoked_ForTokensInSameSecondAsUserRevocation_RejectsOnlyTokensIssuedBefore() {
+        // Given
+        LocalDateTime revokedAt = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).plusNanos(600_000_000);
+        TokenRevocations tokenRevocations = new TokenRevocations(tokenRevocationRepository);
+        tokenRevocations.add(TokenRevocation.builder()
+                .username("user").revokedAt(revokedAt).expiresAt(revokedAt.plusDays(1)).build());
+
+        // When
+        Claims earlierLogin = claims(UUID.randomUUID().toString(), "user", revokedAt.minusNanos(1_000));
+        Claims laterLogin = claims(UUID.randomUUID().toString(), "user", revokedAt.plusNanos(1_000));
+
+        // Then
+        assertThat(tokenRevocations.isRevoked(earlierLogin)).isTrue();
+        assertThat(tokenRevocations.isRevoked(laterLogin)).isFalse();
+    }
+
+    @Test
+    void isRevoked_ForTokenWithoutMicrosecondIssueTime_RejectsItUpToTheSecondOfTheRevocation() {
+        // Given
+        LocalDateTime revokedAt = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).plusNanos(600_000_000);
+        TokenRevocations tokenRevocations = new TokenRevocations(tokenRevocationRepository);
+        tokenRevocations.add(TokenRevocation.builder()
+                .username("user").revokedAt(revokedAt).expiresAt(revokedAt.plusDays(1)).build());
+
+        // When
+        // tokens issued before the iat_us claim only carry the whole-second iat
+        Claims sameSecond = legacyClaims("user", revokedAt.truncatedTo(ChronoUnit.SECONDS));
+        Claims nextSecond = legacyClaims("user", revokedAt.truncatedTo(ChronoUnit.SECONDS).plusSeconds(1));
+
+        // Then
+        assertThat(tokenRevocations.isRevoked(sameSecond)).isTrue();
+        assertThat(tokenRevocations.isRevoked(nextSecond)).isFalse();
+    }
+
+    @Test
+    void refresh_WithExpiredRevocations_KeepsNothingAndDeletesThem() {
+        // Given
+        LocalDateTime revokedAt = LocalDateTime.now().minusDays(2);
+        tokenRevocationRepository.save(TokenRevocation.builder()
+                .jti(UUID.randomUUID().toString()).revokedAt(revokedAt).expiresAt(revokedAt.plusDays(1)).build());
+        TokenRevocations tokenRevocations = new TokenRevocations(tokenRevocationRepository);
+
+        // When
+        tokenRevocations.refresh();
+
+        // Then
+        assertThat(tokenRevocations.size()).isZero();
+        assertThat(tokenRevocationRepository.count()).isZero();
+    }
+
+    private static Claims claims(String id, String subject, LocalDateTime issuedAt) {
+        Instant instant = issuedAt.atZone(ZoneId.systemDefault()).toInstant();
+        return Jwts.claims()
+                .id(id)
+                .subject(subject)
+                .issuedAt(Date.from(instant))
+                .add(JwtUtil.ISSUED_AT_MICROS_CLAIM, ChronoUnit.MICROS.between(Instant.EPOCH, instant))
+                .build();
+    }
+
+    private static Claims legacyClaims(String subject, LocalDateTime issuedAt) {
+        return Jwts.claims()
+                .id(UUID.randomUUID().toString())
+                .subject(subject)
+                .issuedAt(Date.from(issuedAt.atZone(ZoneId.systemDefault()).toInstant()))
+                .build();
+    }
+}
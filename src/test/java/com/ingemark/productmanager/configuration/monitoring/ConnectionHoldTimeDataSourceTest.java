@@ -0,0 +1,71 @@
+package com.ingemark.productmanager.configuration.monitoring;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ConnectionHoldTimeDataSourceTest {
+
+    @Mock
+    private DataSource targetDataSource;
+
+    @Mock
+    private Connection targetConnection;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ConnectionHoldTimeDataSource dataSource;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        meterRegistry = new SimpleMeterRegistry();
+        dataSource = new ConnectionHoldTimeDataSource(targetDataSource, () -> meterRegistry);
+        when(targetDataSource.getConnection()).thenReturn(targetConnection);
+    }
+
+    @Test
+    void getConnection_InsideServiceMethod_RecordsHoldTimeForThatMethodOnce() throws Exception {
+        // Given
+        String previous = ServiceMethodContext.enter("ProductService.createProduct");
+
+        // When
+        try {
+            Connection connection = dataSource.getConnection();
+            Thread.sleep(20);
+            connection.close();
+            connection.close();
+        } finally {
+            ServiceMethodContext.exit(previous);
+        }
+
+        // Then
+        Timer timer = meterRegistry.get("db.connection.hold").tag("method", "ProductService.createProduct").timer();
+        assertThat(timer.count()).isEqualTo(1);
+        assertThat(timer.totalTime(TimeUnit.MILLISECONDS)).isGreaterThanOrEqualTo(20);
+        verify(targetConnection, times(2)).close();
+    }
+
+    @Test
+    void getConnection_OutsideServiceMethod_RecordsHoldTimeAsNone() throws Exception {
+        // When
+        dataSource.getConnection().close();
+
+        // Then
+        assertThat(meterRegistry.get("db.connection.hold").tag("method", ServiceMethodContext.NONE).timer().count())
+                .isEqualTo(1);
+        assertThat(ServiceMethodContext.current()).isEqualTo(ServiceMethodContext.NONE);
+    }
+}
@@ -51,7 +51,7 @@ class AuthControllerTest {
     @Test
     void login_ShouldReturnJwtResponse_WhenAuthenticationSucceeds() {
         // Arrange
-        UserPrincipal userPrincipal = new UserPrincipal(1L, "testUser", "test@example.com", "encodedPass", List.of());
+        UserPrincipal userPrincipal = new UserPrincipal(1L, "testUser", "test@example.com", "encodedPass", List.of(), true);
         Authentication authentication = mock(Authentication.class);
 
         when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class))).thenReturn(authentication);
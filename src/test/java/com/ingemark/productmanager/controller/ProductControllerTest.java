@@ -1,12 +1,20 @@
 package com.ingemark.productmanager.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ingemark.productmanager.exception.InvalidCursorException;
+import com.ingemark.productmanager.exception.ProductExportBusyException;
 import com.ingemark.productmanager.exception.ProductNotFoundException;
+import com.ingemark.productmanager.model.product.ProductExportFormat;
+import com.ingemark.productmanager.model.product.ProductSortField;
+import com.ingemark.productmanager.model.product.request.BatchGetProductsDto;
 import com.ingemark.productmanager.model.product.request.CreateProductDto;
 import com.ingemark.productmanager.model.product.request.SearchProductDto;
 import com.ingemark.productmanager.model.product.request.UpdateProductDto;
 import com.ingemark.productmanager.model.product.response.PagedProductResponseDto;
+import com.ingemark.productmanager.model.product.response.ProductBatchResponseDto;
 import com.ingemark.productmanager.model.product.response.ProductResponseDto;
+import com.ingemark.productmanager.service.ProductExportService;
+import com.ingemark.productmanager.service.ProductImportService;
 import com.ingemark.productmanager.service.ProductService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -14,18 +22,28 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -40,6 +58,12 @@ class ProductControllerTest {
     @MockBean
     private ProductService productService;
 
+    @MockBean
+    private ProductImportService productImportService;
+
+    @MockBean
+    private ProductExportService productExportService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -80,7 +104,9 @@ class ProductControllerTest {
                 0,
                 10,
                 null,
-                true
+                true,
+                null,
+                null
         );
 
         pagedProductResponseDto = new PagedProductResponseDto(
@@ -126,6 +152,89 @@ class ProductControllerTest {
         verify(productService, never()).createProduct(any());
     }
 
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void importProducts_WithNdjson_ShouldStreamResults() throws Exception {
+        // Given
+        doAnswer(invocation -> {
+            OutputStream results = invocation.getArgument(1);
+            results.write("{\"index\":0,\"code\":\"000000000A\"}\n".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(productImportService).importProducts(any(InputStream.class), any(OutputStream.class));
+
+        // When & Then
+        mockMvc.perform(post("/api/products/import")
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(objectMapper.writeValueAsString(createProductDto) + "\n"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string("{\"index\":0,\"code\":\"000000000A\"}\n"));
+    }
+
+    @Test
+    @WithMockUser(roles = "CUSTOMER")
+    void importProducts_WithCustomerRole_ShouldReturnForbidden() throws Exception {
+        // When & Then
+        mockMvc.perform(post("/api/products/import")
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(status().isForbidden());
+
+        verify(productImportService, never()).importProducts(any(), any());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void exportProducts_AsCsvAcceptingGzip_ShouldStreamCompressedAttachment() throws Exception {
+        // Given
+        doAnswer(invocation -> {
+            ProductExportService.Output target = invocation.getArgument(1);
+            try (OutputStream output = target.open()) {
+                output.write("code,name,priceEur,priceUsd,isAvailable\r\n".getBytes(StandardCharsets.UTF_8));
+            }
+            return null;
+        }).when(productExportService).exportProducts(eq(ProductExportFormat.CSV), any());
+
+        // When
+        byte[] body = mockMvc.perform(get("/api/products/export")
+                        .param("format", "CSV")
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("text/csv"))
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"products.csv\""))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        // Then
+        try (InputStream unzipped = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            assertThat(new String(unzipped.readAllBytes(), StandardCharsets.UTF_8))
+                    .isEqualTo("code,name,priceEur,priceUsd,isAvailable\r\n");
+        }
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void exportProducts_WhenTooManyExportsRun_ShouldReturnServiceUnavailable() throws Exception {
+        // Given
+        doThrow(new ProductExportBusyException()).when(productExportService).exportProducts(any(), any());
+
+        // When & Then
+        mockMvc.perform(get("/api/products/export"))
+                .andExpect(status().isServiceUnavailable());
+    }
+
+    @Test
+    @WithMockUser(roles = "CUSTOMER")
+    void exportProducts_WithCustomerRole_ShouldReturnForbidden() throws Exception {
+        // When & Then
+        mockMvc.perform(get("/api/products/export"))
+                .andExpect(status().isForbidden());
+
+        verify(productExportService, never()).exportProducts(any(), any());
+    }
+
     @Test
     @WithMockUser(roles = "ADMIN")
     void createProduct_WithInvalidDto_ShouldReturnBadRequest() throws Exception {
@@ -150,7 +259,7 @@ class ProductControllerTest {
     @WithMockUser(roles = "ADMIN")
     void getProductByCode_WithValidCode_ShouldReturnProduct() throws Exception {
         // Given
-        when(productService.getProductByCode("TEST123456")).thenReturn(productResponseDto);
+        when(productService.getProductByCode("TEST123456", null)).thenReturn(productResponseDto);
 
         // When & Then
         mockMvc.perform(get("/api/products/TEST123456"))
@@ -161,34 +270,58 @@ class ProductControllerTest {
                 .andExpect(jsonPath("$.priceUsd").value(110.00))
                 .andExpect(jsonPath("$.isAvailable").value(true));
 
-        verify(productService).getProductByCode("TEST123456");
+        verify(productService).getProductByCode("TEST123456", null);
     }
 
     @Test
     @WithMockUser(roles = "CUSTOMER")
     void getProductByCode_WithCustomerRole_ShouldReturnProduct() throws Exception {
         // Given
-        when(productService.getProductByCode("TEST123456")).thenReturn(productResponseDto);
+        when(productService.getProductByCode("TEST123456", null)).thenReturn(productResponseDto);
 
         // When & Then
         mockMvc.perform(get("/api/products/TEST123456"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.name").value("Test Product"));
 
-        verify(productService).getProductByCode("TEST123456");
+        verify(productService).getProductByCode("TEST123456", null);
+    }
+
+    @Test
+    @WithMockUser(roles = "CUSTOMER")
+    void getProductByCode_WithCurrency_ShouldReturnConvertedPrice() throws Exception {
+        // Given
+        ProductResponseDto convertedResponse = new ProductResponseDto(
+                "Test Product",
+                "TEST123456",
+                new BigDecimal("100.00"),
+                new BigDecimal("110.00"),
+                true,
+                "CHF",
+                new BigDecimal("94.00")
+        );
+        when(productService.getProductByCode("TEST123456", "CHF")).thenReturn(convertedResponse);
+
+        // When & Then
+        mockMvc.perform(get("/api/products/TEST123456").param("currency", "CHF"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.currency").value("CHF"))
+                .andExpect(jsonPath("$.price").value(94.00));
+
+        verify(productService).getProductByCode("TEST123456", "CHF");
     }
 
     @Test
     @WithMockUser(roles = "ADMIN")
     void getProductByCode_WithInvalidCode_ShouldReturnNotFound() throws Exception {
         // Given
-        when(productService.getProductByCode("INVALID")).thenThrow(new ProductNotFoundException("INVALID"));
+        when(productService.getProductByCode("INVALID", null)).thenThrow(new ProductNotFoundException("INVALID"));
 
         // When & Then
         mockMvc.perform(get("/api/products/INVALID"))
                 .andExpect(status().isNotFound());
 
-        verify(productService).getProductByCode("INVALID");
+        verify(productService).getProductByCode("INVALID", null);
     }
 
     @Test
@@ -197,7 +330,43 @@ class ProductControllerTest {
         mockMvc.perform(get("/api/products/TEST123456"))
                 .andExpect(status().isUnauthorized());
 
-        verify(productService, never()).getProductByCode(any());
+        verify(productService, never()).getProductByCode(any(), any());
+    }
+
+    @Test
+    @WithMockUser(roles = "CUSTOMER")
+    void getProductsByCodes_ShouldReturnFoundProductsAndMissingCodes() throws Exception {
+        // Given
+        BatchGetProductsDto batchDto = new BatchGetProductsDto(List.of("TEST123456", "MISSING123"), null);
+        when(productService.getProductsByCodes(batchDto))
+                .thenReturn(new ProductBatchResponseDto(List.of(productResponseDto), List.of("MISSING123")));
+
+        // When & Then
+        mockMvc.perform(post("/api/products/batch")
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(batchDto)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.products[0].code").value("TEST123456"))
+                .andExpect(jsonPath("$.missingCodes[0]").value("MISSING123"));
+    }
+
+    @Test
+    @WithMockUser(roles = "CUSTOMER")
+    void getProductsByCodes_WithTooManyCodes_ShouldReturnBadRequest() throws Exception {
+        // Given
+        List<String> codes = IntStream.rangeClosed(0, BatchGetProductsDto.MAX_CODES)
+                .mapToObj(i -> "CODE" + i)
+                .toList();
+
+        // When & Then
+        mockMvc.perform(post("/api/products/batch")
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new BatchGetProductsDto(codes, null))))
+                .andExpect(status().isBadRequest());
+
+        verify(productService, never()).getProductsByCodes(any());
     }
 
     @Test
@@ -253,6 +422,44 @@ class ProductControllerTest {
         verify(productService).searchProducts(isNull());
     }
 
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void searchProducts_WithInvalidCursor_ShouldReturnBadRequest() throws Exception {
+        // Given
+        SearchProductDto cursorDto = new SearchProductDto(
+                null, null, null, null, null,
+                null, 5, null, true, null, "not-a-cursor"
+        );
+        when(productService.searchProducts(any(SearchProductDto.class)))
+                .thenThrow(new InvalidCursorException("not-a-cursor"));
+
+        // When & Then
+        mockMvc.perform(post("/api/products/search")
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(cursorDto)))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void searchProducts_WithRelevanceSortWithoutName_ShouldReturnBadRequest() throws Exception {
+        // Given
+        SearchProductDto relevanceDto = new SearchProductDto(
+                null, null, null, null, null,
+                0, 5, ProductSortField.RELEVANCE, true, null, null
+        );
+
+        // When & Then
+        mockMvc.perform(post("/api/products/search")
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(relevanceDto)))
+                .andExpect(status().isBadRequest());
+
+        verify(productService, never()).searchProducts(any());
+    }
+
     @Test
     @WithMockUser(roles = "ADMIN")
     void searchProducts_WithInvalidDto_ShouldReturnBadRequest() throws Exception {
@@ -261,7 +468,7 @@ class ProductControllerTest {
                 null, null, null, null, null,
                 -1, // invalid page
                 25, // invalid size (too large)
-                null, true
+                null, true, null, null
         );
 
         // When & Then
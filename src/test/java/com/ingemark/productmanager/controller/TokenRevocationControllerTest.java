@@ -0,0 +1,155 @@
+package com.ingemark.productmanager.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ingemark.productmanager.configuration.jwt.JwtUtil;
+import com.ingemark.productmanager.model.product.response.ProductResponseDto;
+import com.ingemark.productmanager.model.user.RevokeTokenRequest;
+import com.ingemark.productmanager.model.user.Role;
+import com.ingemark.productmanager.model.user.User;
+import com.ingemark.productmanager.model.user.UserPrincipal;
+import com.ingemark.productmanager.repository.TokenRevocationRepository;
+import com.ingemark.productmanager.repository.UserRepository;
+import com.ingemark.productmanager.service.ProductService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+class TokenRevocationControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private ProductService productService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TokenRevocationRepository tokenRevocationRepository;
+
+    private String username;
+    private String token;
+
+    @BeforeEach
+    void setUp() {
+        // a new user per test, as revocations of earlier tests stay in memory
+        username = "customer-" + UUID.randomUUID();
+        User customer = userRepository.save(User.builder()
+                .username(username)
+                .email(username + "@example.com")
+                .password("encodedPass")
+                .role(Role.CUSTOMER)
+                .enabled(true)
+                .build());
+        token = jwtUtil.generateToken(UserPrincipal.create(customer));
+        when(productService.getProductByCode("TEST123456", null)).thenReturn(
+                new ProductResponseDto("Test Product", "TEST123456", new BigDecimal("100.00"), new BigDecimal("110.00"), true));
+    }
+
+    @AfterEach
+    void tearDown() {
+        tokenRevocationRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void revokeToken_RejectsTheTokenFromNowOn() throws Exception {
+        // Given
+        mockMvc.perform(get("/api/products/TEST123456").header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+
+        // When
+        mockMvc.perform(post("/api/admin/revocations/tokens")
+                        .with(user("admin").roles("ADMIN"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new RevokeTokenRequest(token))))
+                .andExpect(status().isNoContent());
+
+        // Then
+        mockMvc.perform(get("/api/products/TEST123456").header("Authorization", "Bearer " + token))
+                .andExpect(status().isUnauthorized());
+        assertThat(tokenRevocationRepository.findAll()).singleElement()
+                .satisfies(revocation -> assertThat(revocation.getJti()).isEqualTo(jwtUtil.parseToken(token).getId()));
+    }
+
+    @Test
+    void revokeUser_RejectsTokensIssuedBefore() throws Exception {
+        // When
+        mockMvc.perform(post("/api/admin/revocations/users/" + username).with(user("admin").roles("ADMIN")))
+                .andExpect(status().isNoContent());
+
+        // Then
+        mockMvc.perform(get("/api/products/TEST123456").header("Authorization", "Bearer " + token))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void revokeUser_AcceptsTokensOfLoginsRightAfterIt() throws Exception {
+        // Given
+        mockMvc.perform(post("/api/admin/revocations/users/" + username).with(user("admin").roles("ADMIN")))
+                .andExpect(status().isNoContent());
+
+        // When
+        String laterToken = jwtUtil.generateToken(UserPrincipal.create(userRepository.findByUsername(username).orElseThrow()));
+
+        // Then
+        mockMvc.perform(get("/api/products/TEST123456").header("Authorization", "Bearer " + laterToken))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/products/TEST123456").header("Authorization", "Bearer " + token))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void revokeUser_WithUnknownUser_ReturnsNotFound() throws Exception {
+        // When & Then
+        mockMvc.perform(post("/api/admin/revocations/users/unknown").with(user("admin").roles("ADMIN")))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void revokeToken_WithInvalidToken_ReturnsBadRequest() throws Exception {
+        // When & Then
+        mockMvc.perform(post("/api/admin/revocations/tokens")
+                        .with(user("admin").roles("ADMIN"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new RevokeTokenRequest("not-a-token"))))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void revokeToken_AsCustomer_IsForbidden() throws Exception {
+        // When & Then
+        mockMvc.perform(post("/api/admin/revocations/tokens")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new RevokeTokenRequest(token))))
+                .andExpect(status().isForbidden());
+    }
+}
@@ -0,0 +1,104 @@
+package com.ingemark.productmanager.repository;
+
+import com.ingemark.productmanager.model.product.Product;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Counts the JDBC statements Hibernate prepares for multi-row writes, with the batch size of application.yml (50)
+ * and ids from pooled sequences reserving 50 ids per nextval call.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+class ProductBatchInsertTest {
+
+    private static final int PRODUCTS = 120;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void saveAll_BatchesInsertsAndReservesIdsInBlocks() {
+        // Given
+        List<Product> products = IntStream.range(0, PRODUCTS).mapToObj(ProductBatchInsertTest::product).toList();
+
+        // When
+        productRepository.saveAll(products);
+        productRepository.flush();
+
+        // Then
+        // 3 batches of inserts and 3 nextval calls, instead of one INSERT per product
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(PRODUCTS);
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(6);
+        assertThat(products).extracting(Product::getId).doesNotHaveDuplicates().doesNotContainNull();
+    }
+
+    @Test
+    void saveAll_WhenUpdatingManyProducts_BatchesUpdates() {
+        // Given
+        List<Product> products = productRepository.saveAll(
+                IntStream.range(0, PRODUCTS).mapToObj(ProductBatchInsertTest::product).toList());
+        productRepository.flush();
+        statistics.clear();
+
+        // When
+        products.forEach(product -> product.setPriceEur(product.getPriceEur().add(BigDecimal.ONE)));
+        productRepository.flush();
+
+        // Then
+        assertThat(statistics.getEntityUpdateCount()).isEqualTo(PRODUCTS);
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(3);
+    }
+
+    @Test
+    void insertAll_TakesIdsFromTheSameSequenceAsPersistedProducts() {
+        // Given
+        Product persisted = productRepository.saveAndFlush(product(0));
+
+        // When
+        List<Product> inserted = IntStream.range(1, PRODUCTS).mapToObj(ProductBatchInsertTest::product).toList();
+        productRepository.insertAll(inserted);
+        entityManager.clear();
+
+        // Then
+        assertThat(inserted).extracting(Product::getId).doesNotContain(persisted.getId()).doesNotHaveDuplicates();
+        assertThat(productRepository.count()).isEqualTo(PRODUCTS);
+    }
+
+    private static Product product(int i) {
+        return Product.builder()
+                .code(String.format("%010d", i))
+                .name("Product " + i)
+                .priceEur(new BigDecimal("10.00"))
+                .priceUsd(new BigDecimal("11.00"))
+                .isAvailable(true)
+                .build();
+    }
+}
@@ -0,0 +1,82 @@
+package com.ingemark.productmanager.repository;
+
+import com.ingemark.productmanager.configuration.ProductCodeAllocatorConfig;
+import com.ingemark.productmanager.service.ProductCodeAllocator;
+import com.ingemark.productmanager.util.ProductCode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs ProductCodeAllocator against real sequences. The partitioned products table only enforces unique
+ * (code, created_at), so the allocator alone keeps codes unique across years.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@Import(ProductCodeSequences.class)
+class ProductCodeSequencesTest {
+
+    private static final int BLOCK_SIZE = 10;
+
+    @Autowired
+    private ProductCodeSequences productCodeSequences;
+
+    private final List<ProductCodeAllocator> allocators = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        allocators.forEach(ProductCodeAllocator::shutdown);
+    }
+
+    @Test
+    void increment_ReturnsTheIncrementOfTheSequenceOrNullIfItDoesNotExist() {
+        // When
+        productCodeSequences.create(2040, BLOCK_SIZE);
+
+        // Then
+        assertThat(productCodeSequences.increment(2040)).isEqualTo(BLOCK_SIZE);
+        assertThat(productCodeSequences.increment(2041)).isNull();
+    }
+
+    @Test
+    void next_FromTwoNodesAcrossYears_NeverRepeatsACode() {
+        // Given
+        ProductCodeAllocator first = allocator();
+        ProductCodeAllocator second = allocator();
+        List<Integer> years = List.of(2030, 2031, 2032);
+        List<Long> codes = new ArrayList<>();
+
+        // When
+        // every sequence starts at 1, and the nodes keep switching years, so each block of a year follows one of
+        // another year with the same sequence values
+        for (int round = 0; round < 5 * BLOCK_SIZE; round++) {
+            for (int year : years) {
+                codes.add(first.next(year));
+                codes.add(second.next(year));
+            }
+        }
+
+        // Then
+        assertThat(codes).hasSize(years.size() * 10 * BLOCK_SIZE).doesNotHaveDuplicates();
+        assertThat(codes.stream().map(ProductCode::encode)).doesNotHaveDuplicates();
+        for (int i = 0; i < codes.size(); i++) {
+            assertThat(ProductCode.year(codes.get(i))).isEqualTo(years.get(i / 2 % years.size()));
+        }
+    }
+
+    private ProductCodeAllocator allocator() {
+        ProductCodeAllocatorConfig config = new ProductCodeAllocatorConfig();
+        config.setBlockSize(BLOCK_SIZE);
+        ProductCodeAllocator allocator = new ProductCodeAllocator(productCodeSequences, config);
+        allocators.add(allocator);
+        return allocator;
+    }
+}
@@ -0,0 +1,138 @@
+package com.ingemark.productmanager.repository;
+
+import com.ingemark.productmanager.model.product.Product;
+import com.ingemark.productmanager.util.ProductCode;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs schema.sql on PostgreSQL over the plain products table Hibernate creates, as on the first startup of a
+ * database created before products were partitioned. Skipped where Docker is not available.
+ */
+@DataJpaTest(properties = {"spring.jpa.hibernate.ddl-auto=create-drop", "spring.sql.init.mode=never"})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+class ProductPartitionMigrationTest {
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static final int YEAR = LocalDate.now().getYear();
+
+    private static final String YEARLY_CODE = ProductCode.encode(ProductCode.number(YEAR, 1));
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    void partitionProducts_MovesRowsIntoThePartitionsOfTheirYears() {
+        // Given
+        saveProducts();
+
+        // When
+        runSchemaScript();
+
+        // Then
+        assertThat(jdbcTemplate.queryForObject("SELECT relkind FROM pg_class WHERE oid = 'products'::regclass",
+                String.class)).isEqualTo("p");
+        assertThat(countRows("products_" + (YEAR - 1))).isEqualTo(1);
+        assertThat(countRows("products_" + YEAR)).isEqualTo(2);
+        assertThat(countRows("products_" + (YEAR + 1))).isZero();
+        assertThat(productRepository.findByCode(YEARLY_CODE)).map(Product::getName).contains("Desk");
+        assertThat(productRepository.findByCode("000000000A")).map(Product::getName).contains("Chair");
+    }
+
+    @Test
+    void partitionProducts_OnAPartitionedTable_KeepsRowsAndCreatesTheIndexesOnce() {
+        // Given
+        saveProducts();
+        runSchemaScript();
+
+        // When
+        runSchemaScript();
+
+        // Then
+        assertThat(countRows("products")).isEqualTo(3);
+        assertThat(jdbcTemplate.queryForList("SELECT indexname FROM pg_indexes WHERE tablename = 'products'",
+                String.class)).containsExactlyInAnyOrder(
+                "products_pkey",
+                "products_code_created_at_key",
+                "idx_products_code_number",
+                "idx_products_name_code",
+                "idx_products_price_eur_code",
+                "idx_products_updated_at",
+                "idx_products_name_normalized_trgm");
+    }
+
+    @Test
+    void partitionProducts_RejectsASecondRowWithTheSameCodeAndCreationTime() {
+        // Given
+        saveProducts();
+        runSchemaScript();
+
+        // When & Then
+        assertThatThrownBy(() -> jdbcTemplate.update("""
+                INSERT INTO products (id, code, code_number, name, price_eur, price_usd, is_available, created_at)
+                SELECT id + 1000, code, code_number, name, price_eur, price_usd, is_available, created_at
+                FROM products WHERE code = ?""", YEARLY_CODE))
+                .isInstanceOf(DuplicateKeyException.class);
+    }
+
+    private void saveProducts() {
+        productRepository.saveAllAndFlush(List.of(
+                product("000000000A", "Chair", LocalDateTime.of(YEAR - 1, 6, 1, 12, 0)),
+                product("000000000B", "Bench", LocalDateTime.of(YEAR, 1, 1, 0, 0)),
+                product(YEARLY_CODE, "Desk", LocalDateTime.now())
+        ));
+        entityManager.clear();
+    }
+
+    private void runSchemaScript() {
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(dataSource);
+    }
+
+    private int countRows(String table) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Integer.class);
+    }
+
+    private Product product(String code, String name, LocalDateTime createdAt) {
+        return Product.builder()
+                .code(code)
+                .name(name)
+                .priceEur(new BigDecimal("10.00"))
+                .priceUsd(new BigDecimal("11.00"))
+                .isAvailable(true)
+                .createdAt(createdAt)
+                .build();
+    }
+}
@@ -0,0 +1,243 @@
+package com.ingemark.productmanager.repository;
+
+import com.ingemark.productmanager.model.product.Product;
+import com.ingemark.productmanager.model.product.ProductCursor;
+import com.ingemark.productmanager.model.product.ProductSortField;
+import com.ingemark.productmanager.model.product.RepricingJob;
+import com.ingemark.productmanager.model.product.RepricingJobStatus;
+import com.ingemark.productmanager.model.product.response.ProductResponseDto;
+import com.ingemark.productmanager.util.ProductCode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+class ProductRepositoryTest {
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private RepricingJobRepository repricingJobRepository;
+
+    @BeforeEach
+    void setUp() {
+        // duplicate names and prices, so the code tiebreaker decides the order within them
+        productRepository.saveAll(List.of(
+                product("000000000A", "Chair", "20.00"),
+                product("000000000B", "Apple", "20.00"),
+                product("000000000C", "Chair", "5.00"),
+                product("000000000D", "Bench", "20.00"),
+                product("000000000E", "Chair", "99.99"),
+                product("000000000F", "Apple", "5.00"),
+                product("000000000G", "Desk", "150.00")
+        ));
+    }
+
+    @Test
+    void findProductsAfterCursor_WalkingAllPagesByName_ReturnsEveryProductOnceInOrder() {
+        assertWalk(ProductSortField.NAME, true, Comparator.comparing(Product::getName).thenComparing(Product::getCode));
+        assertWalk(ProductSortField.NAME, false, Comparator.comparing(Product::getName).thenComparing(Product::getCode).reversed());
+    }
+
+    @Test
+    void findProductsAfterCursor_WalkingAllPagesByPrice_ReturnsEveryProductOnceInOrder() {
+        assertWalk(ProductSortField.PRICE, true, Comparator.comparing(Product::getPriceEur).thenComparing(Product::getCode));
+        assertWalk(ProductSortField.PRICE, false, Comparator.comparing(Product::getPriceEur).thenComparing(Product::getCode).reversed());
+    }
+
+    @Test
+    void findProductsAfterCursor_WithFilters_AppliesThemAfterCursor() {
+        // Given
+        ProductCursor after = new ProductCursor(ProductSortField.NAME, true, "Apple", "000000000F");
+        Specification<Product> filter = ProductSpecifications.nameContains("chair")
+                .and(ProductSpecifications.priceEurBetween(new BigDecimal("10.00"), null));
+
+        // When
+        List<Product> products = productRepository.findProductsAfterCursor(filter, ProductSortField.NAME, true, after, 10);
+
+        // Then
+        assertThat(products).extracting(Product::getCode).containsExactly("000000000A", "000000000E");
+    }
+
+    @Test
+    void save_WhenNameChanges_RecomputesNormalizedName() {
+        // Given
+        Product product = productRepository.findByCode("000000000A").orElseThrow();
+
+        // When
+        product.setName("Stolica Đurđa");
+        productRepository.flush();
+
+        // Then
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT name_normalized FROM products WHERE code = '000000000A'", String.class))
+                .isEqualTo("stolica durda");
+    }
+
+    @Test
+    void insertAll_InsertsProductsWithNormalizedNames() {
+        // Given
+        List<Product> products = List.of(
+                product("000000000H", "Stolica Đurđa", "10.00"),
+                product("000000000I", "Lamp", "30.00"));
+
+        // When
+        productRepository.insertAll(products);
+
+        // Then
+        assertThat(productRepository.findByCode("000000000I")).get()
+                .extracting(Product::getName, Product::getIsAvailable)
+                .containsExactly("Lamp", true);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT name_normalized FROM products WHERE code = '000000000H'", String.class))
+                .isEqualTo("stolica durda");
+    }
+
+    @Test
+    void findByCode_LooksUpTheDecodedCodeNumber() {
+        // When & Then
+        assertThat(productRepository.findByCode("000000000G")).get().extracting(Product::getName).isEqualTo("Desk");
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT code_number FROM products WHERE code = '000000000G'", Long.class)).isEqualTo(16L);
+        assertThat(productRepository.findByCode("000000000g")).isEmpty();
+        assertThat(productRepository.findByCode("000000000Z")).isEmpty();
+    }
+
+    @Test
+    void findByCode_WithCodeOfAYear_LooksOnlyAtProductsCreatedInThatYear() {
+        // Given
+        String code = ProductCode.encode(ProductCode.number(2026, 7));
+        Product product = product(code, "Shelf", "40.00");
+        product.setCreatedAt(LocalDateTime.of(2026, 12, 31, 23, 59, 59));
+        productRepository.save(product);
+        Product misdated = product(ProductCode.encode(ProductCode.number(2026, 8)), "Stool", "15.00");
+        misdated.setCreatedAt(LocalDateTime.of(2027, 1, 1, 0, 0));
+        productRepository.save(misdated);
+
+        // When & Then
+        assertThat(productRepository.findByCode(code)).get().extracting(Product::getName).isEqualTo("Shelf");
+        assertThat(productRepository.findByCode(misdated.getCode())).isEmpty();
+    }
+
+    @Test
+    void repriceUsdInIdRangeForJob_UpdatesOnlyWhileJobIsRunningOnTheNode() {
+        // Given
+        RepricingJob job = repricingJobRepository.saveAndFlush(RepricingJob.builder()
+                .rate(new BigDecimal("2.00"))
+                .effectiveDate(LocalDate.of(2025, 8, 1))
+                .status(RepricingJobStatus.RUNNING)
+                .maxId(Long.MAX_VALUE)
+                .chunkSize(10)
+                .completedUpToId(0L)
+                .rowsUpdated(0L)
+                .owner("node-a")
+                .heartbeatAt(LocalDateTime.now())
+                .startedAt(LocalDateTime.now())
+                .build());
+
+        // When
+        int byOtherNode = productRepository.repriceUsdInIdRangeForJob(job.getId(), "node-b", job.getRate(), 0, Long.MAX_VALUE);
+        int byOwner = productRepository.repriceUsdInIdRangeForJob(job.getId(), "node-a", job.getRate(), 0, Long.MAX_VALUE);
+        repricingJobRepository.supersedeRunningJobs(-1L, RepricingJobStatus.RUNNING, RepricingJobStatus.SUPERSEDED, LocalDateTime.now());
+        int afterSupersede = productRepository.repriceUsdInIdRangeForJob(job.getId(), "node-a", job.getRate(), 0, Long.MAX_VALUE);
+
+        // Then
+        assertThat(byOtherNode).isZero();
+        assertThat(byOwner).isEqualTo(7);
+        assertThat(afterSupersede).isZero();
+    }
+
+    @Test
+    void findAllByCodes_ReturnsOnlyExistingProducts() {
+        // When
+        List<Product> products = productRepository.findAllByCodes(List.of("000000000G", "000000000Z", "000000000B", "invalid"));
+
+        // Then
+        assertThat(products).extracting(Product::getCode).containsExactlyInAnyOrder("000000000G", "000000000B");
+    }
+
+    @Test
+    void findAllByCodes_WithCodesOfYearsAndNotBackfilledCodes_LooksEachUpLikeFindByCode() {
+        // Given
+        int year = LocalDate.now().getYear();
+        Product lastYear = product(ProductCode.encode(ProductCode.number(year - 1, 7)), "Shelf", "40.00");
+        lastYear.setCreatedAt(LocalDateTime.of(year - 1, 6, 1, 12, 0));
+        Product thisYear = product(ProductCode.encode(ProductCode.number(year, 7)), "Lamp", "25.00");
+        Product misdated = product(ProductCode.encode(ProductCode.number(year - 1, 8)), "Stool", "15.00");
+        misdated.setCreatedAt(LocalDateTime.of(year, 1, 1, 0, 0));
+        productRepository.saveAllAndFlush(List.of(lastYear, thisYear, misdated));
+        jdbcTemplate.update("UPDATE products SET code_number = NULL WHERE code = '000000000B'");
+
+        // When
+        List<Product> products = productRepository.findAllByCodes(List.of(
+                lastYear.getCode(), thisYear.getCode(), misdated.getCode(), "000000000B", "000000000G"));
+
+        // Then
+        assertThat(products).extracting(Product::getName).containsExactlyInAnyOrder("Shelf", "Lamp", "Apple", "Desk");
+    }
+
+    @Test
+    void streamAllForExport_ReturnsEveryProductInIdOrder() {
+        // When
+        List<ProductResponseDto> exported;
+        try (Stream<ProductResponseDto> products = productRepository.streamAllForExport()) {
+            exported = products.toList();
+        }
+
+        // Then
+        assertThat(exported).extracting(ProductResponseDto::code).containsExactly(
+                "000000000A", "000000000B", "000000000C", "000000000D", "000000000E", "000000000F", "000000000G");
+        assertThat(exported.get(6)).isEqualTo(
+                new ProductResponseDto("Desk", "000000000G", new BigDecimal("150.00"), new BigDecimal("150.00"), true));
+    }
+
+    private void assertWalk(ProductSortField sortBy, boolean ascending, Comparator<Product> expectedOrder) {
+        List<String> expected = productRepository.findAll().stream()
+                .sorted(expectedOrder)
+                .map(Product::getCode)
+                .toList();
+
+        List<String> walked = new ArrayList<>();
+        ProductCursor after = null;
+        List<Product> page;
+        do {
+            page = productRepository.findProductsAfterCursor(ProductSpecifications.nameContains(null), sortBy, ascending, after, 2);
+            page.forEach(product -> walked.add(product.getCode()));
+            if (!page.isEmpty()) {
+                String token = ProductCursor.after(sortBy, ascending, page.get(page.size() - 1)).encode();
+                after = ProductCursor.decode(token, sortBy, ascending);
+            }
+        } while (page.size() == 2);
+
+        assertThat(walked).containsExactlyElementsOf(expected);
+    }
+
+    private Product product(String code, String name, String priceEur) {
+        return Product.builder()
+                .code(code)
+                .name(name)
+                .priceEur(new BigDecimal(priceEur))
+                .priceUsd(new BigDecimal(priceEur))
+                .isAvailable(true)
+                .build();
+    }
+}
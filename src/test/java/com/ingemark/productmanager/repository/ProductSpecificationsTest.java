@@ -0,0 +1,226 @@
+package com.ingemark.productmanager.repository;
+
+import com.ingemark.productmanager.model.product.Product;
+import com.ingemark.productmanager.model.product.request.SearchProductDto;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks the SQL generated for every combination of search filters: each set filter appears exactly once,
+ * filters that are not set leave no trace, and no catch-all "IS NULL OR" condition is emitted.
+ * Also checks both variants of the relevance order.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.ingemark.productmanager.repository.ProductSpecificationsTest$CapturingStatementInspector")
+@ActiveProfiles("test")
+class ProductSpecificationsTest {
+
+    private static final String NAME_PREDICATE = "p1_0.name_normalized like";
+    private static final String MIN_EUR_PREDICATE = "p1_0.price_eur>=";
+    private static final String MAX_EUR_PREDICATE = "p1_0.price_eur<=";
+    private static final String EUR_RANGE_PREDICATE = "p1_0.price_eur between";
+    private static final String MIN_USD_PREDICATE = "p1_0.price_usd>=";
+    private static final String MAX_USD_PREDICATE = "p1_0.price_usd<=";
+    private static final String USD_RANGE_PREDICATE = "p1_0.price_usd between";
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        // DDL commits on H2, so it runs before the test data is inserted
+        jdbcTemplate.execute("CREATE ALIAS IF NOT EXISTS SIMILARITY FOR '"
+                + TrigramFunctions.class.getName() + ".similarity'");
+        productRepository.saveAll(List.of(
+                product("000000000A", "Desk lamp", "15.00", "17.40"),
+                product("000000000B", "Desk", "150.00", "174.00"),
+                product("000000000C", "Chair", "45.00", "52.20"),
+                product("000000000D", "Lamp shade", "8.00", "9.28")
+        ));
+        CapturingStatementInspector.STATEMENTS.clear();
+    }
+
+    static Stream<Arguments> filterCombinations() {
+        return IntStream.range(0, 32).mapToObj(mask -> Arguments.of(new SearchProductDto(
+                (mask & 1) != 0 ? "LAMP" : null,
+                (mask & 2) != 0 ? new BigDecimal("10.00") : null,
+                (mask & 4) != 0 ? new BigDecimal("100.00") : null,
+                (mask & 8) != 0 ? new BigDecimal("11.00") : null,
+                (mask & 16) != 0 ? new BigDecimal("120.00") : null,
+                0, 20, null, true, null, null
+        )));
+    }
+
+    @ParameterizedTest
+    @MethodSource("filterCombinations")
+    void matching_EmitsOnlyThePredicatesThatAreSet(SearchProductDto search) {
+        // When
+        Page<Product> page = productRepository.findAll(ProductSpecifications.matching(search),
+                PageRequest.of(0, 20, Sort.by("name")));
+
+        // Then
+        String sql = selectStatement();
+        assertThat(sql).doesNotContain("is null");
+        assertPredicate(sql, search.name() != null, NAME_PREDICATE);
+        assertRange(sql, search.minPriceEur(), search.maxPriceEur(), MIN_EUR_PREDICATE, MAX_EUR_PREDICATE, EUR_RANGE_PREDICATE);
+        assertRange(sql, search.minPriceUsd(), search.maxPriceUsd(), MIN_USD_PREDICATE, MAX_USD_PREDICATE, USD_RANGE_PREDICATE);
+        if (search.name() == null && search.minPriceEur() == null && search.maxPriceEur() == null
+                && search.minPriceUsd() == null && search.maxPriceUsd() == null) {
+            assertThat(sql).doesNotContain(" where ");
+        }
+
+        List<String> expectedCodes = productRepository.findAll(Sort.by("name")).stream()
+                .filter(matches(search))
+                .map(Product::getCode)
+                .toList();
+        assertThat(page.getContent()).extracting(Product::getCode).containsExactlyElementsOf(expectedCodes);
+    }
+
+    @Test
+    void nameContains_WithoutDiacritics_MatchesNameWithDiacritics() {
+        // Given
+        productRepository.save(product("000000000E", "Čokolada s lješnjacima", "3.50", "4.06"));
+
+        // When
+        List<Product> products = productRepository.findAll(ProductSpecifications.nameContains("COKOLADA S LJES"));
+
+        // Then
+        assertThat(products).extracting(Product::getCode).containsExactly("000000000E");
+    }
+
+    @Test
+    void orderedByRelevanceTo_WithoutTrigramSimilarity_RanksEarlierAndShorterMatchesFirst() {
+        // Given
+        Specification<Product> search = ProductSpecifications.nameContains("lamp")
+                .and(ProductSpecifications.orderedByRelevanceTo("lamp", false));
+
+        // When
+        Page<Product> page = productRepository.findAll(search, PageRequest.of(0, 20));
+
+        // Then
+        assertThat(page.getContent()).extracting(Product::getName).containsExactly("Lamp shade", "Desk lamp");
+        assertThat(page.getTotalElements()).isEqualTo(2);
+        assertThat(selectStatement()).doesNotContain("similarity(");
+    }
+
+    @Test
+    void orderedByRelevanceTo_WithTrigramSimilarity_RanksBySimilarity() {
+        // Given
+        productRepository.save(product("000000000E", "Lamp", "20.00", "23.20"));
+        CapturingStatementInspector.STATEMENTS.clear();
+        Specification<Product> search = ProductSpecifications.nameContains("lamp")
+                .and(ProductSpecifications.orderedByRelevanceTo("lamp", true));
+
+        // When
+        Page<Product> page = productRepository.findAll(search, PageRequest.of(0, 20));
+
+        // Then
+        assertThat(page.getContent()).extracting(Product::getName).containsExactly("Lamp", "Lamp shade", "Desk lamp");
+        assertThat(selectStatement()).contains("similarity(p1_0.name_normalized,");
+    }
+
+    private static void assertRange(String sql, BigDecimal min, BigDecimal max,
+                                     String minPredicate, String maxPredicate, String rangePredicate) {
+        assertPredicate(sql, min != null && max != null, rangePredicate);
+        assertPredicate(sql, min != null && max == null, minPredicate);
+        assertPredicate(sql, min == null && max != null, maxPredicate);
+    }
+
+    private static void assertPredicate(String sql, boolean expected, String predicate) {
+        if (expected) {
+            assertThat(sql).containsOnlyOnce(predicate);
+        } else {
+            assertThat(sql).doesNotContain(predicate);
+        }
+    }
+
+    private static String selectStatement() {
+        return CapturingStatementInspector.STATEMENTS.stream()
+                .filter(statement -> statement.startsWith("select p1_0.id"))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private static Predicate<Product> matches(SearchProductDto search) {
+        return product -> (search.name() == null || product.getName().toLowerCase().contains(search.name().toLowerCase()))
+                && inRange(product.getPriceEur(), search.minPriceEur(), search.maxPriceEur())
+                && inRange(product.getPriceUsd(), search.minPriceUsd(), search.maxPriceUsd());
+    }
+
+    private static boolean inRange(BigDecimal price, BigDecimal min, BigDecimal max) {
+        return (min == null || price.compareTo(min) >= 0) && (max == null || price.compareTo(max) <= 0);
+    }
+
+    private static Product product(String code, String name, String priceEur, String priceUsd) {
+        return Product.builder()
+                .code(code)
+                .name(name)
+                .priceEur(new BigDecimal(priceEur))
+                .priceUsd(new BigDecimal(priceUsd))
+                .isAvailable(true)
+                .build();
+    }
+
+    public static class CapturingStatementInspector implements StatementInspector {
+
+        static final Queue<String> STATEMENTS = new ConcurrentLinkedQueue<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql.replaceAll("\\s+", " "));
+            return sql;
+        }
+    }
+
+    /**
+     * Stand-in for pg_trgm similarity() on H2: shared trigrams of the padded strings over all their trigrams.
+     */
+    public static class TrigramFunctions {
+
+        public static double similarity(String left, String right) {
+            Set<String> leftTrigrams = trigrams(left);
+            Set<String> rightTrigrams = trigrams(right);
+            Set<String> shared = new HashSet<>(leftTrigrams);
+            shared.retainAll(rightTrigrams);
+            Set<String> all = new HashSet<>(leftTrigrams);
+            all.addAll(rightTrigrams);
+            return all.isEmpty() ? 0 : (double) shared.size() / all.size();
+        }
+
+        private static Set<String> trigrams(String value) {
+            String padded = "  " + value + " ";
+            Set<String> trigrams = new HashSet<>();
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                trigrams.add(padded.substring(i, i + 3));
+            }
+            return trigrams;
+        }
+    }
+}
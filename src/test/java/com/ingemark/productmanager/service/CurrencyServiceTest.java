@@ -1,24 +1,40 @@
 package com.ingemark.productmanager.service;
 
+import com.ingemark.productmanager.client.CircuitOpenException;
+import com.ingemark.productmanager.client.HnbClient;
+import com.ingemark.productmanager.exception.ExchangeRateNotFoundException;
+import com.ingemark.productmanager.exception.ExchangeRateUnavailableException;
+import com.ingemark.productmanager.exception.UnsupportedCurrencyException;
+import com.ingemark.productmanager.model.currency.ExchangeRate;
+import com.ingemark.productmanager.model.currency.ExchangeRateChangedEvent;
 import com.ingemark.productmanager.model.product.response.HnbRateResponse;
-import org.junit.jupiter.api.BeforeEach;
+import com.ingemark.productmanager.repository.ExchangeRateRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpStatus;
-import org.springframework.http.ResponseEntity;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.test.context.ActiveProfiles;
-import org.springframework.test.util.ReflectionTestUtils;
-import org.springframework.web.client.RestTemplate;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.anyString;
-import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -27,24 +43,27 @@ import static org.mockito.Mockito.when;
 class CurrencyServiceTest {
 
     @Mock
-    private RestTemplate restTemplate;
+    private HnbClient hnbClient;
 
     @Mock
     private MessageService messageService;
 
+    @Mock
+    private ExchangeRateRepository exchangeRateRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private CurrencyService currencyService;
 
-    @Value("${hnb.api.url}")
-    private String hnbApiUrl;
-
 
     @Test
     void calculateUsdPrice_WithValidApiResponse_ReturnsCalculatedPrice() {
-        HnbRateResponse rateResponse = new HnbRateResponse("USD", "1,20");
-        ResponseEntity<HnbRateResponse[]> responseEntity = new ResponseEntity<>(new HnbRateResponse[]{rateResponse}, HttpStatus.OK);
+        HnbRateResponse rateResponse = new HnbRateResponse("USD", "1,20", LocalDate.of(2025, 8, 1));
+        HnbRateResponse[] rates = new HnbRateResponse[]{rateResponse};
 
-        when(restTemplate.getForEntity(hnbApiUrl + "USD", HnbRateResponse[].class)).thenReturn(responseEntity);
+        when(hnbClient.fetchRates()).thenReturn(rates);
 
         BigDecimal priceEur = new BigDecimal("100");
         BigDecimal expectedUsdPrice = new BigDecimal("120.00");
@@ -52,15 +71,17 @@ class CurrencyServiceTest {
         BigDecimal result = currencyService.calculateUsdPrice(priceEur);
 
         assertEquals(expectedUsdPrice, result);
-        verify(restTemplate).getForEntity(hnbApiUrl + "USD", HnbRateResponse[].class);
+        verify(hnbClient).fetchRates();
     }
 
     @Test
-    void calculateUsdPrice_WhenApiFails_UsesFallbackRate() {
-        when(restTemplate.getForEntity(anyString(), eq(HnbRateResponse[].class))).thenThrow(new RuntimeException("API down"));
+    void calculateUsdPrice_WhenApiFails_UsesLastStoredRate() {
+        when(hnbClient.fetchRates()).thenThrow(new RuntimeException("API down"));
+        when(exchangeRateRepository.findLatestRates())
+                .thenReturn(List.of(storedRate("1.15", LocalDate.of(2025, 7, 31))));
 
         BigDecimal priceEur = new BigDecimal("100");
-        BigDecimal expectedUsdPrice = new BigDecimal("110.00");  // fallback 1.10 * 100
+        BigDecimal expectedUsdPrice = new BigDecimal("115.00");  // last stored 1.15 * 100
 
         BigDecimal result = currencyService.calculateUsdPrice(priceEur);
 
@@ -68,15 +89,181 @@ class CurrencyServiceTest {
     }
 
     @Test
-    void calculateUsdPrice_WhenNoRates_UsesFallbackRate() {
-        ResponseEntity<HnbRateResponse[]> responseEntity = new ResponseEntity<>(new HnbRateResponse[0], HttpStatus.OK);
-        when(restTemplate.getForEntity(anyString(), eq(HnbRateResponse[].class))).thenReturn(responseEntity);
+    void calculateUsdPrice_WhenCircuitIsOpen_ServesLastStoredRateWithoutQueryingAgain() {
+        when(hnbClient.fetchRates()).thenThrow(new CircuitOpenException("HNB"));
+        when(exchangeRateRepository.findLatestRates())
+                .thenReturn(List.of(storedRate("1.15", LocalDate.of(2025, 7, 31))));
 
-        BigDecimal priceEur = new BigDecimal("100");
-        BigDecimal expectedUsdPrice = new BigDecimal("110.00"); // fallback 1.10 * 100
+        currencyService.calculateUsdPrice(new BigDecimal("100"));
+        BigDecimal result = currencyService.calculateUsdPrice(new BigDecimal("10"));
 
-        BigDecimal result = currencyService.calculateUsdPrice(priceEur);
+        assertEquals(new BigDecimal("11.50"), result);
+        verify(exchangeRateRepository, times(1)).findLatestRates();
+        verify(messageService, never()).getMessage(anyString());
+    }
 
-        assertEquals(expectedUsdPrice, result);
+    @Test
+    void calculateUsdPrice_WhenNoRatesAndNothingStored_ThrowsException() {
+        HnbRateResponse[] rates = new HnbRateResponse[0];
+        when(hnbClient.fetchRates()).thenReturn(rates);
+        when(exchangeRateRepository.findLatestRates()).thenReturn(List.of());
+
+        assertThrows(ExchangeRateUnavailableException.class, () -> currencyService.calculateUsdPrice(new BigDecimal("100")));
+    }
+
+    @Test
+    void calculateUsdPrice_WithValidApiResponse_StoresFetchedRate() {
+        HnbRateResponse rateResponse = new HnbRateResponse("USD", "1,20", LocalDate.of(2025, 8, 1));
+        HnbRateResponse[] rates = new HnbRateResponse[]{rateResponse};
+        when(hnbClient.fetchRates()).thenReturn(rates);
+        when(exchangeRateRepository.existsByEffectiveDate(LocalDate.of(2025, 8, 1))).thenReturn(false);
+
+        currencyService.calculateUsdPrice(new BigDecimal("100"));
+
+        verify(exchangeRateRepository).saveAll(List.of(ExchangeRate.builder()
+                .currency("USD")
+                .rate(new BigDecimal("1.20"))
+                .effectiveDate(LocalDate.of(2025, 8, 1))
+                .build()));
+    }
+
+    @Test
+    void loadStoredRates_WithStoredRate_ServesItWithoutCallingApi() {
+        when(exchangeRateRepository.findLatestRates())
+                .thenReturn(List.of(storedRate("1.15", LocalDate.of(2025, 7, 31))));
+
+        currencyService.loadStoredRates();
+        BigDecimal result = currencyService.calculateUsdPrice(new BigDecimal("100"));
+
+        assertEquals(new BigDecimal("115.00"), result);
+        verify(hnbClient, never()).fetchRates();
+    }
+
+    @Test
+    void getRateAsOf_WithStoredRate_ReturnsRateEffectiveOnDate() {
+        ExchangeRate stored = storedRate("1.15", LocalDate.of(2025, 7, 31));
+        when(exchangeRateRepository.findFirstByCurrencyAndEffectiveDateLessThanEqualOrderByEffectiveDateDesc("USD", LocalDate.of(2025, 8, 2)))
+                .thenReturn(Optional.of(stored));
+
+        assertEquals(stored, currencyService.getRateAsOf("usd", LocalDate.of(2025, 8, 2)));
+    }
+
+    @Test
+    void getRateAsOf_WithoutStoredRate_ThrowsException() {
+        when(exchangeRateRepository.findFirstByCurrencyAndEffectiveDateLessThanEqualOrderByEffectiveDateDesc("USD", LocalDate.of(2020, 1, 1)))
+                .thenReturn(Optional.empty());
+
+        assertThrows(ExchangeRateNotFoundException.class, () -> currencyService.getRateAsOf("USD", LocalDate.of(2020, 1, 1)));
+    }
+
+    @Test
+    void calculateUsdPrice_WhenRateIsCached_DoesNotCallApiAgain() {
+        HnbRateResponse rateResponse = new HnbRateResponse("USD", "1,20", LocalDate.of(2025, 8, 1));
+        HnbRateResponse[] rates = new HnbRateResponse[]{rateResponse};
+        when(hnbClient.fetchRates()).thenReturn(rates);
+
+        currencyService.calculateUsdPrice(new BigDecimal("100"));
+        BigDecimal result = currencyService.calculateUsdPrice(new BigDecimal("10"));
+
+        assertEquals(new BigDecimal("12.00"), result);
+        assertNotNull(currencyService.getCacheAge());
+        verify(hnbClient, times(1)).fetchRates();
+    }
+
+    @Test
+    void calculateUsdPrice_WithColdCacheAndConcurrentCallers_FetchesRateOnce() throws Exception {
+        HnbRateResponse rateResponse = new HnbRateResponse("USD", "1,20", LocalDate.of(2025, 8, 1));
+        HnbRateResponse[] rates = new HnbRateResponse[]{rateResponse};
+        CountDownLatch fetchStarted = new CountDownLatch(1);
+        CountDownLatch releaseFetch = new CountDownLatch(1);
+        when(hnbClient.fetchRates()).thenAnswer(invocation -> {
+            fetchStarted.countDown();
+            releaseFetch.await();
+            return rates;
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<BigDecimal>> results = IntStream.range(0, 8)
+                    .mapToObj(i -> executor.submit(() -> currencyService.calculateUsdPrice(new BigDecimal("100"))))
+                    .toList();
+            fetchStarted.await();
+            releaseFetch.countDown();
+
+            for (Future<BigDecimal> result : results) {
+                assertEquals(new BigDecimal("120.00"), result.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        verify(hnbClient, times(1)).fetchRates();
+    }
+
+    @Test
+    void refreshRate_WhenApiFails_KeepsServingCachedRate() {
+        HnbRateResponse rateResponse = new HnbRateResponse("USD", "1,20", LocalDate.of(2025, 8, 1));
+        HnbRateResponse[] rates = new HnbRateResponse[]{rateResponse};
+        when(hnbClient.fetchRates())
+                .thenReturn(rates)
+                .thenThrow(new RuntimeException("API down"));
+
+        assertNull(currencyService.getCacheAge());
+        currencyService.refreshRate();
+        currencyService.refreshRate();
+
+        assertEquals(new BigDecimal("120.00"), currencyService.calculateUsdPrice(new BigDecimal("100")));
+        verify(hnbClient, times(2)).fetchRates();
+    }
+
+    @Test
+    void refreshRate_WhenRateChanges_PublishesRateChangedEvent() {
+        when(exchangeRateRepository.findLatestRates())
+                .thenReturn(List.of(storedRate("1.15", LocalDate.of(2025, 7, 31))));
+        HnbRateResponse rateResponse = new HnbRateResponse("USD", "1,20", LocalDate.of(2025, 8, 1));
+        HnbRateResponse[] rates = new HnbRateResponse[]{rateResponse};
+        when(hnbClient.fetchRates()).thenReturn(rates);
+
+        currencyService.loadStoredRates();
+        currencyService.refreshRate();
+        currencyService.refreshRate();
+
+        verify(eventPublisher, times(1))
+                .publishEvent(new ExchangeRateChangedEvent("USD", new BigDecimal("1.20"), LocalDate.of(2025, 8, 1)));
+    }
+
+    @Test
+    void getRate_WithFullRateList_ServesEveryCurrencyFromSingleCall() {
+        HnbRateResponse[] rates = new HnbRateResponse[]{
+                new HnbRateResponse("CHF", "0,94", LocalDate.of(2025, 8, 1)),
+                new HnbRateResponse("GBP", "0,86", LocalDate.of(2025, 8, 1)),
+                new HnbRateResponse("HUF", "399,50", LocalDate.of(2025, 8, 1)),
+                new HnbRateResponse("USD", "1,20", LocalDate.of(2025, 8, 1))
+        };
+        when(hnbClient.fetchRates()).thenReturn(rates);
+
+        assertEquals(new BigDecimal("0.94"), currencyService.getRate("chf"));
+        assertEquals(new BigDecimal("0.86"), currencyService.getRate("GBP"));
+        assertEquals(new BigDecimal("399.50"), currencyService.getRate("HUF"));
+        assertEquals(BigDecimal.ONE, currencyService.getRate("EUR"));
+        assertEquals(new BigDecimal("1.20"), currencyService.getUsdRate());
+        verify(hnbClient, times(1)).fetchRates();
+    }
+
+    @Test
+    void getRate_WithUnknownCurrency_ThrowsException() {
+        HnbRateResponse rateResponse = new HnbRateResponse("USD", "1,20", LocalDate.of(2025, 8, 1));
+        HnbRateResponse[] rates = new HnbRateResponse[]{rateResponse};
+        when(hnbClient.fetchRates()).thenReturn(rates);
+
+        assertThrows(UnsupportedCurrencyException.class, () -> currencyService.getRate("XYZ"));
+    }
+
+    private ExchangeRate storedRate(String rate, LocalDate effectiveDate) {
+        return ExchangeRate.builder()
+                .currency("USD")
+                .rate(new BigDecimal(rate))
+                .effectiveDate(effectiveDate)
+                .fetchedAt(LocalDateTime.now())
+                .build();
     }
 }
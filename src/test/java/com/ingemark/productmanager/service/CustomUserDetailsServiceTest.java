@@ -1,13 +1,15 @@
 package com.ingemark.productmanager.service;
 
+import com.ingemark.productmanager.cache.UserPrincipalCache;
+import com.ingemark.productmanager.configuration.UserCacheConfig;
 import com.ingemark.productmanager.exception.UserNotFoundException;
 import com.ingemark.productmanager.model.user.Role;
 import com.ingemark.productmanager.model.user.User;
 import com.ingemark.productmanager.model.user.UserPrincipal;
 import com.ingemark.productmanager.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -15,6 +17,8 @@ import org.springframework.security.core.userdetails.UserDetails;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -23,9 +27,13 @@ class CustomUserDetailsServiceTest {
     @Mock
     private UserRepository userRepository;
 
-    @InjectMocks
     private CustomUserDetailsService customUserDetailsService;
 
+    @BeforeEach
+    void setUp() {
+        customUserDetailsService = new CustomUserDetailsService(userRepository, new UserPrincipalCache(new UserCacheConfig()));
+    }
+
     @Test
     void loadUserByUsername_WhenUserExists_ReturnsUserPrincipal() {
         User user = User.builder()
@@ -50,4 +58,60 @@ class CustomUserDetailsServiceTest {
 
         assertThrows(UserNotFoundException.class, () -> customUserDetailsService.loadUserByUsername("missing"));
     }
+
+    @Test
+    void updatePassword_WhenUserExists_StoresNewHash() {
+        User user = User.builder()
+                .id(1L)
+                .username("testuser")
+                .email("test@example.com")
+                .password("$2a$04$weakhash")
+                .role(Role.CUSTOMER)
+                .build();
+
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(user));
+
+        UserDetails userDetails = customUserDetailsService.updatePassword(UserPrincipal.create(user), "$2a$12$stronghash");
+
+        assertEquals("$2a$12$stronghash", user.getPassword());
+        assertEquals("$2a$12$stronghash", userDetails.getPassword());
+    }
+
+    @Test
+    void loadUserByUsername_WhenLoadedBefore_ReturnsCachedUserWithoutQuery() {
+        User user = User.builder()
+                .id(1L)
+                .username("testuser")
+                .email("test@example.com")
+                .password("encodedpass")
+                .role(Role.CUSTOMER)
+                .build();
+
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(user));
+
+        UserDetails first = customUserDetailsService.loadUserByUsername("testuser");
+        UserDetails second = customUserDetailsService.loadUserByUsername("testuser");
+
+        assertSame(first, second);
+        verify(userRepository, times(1)).findByUsername("testuser");
+    }
+
+    @Test
+    void loadUserByUsername_AfterPasswordUpdate_ReloadsUser() {
+        User user = User.builder()
+                .id(1L)
+                .username("testuser")
+                .email("test@example.com")
+                .password("$2a$04$weakhash")
+                .role(Role.CUSTOMER)
+                .build();
+
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(user));
+
+        UserDetails cached = customUserDetailsService.loadUserByUsername("testuser");
+        customUserDetailsService.updatePassword(cached, "$2a$12$stronghash");
+        UserDetails reloaded = customUserDetailsService.loadUserByUsername("testuser");
+
+        assertEquals("$2a$12$stronghash", reloaded.getPassword());
+    }
 }
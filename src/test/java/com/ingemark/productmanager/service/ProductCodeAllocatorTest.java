@@ -0,0 +1,223 @@
+package com.ingemark.productmanager.service;
+
+import com.ingemark.productmanager.configuration.ProductCodeAllocatorConfig;
+import com.ingemark.productmanager.repository.ProductCodeSequences;
+import com.ingemark.productmanager.util.ProductCode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntToLongFunction;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ProductCodeAllocatorTest {
+
+    private static final int YEAR = 2026;
+    private static final int THREADS = 16;
+    private static final int CODES_PER_THREAD = 5_000;
+
+    private final List<ProductCodeAllocator> allocators = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        allocators.forEach(ProductCodeAllocator::shutdown);
+    }
+
+    @Test
+    void next_FromManyThreads_HandsOutEveryCodeOnceWithoutGaps() {
+        // Given
+        ProductCodeAllocator allocator = allocator(100, new Sequences(100));
+
+        // When
+        List<Long> codes = drawConcurrently(allocator, allocator);
+
+        // Then
+        // blocks are used in sequence order, so the codes handed out are exactly those of values 1..n
+        assertThat(codes).hasSize(THREADS * CODES_PER_THREAD);
+        assertThat(codes.stream().sorted().toList()).isEqualTo(codesOf(YEAR, 1, THREADS * CODES_PER_THREAD));
+    }
+
+    @Test
+    void next_FromTwoNodesSharingTheSequence_HandsOutDisjointCodes() {
+        // Given
+        Sequences sequences = new Sequences(100);
+        ProductCodeAllocator first = allocator(100, sequences);
+        ProductCodeAllocator second = allocator(100, sequences);
+
+        // When
+        List<Long> codes = drawConcurrently(first, second);
+
+        // Then
+        assertThat(codes).hasSize(THREADS * CODES_PER_THREAD).doesNotHaveDuplicates();
+        assertThat(codes).allMatch(code -> ProductCode.year(code) == YEAR);
+    }
+
+    @Test
+    void next_WhenBlockIsRunningOut_FetchesTheNextBlockInAdvance() {
+        // Given
+        ProductCodeAllocator allocator = allocator(10, new Sequences(10));
+
+        // When
+        List<Long> codes = LongStream.range(0, 100).map(i -> allocator.next(YEAR)).boxed().toList();
+
+        // Then
+        assertThat(codes).isEqualTo(codesOf(YEAR, 1, 100));
+        assertThat(allocator.stalls()).isZero();
+        assertThat(allocator.blocksFetched()).isBetween(10L, 11L);
+    }
+
+    @Test
+    void next_WhenPrefetchFails_FetchesTheNextBlockWhenTheCurrentOneRunsOut() {
+        // Given
+        Sequences sequences = new Sequences(4);
+        AtomicInteger calls = new AtomicInteger();
+        ProductCodeAllocator allocator = allocator(4, year -> {
+            if (calls.incrementAndGet() == 2) {
+                throw new IllegalStateException("connection lost");
+            }
+            return sequences.applyAsLong(year);
+        });
+
+        // When
+        List<Long> codes = LongStream.range(0, 5).map(i -> allocator.next(YEAR)).boxed().toList();
+
+        // Then
+        assertThat(codes).isEqualTo(codesOf(YEAR, 1, 5));
+        assertThat(allocator.stalls()).isEqualTo(1);
+        assertThat(calls).hasValue(3);
+    }
+
+    @Test
+    void next_WhenYearChanges_SwitchesToTheSequenceOfTheNewYear() {
+        // Given
+        ProductCodeAllocator allocator = allocator(10, new Sequences(10));
+        for (int i = 0; i < 9; i++) {
+            allocator.next(YEAR); // past the refill threshold, so a block of the old year is prefetched
+        }
+
+        // When
+        long code = allocator.next(YEAR + 1);
+
+        // Then
+        assertThat(ProductCode.encode(code)).isEqualTo("0R00000001");
+        assertThat(allocator.next(YEAR + 1)).isEqualTo(code + 1);
+        assertThat(allocator.stalls()).isZero();
+    }
+
+    @Test
+    void next_WhenBlockIsOlderThanMaxBlockAge_ReservesANewBlock() throws InterruptedException {
+        // Given
+        ProductCodeAllocatorConfig config = new ProductCodeAllocatorConfig();
+        config.setBlockSize(10);
+        config.setMaxBlockAge(Duration.ofMillis(50));
+        ProductCodeAllocator allocator = new ProductCodeAllocator(new Sequences(10), config);
+        allocators.add(allocator);
+        allocator.next(YEAR);
+        Thread.sleep(60);
+
+        // When
+        long code = allocator.next(YEAR);
+
+        // Then
+        // the rest of the first block is skipped
+        assertThat(code).isEqualTo(ProductCode.number(YEAR, 11));
+        assertThat(allocator.blocksFetched()).isEqualTo(2);
+        assertThat(allocator.stalls()).isZero();
+    }
+
+    @Test
+    void next_WhenSequenceIncrementDiffersFromBlockSize_Fails() {
+        // Given
+        ProductCodeSequences productCodeSequences = mock(ProductCodeSequences.class);
+        when(productCodeSequences.increment(YEAR)).thenReturn(1L);
+        ProductCodeAllocator allocator = new ProductCodeAllocator(productCodeSequences, new ProductCodeAllocatorConfig());
+        allocators.add(allocator);
+
+        // When & Then
+        assertThatThrownBy(() -> allocator.next(YEAR))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("block-size is 1000");
+        verify(productCodeSequences).create(YEAR, 1000);
+        verify(productCodeSequences, never()).next(YEAR);
+    }
+
+    private ProductCodeAllocator allocator(int blockSize, IntToLongFunction blockStarts) {
+        ProductCodeAllocatorConfig config = new ProductCodeAllocatorConfig();
+        config.setBlockSize(blockSize);
+        ProductCodeAllocator allocator = new ProductCodeAllocator(blockStarts, config);
+        allocators.add(allocator);
+        return allocator;
+    }
+
+    private static List<Long> codesOf(int year, long firstValue, long lastValue) {
+        return LongStream.rangeClosed(firstValue, lastValue).map(value -> ProductCode.number(year, value)).boxed().toList();
+    }
+
+    /**
+     * Draws CODES_PER_THREAD codes on each of THREADS threads, alternating between the two allocators,
+     * all threads starting together.
+     */
+    private static List<Long> drawConcurrently(ProductCodeAllocator first, ProductCodeAllocator second) {
+        CountDownLatch start = new CountDownLatch(1);
+        List<CompletableFuture<long[]>> threads = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            ProductCodeAllocator allocator = i % 2 == 0 ? first : second;
+            threads.add(CompletableFuture.supplyAsync(() -> {
+                await(start);
+                long[] codes = new long[CODES_PER_THREAD];
+                for (int j = 0; j < codes.length; j++) {
+                    codes[j] = allocator.next(YEAR);
+                }
+                return codes;
+            }, runnable -> new Thread(runnable).start()));
+        }
+        start.countDown();
+        return threads.stream()
+                .map(CompletableFuture::join)
+                .flatMapToLong(LongStream::of)
+                .boxed()
+                .toList();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Yearly sequences incremented by the block size, returning the first value of each block like nextval does.
+     */
+    private static class Sequences implements IntToLongFunction {
+
+        private final int increment;
+        private final Map<Integer, AtomicLong> next = new ConcurrentHashMap<>();
+
+        Sequences(int increment) {
+            this.increment = increment;
+        }
+
+        @Override
+        public long applyAsLong(int year) {
+            return next.computeIfAbsent(year, y -> new AtomicLong(1)).getAndAdd(increment);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.ingemark.productmanager.service;
+
+import com.ingemark.productmanager.configuration.ProductBackfillConfig;
+import com.ingemark.productmanager.model.product.Product;
+import com.ingemark.productmanager.repository.ProductRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+class ProductCodeNumberBackfillServiceTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private ProductCodeNumberBackfillService backfillService;
+
+    @BeforeEach
+    void setUp() {
+        ProductBackfillConfig productBackfillConfig = new ProductBackfillConfig();
+        productBackfillConfig.setBatchSize(2);
+        backfillService = new ProductCodeNumberBackfillService(new ProductColumnBackfill(jdbcTemplate,
+                new TransactionTemplate(transactionManager), productBackfillConfig));
+
+        // rows stored before code_number existed, one with a code that was never generated
+        List<String> codes = List.of("0000000001", "000000003F", "legacy", "00000000ZZ", "0000000100");
+        for (int i = 0; i < codes.size(); i++) {
+            jdbcTemplate.update("INSERT INTO products (id, code, name, price_eur, price_usd, is_available, created_at) " +
+                    "VALUES (?, ?, 'Product', 1.00, 1.16, TRUE, CURRENT_TIMESTAMP)", i + 1, codes.get(i));
+        }
+    }
+
+    @Test
+    void backfill_WithProductsWithoutCodeNumber_DecodesAllValidCodesInBatches() {
+        // When
+        long backfilled = backfillService.backfill();
+
+        // Then
+        assertThat(backfilled).isEqualTo(4);
+        assertThat(jdbcTemplate.queryForList("SELECT code_number FROM products ORDER BY id", Long.class))
+                .containsExactly(1L, 123L, null, 1295L, 1296L);
+        assertThat(jdbcTemplate.queryForList("SELECT updated_at FROM products", Object.class)).containsOnlyNulls();
+    }
+
+    @Test
+    void backfill_WhenAlreadyBackfilled_DoesNothing() {
+        // Given
+        backfillService.backfill();
+
+        // When
+        long backfilled = backfillService.backfill();
+
+        // Then
+        assertThat(backfilled).isZero();
+    }
+
+    @Test
+    void findByCode_BeforeAndAfterBackfill_FindsProduct() {
+        // When & Then
+        assertThat(productRepository.findByCode("000000003F")).get()
+                .extracting(Product::getCodeNumber).isNull();
+
+        backfillService.backfill();
+        entityManager.clear();
+        assertThat(productRepository.findByCode("000000003F")).get()
+                .extracting(Product::getCodeNumber).isEqualTo(123L);
+    }
+}
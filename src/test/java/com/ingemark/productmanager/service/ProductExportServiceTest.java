@@ -0,0 +1,104 @@
+package com.ingemark.productmanager.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ingemark.productmanager.configuration.ProductExportConfig;
+import com.ingemark.productmanager.exception.ProductExportBusyException;
+import com.ingemark.productmanager.model.product.ProductExportFormat;
+import com.ingemark.productmanager.model.product.response.ProductResponseDto;
+import com.ingemark.productmanager.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ProductExportServiceTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ProductExportService productExportService;
+
+    @BeforeEach
+    void setUp() {
+        ProductExportConfig config = new ProductExportConfig();
+        config.setMaxConcurrent(1);
+        productExportService = new ProductExportService(productRepository, new TransactionTemplate(transactionManager),
+                new ObjectMapper(), config);
+    }
+
+    @Test
+    void exportProducts_AsCsv_WritesHeaderAndQuotesFieldsThatNeedIt() throws IOException {
+        // Given
+        when(productRepository.streamAllForExport()).thenReturn(Stream.of(
+                new ProductResponseDto("Chair", "000000000A", new BigDecimal("10.00"), new BigDecimal("11.00"), true),
+                new ProductResponseDto("Desk, \"oak\"", "000000000B", new BigDecimal("1E+2"), new BigDecimal("110.00"), false)));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        // When
+        productExportService.exportProducts(ProductExportFormat.CSV, () -> output);
+
+        // Then
+        assertThat(output.toString(StandardCharsets.UTF_8)).isEqualTo(
+                "code,name,priceEur,priceUsd,isAvailable\r\n"
+                        + "000000000A,Chair,10.00,11.00,true\r\n"
+                        + "000000000B,\"Desk, \"\"oak\"\"\",100,110.00,false\r\n");
+    }
+
+    @Test
+    void exportProducts_AsNdjson_WritesOneProductPerLine() throws IOException {
+        // Given
+        when(productRepository.streamAllForExport()).thenReturn(Stream.of(
+                new ProductResponseDto("Chair", "000000000A", new BigDecimal("10.00"), new BigDecimal("11.00"), true),
+                new ProductResponseDto("Desk", "000000000B", new BigDecimal("100.00"), new BigDecimal("110.00"), false)));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        // When
+        productExportService.exportProducts(ProductExportFormat.NDJSON, () -> output);
+
+        // Then
+        assertThat(output.toString(StandardCharsets.UTF_8).split("\n")).containsExactly(
+                "{\"name\":\"Chair\",\"code\":\"000000000A\",\"priceEur\":10.00,\"priceUsd\":11.00,\"isAvailable\":true}",
+                "{\"name\":\"Desk\",\"code\":\"000000000B\",\"priceEur\":100.00,\"priceUsd\":110.00,\"isAvailable\":false}");
+    }
+
+    @Test
+    void exportProducts_WhenTooManyExportsRun_RejectsWithoutOpeningTheOutput() throws IOException {
+        // Given
+        when(productRepository.streamAllForExport()).thenAnswer(invocation -> Stream.empty());
+        ProductExportService.Output rejected = mock(ProductExportService.Output.class);
+
+        // When
+        productExportService.exportProducts(ProductExportFormat.CSV, () -> {
+            assertThatThrownBy(() -> productExportService.exportProducts(ProductExportFormat.CSV, rejected))
+                    .isInstanceOf(ProductExportBusyException.class);
+            return new ByteArrayOutputStream();
+        });
+
+        // Then
+        verify(rejected, never()).open();
+        OutputStream output = new ByteArrayOutputStream();
+        productExportService.exportProducts(ProductExportFormat.CSV, () -> output);
+        assertThat(output.toString()).isEqualTo("code,name,priceEur,priceUsd,isAvailable\r\n");
+    }
+}
@@ -0,0 +1,199 @@
+package com.ingemark.productmanager.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ingemark.productmanager.cache.ProductCodeFilter;
+import com.ingemark.productmanager.configuration.ProductImportConfig;
+import com.ingemark.productmanager.mapper.ProductMapper;
+import com.ingemark.productmanager.model.product.Product;
+import com.ingemark.productmanager.model.product.response.ProductImportResultDto;
+import com.ingemark.productmanager.repository.ProductRepository;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ProductImportServiceTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private CurrencyService currencyService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ProductCodeFilter productCodeFilter;
+
+    @Mock
+    private MessageService messageService;
+
+    @Mock
+    private ProductCodeAllocator productCodeAllocator;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicLong sequence = new AtomicLong();
+    private ProductImportService productImportService;
+
+    @BeforeEach
+    void setUp() {
+        ProductImportConfig config = new ProductImportConfig();
+        config.setBatchSize(2);
+        productImportService = new ProductImportService(productRepository, new ProductMapper(), currencyService,
+                new TransactionTemplate(transactionManager), productCodeFilter, messageService,
+                Validation.buildDefaultValidatorFactory().getValidator(), objectMapper, config, productCodeAllocator);
+        lenient().when(currencyService.getUsdRate()).thenReturn(new BigDecimal("1.10"));
+        lenient().when(productCodeAllocator.next(anyInt())).thenAnswer(invocation -> sequence.incrementAndGet());
+        lenient().when(messageService.getMessage(anyString())).thenAnswer(invocation -> invocation.getArgument(0));
+        lenient().when(messageService.getMessage(anyString(), any(Object[].class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    void importProducts_WithJsonArray_InsertsValidItemsInBatchesAndReportsEveryItemInOrder() throws IOException {
+        // Given
+        String upload = """
+                [
+                  {"name": "Chair", "priceEur": 10.00, "isAvailable": true},
+                  {"name": "", "priceEur": 5.00, "isAvailable": true},
+                  {"name": "Desk", "priceEur": 100.00, "isAvailable": false},
+                  {"name": "Lamp", "priceEur": 20.00, "isAvailable": true}
+                ]
+                """;
+
+        // When
+        List<ProductImportResultDto> results = importProducts(upload);
+
+        // Then
+        assertThat(results).extracting(ProductImportResultDto::index).containsExactly(0L, 1L, 2L, 3L);
+        assertThat(results).extracting(ProductImportResultDto::code)
+                .containsExactly("0000000001", null, "0000000002", "0000000003");
+        assertThat(results.get(1).errors()).hasSize(1);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Product>> batches = ArgumentCaptor.forClass(List.class);
+        verify(productRepository, times(2)).insertAll(batches.capture());
+        List<Product> inserted = batches.getAllValues().stream().flatMap(List::stream).toList();
+        assertThat(inserted).extracting(Product::getName).containsExactly("Chair", "Desk", "Lamp");
+        assertThat(inserted).extracting(Product::getPriceUsd)
+                .containsExactly(new BigDecimal("11.00"), new BigDecimal("110.00"), new BigDecimal("22.00"));
+        verify(currencyService, times(1)).getUsdRate();
+        verify(productCodeFilter).add("0000000003");
+    }
+
+    @Test
+    void importProducts_WithNdjson_InsertsEveryLine() throws IOException {
+        // Given
+        String upload = """
+                {"name": "Chair", "priceEur": 10.00, "isAvailable": true}
+                {"name": "Desk", "priceEur": 100.00, "isAvailable": false}
+                {"name": "Lamp", "priceEur": 20.00, "isAvailable": true}
+                """;
+
+        // When
+        List<ProductImportResultDto> results = importProducts(upload);
+
+        // Then
+        assertThat(results).extracting(ProductImportResultDto::code)
+                .containsExactly("0000000001", "0000000002", "0000000003");
+        verify(productCodeAllocator, times(3)).next(LocalDate.now().getYear());
+        verify(productRepository, times(2)).insertAll(anyList());
+    }
+
+    @Test
+    void importProducts_WithMalformedJson_StopsAfterReportingIt() throws IOException {
+        // Given
+        String upload = """
+                {"name": "Chair", "priceEur": 10.00, "isAvailable": true}
+                {"name": "Desk", "priceEur":
+                """;
+
+        // When
+        List<ProductImportResultDto> results = importProducts(upload);
+
+        // Then
+        assertThat(results).hasSize(2);
+        assertThat(results.get(0).code()).isEqualTo("0000000001");
+        assertThat(results.get(1).errors()).containsExactly("product.import.malformed");
+    }
+
+    @Test
+    void importProducts_WithWrongFieldType_RejectsOnlyThatItem() throws IOException {
+        // Given
+        String upload = """
+                [{"name": "Chair", "priceEur": "ten", "isAvailable": true}, {"name": "Desk", "priceEur": 1, "isAvailable": true}]
+                """;
+
+        // When
+        List<ProductImportResultDto> results = importProducts(upload);
+
+        // Then
+        assertThat(results.get(0).errors()).containsExactly("product.import.malformed");
+        assertThat(results.get(1).code()).isEqualTo("0000000001");
+    }
+
+    @Test
+    void importProducts_WhenBatchFails_RejectsItsItemsAndContinues() throws IOException {
+        // Given
+        doThrow(new DataIntegrityViolationException("duplicate code"))
+                .doNothing()
+                .when(productRepository).insertAll(anyList());
+        String upload = """
+                [
+                  {"name": "Chair", "priceEur": 10.00, "isAvailable": true},
+                  {"name": "Desk", "priceEur": 100.00, "isAvailable": false},
+                  {"name": "Lamp", "priceEur": 20.00, "isAvailable": true}
+                ]
+                """;
+
+        // When
+        List<ProductImportResultDto> results = importProducts(upload);
+
+        // Then
+        assertThat(results.get(0).errors()).containsExactly("product.import.failed");
+        assertThat(results.get(1).errors()).containsExactly("product.import.failed");
+        assertThat(results.get(2).code()).isEqualTo("0000000003");
+        verify(productCodeFilter, times(1)).add(eq("0000000003"));
+    }
+
+    private List<ProductImportResultDto> importProducts(String upload) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        productImportService.importProducts(new ByteArrayInputStream(upload.getBytes(StandardCharsets.UTF_8)), output);
+
+        List<ProductImportResultDto> results = new ArrayList<>();
+        for (String line : output.toString(StandardCharsets.UTF_8).split("\n")) {
+            results.add(objectMapper.readValue(line, ProductImportResultDto.class));
+        }
+        return results;
+    }
+}
@@ -0,0 +1,68 @@
+package com.ingemark.productmanager.service;
+
+import com.ingemark.productmanager.configuration.ProductBackfillConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+class ProductNameBackfillServiceTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private ProductNameBackfillService backfillService;
+
+    @BeforeEach
+    void setUp() {
+        ProductBackfillConfig productBackfillConfig = new ProductBackfillConfig();
+        productBackfillConfig.setBatchSize(2);
+        backfillService = new ProductNameBackfillService(new ProductColumnBackfill(jdbcTemplate,
+                new TransactionTemplate(transactionManager), productBackfillConfig));
+
+        // rows stored before name_normalized existed
+        List<String> names = List.of("Čokolada", "Šljive", "Đumbir", "Kava", "Žličnjaci");
+        for (int i = 0; i < names.size(); i++) {
+            String name = names.get(i);
+            jdbcTemplate.update("INSERT INTO products (id, code, name, price_eur, price_usd, is_available, created_at) " +
+                    "VALUES (?, ?, ?, 1.00, 1.16, TRUE, CURRENT_TIMESTAMP)", i + 1, name.substring(0, 3).toUpperCase(), name);
+        }
+    }
+
+    @Test
+    void backfill_WithProductsWithoutNormalizedName_NormalizesAllInBatches() {
+        // When
+        long backfilled = backfillService.backfill();
+
+        // Then
+        assertThat(backfilled).isEqualTo(5);
+        assertThat(jdbcTemplate.queryForList("SELECT name_normalized FROM products ORDER BY id", String.class))
+                .containsExactly("cokolada", "sljive", "dumbir", "kava", "zlicnjaci");
+        assertThat(jdbcTemplate.queryForList("SELECT updated_at FROM products", Object.class)).containsOnlyNulls();
+    }
+
+    @Test
+    void backfill_WhenAlreadyBackfilled_DoesNothing() {
+        // Given
+        backfillService.backfill();
+
+        // When
+        long backfilled = backfillService.backfill();
+
+        // Then
+        assertThat(backfilled).isZero();
+    }
+}
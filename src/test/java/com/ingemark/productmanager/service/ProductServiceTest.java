@@ -1,26 +1,44 @@
 package com.ingemark.productmanager.service;
 
+import com.ingemark.productmanager.cache.ProductCache;
+import com.ingemark.productmanager.cache.ProductCodeFilter;
+import com.ingemark.productmanager.configuration.ProductCacheConfig;
+import com.ingemark.productmanager.configuration.ProductCodeAllocatorConfig;
+import com.ingemark.productmanager.configuration.ProductCodeFilterConfig;
+import com.ingemark.productmanager.configuration.SearchConfig;
+import com.ingemark.productmanager.exception.InvalidCursorException;
 import com.ingemark.productmanager.exception.ProductNotFoundException;
 import com.ingemark.productmanager.mapper.ProductMapper;
 import com.ingemark.productmanager.model.product.Product;
+import com.ingemark.productmanager.model.product.ProductCursor;
+import com.ingemark.productmanager.model.product.ProductSortField;
+import com.ingemark.productmanager.model.product.request.BatchGetProductsDto;
 import com.ingemark.productmanager.model.product.request.CreateProductDto;
 import com.ingemark.productmanager.model.product.request.SearchProductDto;
 import com.ingemark.productmanager.model.product.request.UpdateProductDto;
 import com.ingemark.productmanager.model.product.response.PagedProductResponseDto;
+import com.ingemark.productmanager.model.product.response.ProductBatchResponseDto;
 import com.ingemark.productmanager.model.product.response.ProductResponseDto;
 import com.ingemark.productmanager.repository.ProductRepository;
+import com.ingemark.productmanager.repository.ProductTombstoneRepository;
+import com.ingemark.productmanager.util.ProductCode;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.*;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -38,7 +56,18 @@ class ProductServiceTest {
     @Mock
     private CurrencyService currencyService;
 
-    @InjectMocks
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ProductTombstoneRepository productTombstoneRepository;
+
+    @Mock
+    private ProductCodeAllocator productCodeAllocator;
+
+    @Mock
+    private ProductCodeFilter productCodeFilter;
+
     private ProductService productService;
 
     private Product testProduct;
@@ -49,6 +78,13 @@ class ProductServiceTest {
 
     @BeforeEach
     void setUp() {
+        TransactionTemplate readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        readOnlyTransactionTemplate.setReadOnly(true);
+        productService = new ProductService(productRepository, productMapper, currencyService,
+                new TransactionTemplate(transactionManager), readOnlyTransactionTemplate, new SearchConfig(),
+                new ProductCache(new ProductCacheConfig()), productCodeFilter, productTombstoneRepository, productCodeAllocator);
+        lenient().when(productCodeFilter.mightExist(anyString())).thenReturn(true);
+
         testProduct = Product.builder()
                 .id(1L)
                 .code("TEST123456")
@@ -89,7 +125,9 @@ class ProductServiceTest {
                 0,
                 10,
                 null,
-                true
+                true,
+                null,
+                null
         );
     }
 
@@ -102,14 +140,7 @@ class ProductServiceTest {
                 List.of(productResponseDto), 0, 10, 1L, 1
         );
 
-        when(productRepository.findProductsByFilters(
-                eq("Test"),
-                eq(new BigDecimal("10.00")),
-                eq(new BigDecimal("200.00")),
-                eq(new BigDecimal("11.00")),
-                eq(new BigDecimal("220.00")),
-                any(Pageable.class)
-        )).thenReturn(productPage);
+        when(productRepository.findAll(any(Specification.class), any(Pageable.class))).thenReturn(productPage);
         when(productMapper.toPagedProductResponseDto(productPage)).thenReturn(expectedResponse);
 
         // When
@@ -117,14 +148,7 @@ class ProductServiceTest {
 
         // Then
         assertThat(result).isEqualTo(expectedResponse);
-        verify(productRepository).findProductsByFilters(
-                eq("Test"),
-                eq(new BigDecimal("10.00")),
-                eq(new BigDecimal("200.00")),
-                eq(new BigDecimal("11.00")),
-                eq(new BigDecimal("220.00")),
-                any(Pageable.class)
-        );
+        verify(productRepository).findAll(any(Specification.class), any(Pageable.class));
         verify(productMapper).toPagedProductResponseDto(productPage);
     }
 
@@ -147,7 +171,49 @@ class ProductServiceTest {
         assertThat(result).isEqualTo(expectedResponse);
         verify(productRepository).findAll(any(Pageable.class));
         verify(productMapper).toPagedProductResponseDto(productPage);
-        verify(productRepository, never()).findProductsByFilters(any(), any(), any(), any(), any(), any());
+        verify(productRepository, never()).findAll(any(Specification.class), any(Pageable.class));
+    }
+
+    @Test
+    void searchProducts_WithEmptyCursor_ShouldReturnFirstPageWithNextCursorWithoutCounting() {
+        // Given
+        SearchProductDto cursorDto = new SearchProductDto(
+                null, null, null, null, null,
+                null, 1, ProductSortField.NAME, true, null, ""
+        );
+        Product secondProduct = Product.builder().code("TEST654321").name("Test Product 2").build();
+        String expectedCursor = ProductCursor.after(ProductSortField.NAME, true, testProduct).encode();
+        PagedProductResponseDto expectedResponse = new PagedProductResponseDto(
+                List.of(productResponseDto), null, 1, null, null, expectedCursor
+        );
+
+        when(productRepository.findProductsAfterCursor(
+                any(Specification.class), eq(ProductSortField.NAME), eq(true), isNull(), eq(2)
+        )).thenReturn(List.of(testProduct, secondProduct));
+        when(productMapper.toCursorPagedProductResponseDto(List.of(testProduct), 1, expectedCursor))
+                .thenReturn(expectedResponse);
+
+        // When
+        PagedProductResponseDto result = productService.searchProducts(cursorDto);
+
+        // Then
+        assertThat(result).isEqualTo(expectedResponse);
+        verify(productRepository, never()).findAll(any(Specification.class), any(Pageable.class));
+    }
+
+    @Test
+    void searchProducts_WithCursorOfDifferentSort_ShouldThrowInvalidCursorException() {
+        // Given
+        String priceCursor = ProductCursor.after(ProductSortField.PRICE, true, testProduct).encode();
+        SearchProductDto cursorDto = new SearchProductDto(
+                null, null, null, null, null,
+                null, 5, ProductSortField.NAME, true, null, priceCursor
+        );
+
+        // When & Then
+        assertThatThrownBy(() -> productService.searchProducts(cursorDto))
+                .isInstanceOf(InvalidCursorException.class);
+        verifyNoInteractions(productRepository);
     }
 
     @Test
@@ -165,6 +231,78 @@ class ProductServiceTest {
         verify(productMapper).toResponseDto(testProduct);
     }
 
+    @Test
+    void getProductByCode_WithCurrency_ShouldConvertPriceWithCachedRate() {
+        // Given
+        ProductResponseDto convertedResponse = new ProductResponseDto(
+                "Test Product",
+                "TEST123456",
+                new BigDecimal("100.00"),
+                new BigDecimal("110.00"),
+                true,
+                "CHF",
+                new BigDecimal("94.00")
+        );
+        when(currencyService.getRate("chf")).thenReturn(new BigDecimal("0.94"));
+        when(productRepository.findByCode("TEST123456")).thenReturn(Optional.of(testProduct));
+        when(productMapper.toResponseDto(testProduct)).thenReturn(productResponseDto);
+        when(productMapper.withConvertedPrice(productResponseDto, "CHF", new BigDecimal("0.94"))).thenReturn(convertedResponse);
+
+        // When
+        ProductResponseDto result = productService.getProductByCode("TEST123456", "chf");
+
+        // Then
+        assertThat(result).isEqualTo(convertedResponse);
+    }
+
+    @Test
+    void getProductByCode_WhenCalledRepeatedly_ShouldReadDatabaseOnce() {
+        // Given
+        when(productRepository.findByCode("TEST123456")).thenReturn(Optional.of(testProduct));
+        when(productMapper.toResponseDto(testProduct)).thenReturn(productResponseDto);
+
+        // When
+        productService.getProductByCode("TEST123456");
+        ProductResponseDto result = productService.getProductByCode("TEST123456");
+
+        // Then
+        assertThat(result).isEqualTo(productResponseDto);
+        verify(productRepository, times(1)).findByCode("TEST123456");
+    }
+
+    @Test
+    void updateProductByCode_ShouldInvalidateCachedProduct() {
+        // Given
+        ProductResponseDto updatedResponse = new ProductResponseDto(
+                "Updated Product", "TEST123456", new BigDecimal("75.00"), new BigDecimal("82.50"), false);
+        when(productRepository.findByCode("TEST123456")).thenReturn(Optional.of(testProduct));
+        when(currencyService.calculateUsdPrice(new BigDecimal("75.00"))).thenReturn(new BigDecimal("82.50"));
+        when(productMapper.toResponseDto(testProduct)).thenReturn(productResponseDto, updatedResponse, updatedResponse);
+        productService.getProductByCode("TEST123456");
+
+        // When
+        productService.updateProductByCode("TEST123456", updateProductDto);
+
+        // Then
+        assertThat(productService.getProductByCode("TEST123456")).isEqualTo(updatedResponse);
+        verify(productRepository, times(3)).findByCode("TEST123456");
+    }
+
+    @Test
+    void deleteProductByCode_ShouldInvalidateCachedProduct() {
+        // Given
+        when(productRepository.findByCode("TEST123456")).thenReturn(Optional.of(testProduct), Optional.of(testProduct), Optional.empty());
+        when(productMapper.toResponseDto(testProduct)).thenReturn(productResponseDto);
+        productService.getProductByCode("TEST123456");
+
+        // When
+        productService.deleteProductByCode("TEST123456");
+
+        // Then
+        assertThatThrownBy(() -> productService.getProductByCode("TEST123456"))
+                .isInstanceOf(ProductNotFoundException.class);
+    }
+
     @Test
     void getProductByCode_WithInvalidCode_ShouldThrowProductNotFoundException() {
         // Given
@@ -176,6 +314,127 @@ class ProductServiceTest {
 
         verify(productRepository).findByCode("INVALID");
         verify(productMapper, never()).toResponseDto(any());
+        verify(productCodeFilter).recordFalsePositive("INVALID");
+    }
+
+    @Test
+    void getProductByCode_WhenRejectedByCodeFilter_ShouldThrowWithoutReadingDatabase() {
+        // Given
+        when(productCodeFilter.mightExist("MISSING123")).thenReturn(false);
+
+        // When & Then
+        assertThatThrownBy(() -> productService.getProductByCode("MISSING123"))
+                .isInstanceOf(ProductNotFoundException.class)
+                .hasNoSuppressedExceptions()
+                .satisfies(e -> assertThat(e.getStackTrace()).isEmpty());
+
+        verifyNoInteractions(productRepository, transactionManager);
+    }
+
+    @Test
+    void getProductByCode_WithUnknownCodeOfTheCurrentYearBelowTheWatermark_ShouldThrowWithoutReadingDatabase() {
+        // Given
+        int year = LocalDate.now().getYear();
+        ProductCodeFilter filter = new ProductCodeFilter(productRepository, new TransactionTemplate(transactionManager),
+                new ProductCodeFilterConfig(), new ProductCodeAllocatorConfig());
+        when(productRepository.streamAllCodes()).thenReturn(Stream.of(ProductCode.encode(ProductCode.number(year, 5000))));
+        filter.rebuild();
+        filter.caughtUpTo(LocalDateTime.now());
+        // caught up to max-block-age (1 minute) after the highest code was seen
+        filter.caughtUpTo(LocalDateTime.now().plusMinutes(2));
+        productService = new ProductService(productRepository, productMapper, currencyService,
+                new TransactionTemplate(transactionManager), new TransactionTemplate(transactionManager), new SearchConfig(),
+                new ProductCache(new ProductCacheConfig()), filter, productTombstoneRepository, productCodeAllocator);
+        clearInvocations(productRepository);
+
+        // When & Then
+        assertThatThrownBy(() -> productService.getProductByCode(ProductCode.encode(ProductCode.number(year, 42))))
+                .isInstanceOf(ProductNotFoundException.class);
+        verifyNoInteractions(productRepository);
+        // codes above the watermark may have been created on another node since the last poll
+        String recentCode = ProductCode.encode(ProductCode.number(year, 6000));
+        assertThatThrownBy(() -> productService.getProductByCode(recentCode))
+                .isInstanceOf(ProductNotFoundException.class);
+        verify(productRepository).findByCode(recentCode);
+    }
+
+    @Test
+    void getProductsByCodes_ShouldQueryDistinctUncachedCodesOnceAndKeepRequestOrder() {
+        // Given
+        Product otherProduct = Product.builder().id(2L).code("OTHER12345").name("Other Product")
+                .priceEur(new BigDecimal("5.00")).priceUsd(new BigDecimal("5.50")).isAvailable(true).build();
+        ProductResponseDto otherResponse = new ProductResponseDto(
+                "Other Product", "OTHER12345", new BigDecimal("5.00"), new BigDecimal("5.50"), true);
+        when(productRepository.findByCode("TEST123456")).thenReturn(Optional.of(testProduct));
+        when(productMapper.toResponseDto(testProduct)).thenReturn(productResponseDto);
+        productService.getProductByCode("TEST123456");
+        when(productCodeFilter.mightExist("FILTERED01")).thenReturn(false);
+        when(productRepository.findAllByCodes(List.of("OTHER12345", "MISSING123"))).thenReturn(List.of(otherProduct));
+        when(productMapper.toResponseDto(otherProduct)).thenReturn(otherResponse);
+
+        // When
+        ProductBatchResponseDto result = productService.getProductsByCodes(new BatchGetProductsDto(
+                List.of("OTHER12345", "FILTERED01", "TEST123456", "MISSING123", "OTHER12345"), null));
+
+        // Then
+        assertThat(result.products()).containsExactly(otherResponse, productResponseDto);
+        assertThat(result.missingCodes()).containsExactly("FILTERED01", "MISSING123");
+        verify(productRepository, times(1)).findAllByCodes(anyCollection());
+        verify(productCodeFilter, times(1)).recordFalsePositive(anyString());
+    }
+
+    @Test
+    void getProductsByCodes_WhenAllCached_ShouldNotReadDatabase() {
+        // Given
+        when(productRepository.findByCode("TEST123456")).thenReturn(Optional.of(testProduct));
+        when(productMapper.toResponseDto(testProduct)).thenReturn(productResponseDto);
+        productService.getProductByCode("TEST123456");
+        ProductResponseDto convertedResponse = new ProductResponseDto("Test Product", "TEST123456",
+                new BigDecimal("100.00"), new BigDecimal("110.00"), true, "CHF", new BigDecimal("94.00"));
+        when(currencyService.getRate("chf")).thenReturn(new BigDecimal("0.94"));
+        when(productMapper.withConvertedPrice(productResponseDto, "CHF", new BigDecimal("0.94"))).thenReturn(convertedResponse);
+
+        // When
+        ProductBatchResponseDto result = productService.getProductsByCodes(
+                new BatchGetProductsDto(List.of("TEST123456", "TEST123456"), "chf"));
+
+        // Then
+        assertThat(result.products()).containsExactly(convertedResponse);
+        assertThat(result.missingCodes()).isEmpty();
+        verify(productRepository, never()).findAllByCodes(anyCollection());
+    }
+
+    @Test
+    void getProductsByCodes_WithCodeCreatedOnAnotherNodeSinceThePoll_ShouldReadItFromDatabase() {
+        // Given
+        TransactionTemplate readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        readOnlyTransactionTemplate.setReadOnly(true);
+        ProductCodeFilter filter = new ProductCodeFilter(productRepository, readOnlyTransactionTemplate,
+                new ProductCodeFilterConfig(), new ProductCodeAllocatorConfig());
+        when(productRepository.streamAllCodes()).thenReturn(Stream.of("TEST123456"));
+        filter.rebuild();
+        filter.caughtUpTo(LocalDateTime.now());
+        productService = new ProductService(productRepository, productMapper, currencyService,
+                new TransactionTemplate(transactionManager), readOnlyTransactionTemplate, new SearchConfig(),
+                new ProductCache(new ProductCacheConfig()), filter, productTombstoneRepository, productCodeAllocator);
+        String recentCode = ProductCode.encode(ProductCode.number(LocalDate.now().getYear(), 42));
+        String oldCode = ProductCode.encode(ProductCode.number(LocalDate.now().getYear() - 1, 42));
+        Product recentProduct = Product.builder().id(2L).code(recentCode).name("Recent Product")
+                .priceEur(new BigDecimal("5.00")).priceUsd(new BigDecimal("5.50")).isAvailable(true).build();
+        ProductResponseDto recentResponse = new ProductResponseDto(
+                "Recent Product", recentCode, new BigDecimal("5.00"), new BigDecimal("5.50"), true);
+        when(productRepository.findAllByCodes(List.of(recentCode))).thenReturn(List.of(recentProduct));
+        when(productMapper.toResponseDto(recentProduct)).thenReturn(recentResponse);
+
+        // When
+        ProductBatchResponseDto result = productService.getProductsByCodes(
+                new BatchGetProductsDto(List.of(recentCode, oldCode), null));
+
+        // Then
+        // the filter has not seen the recent code yet, but only the code of an earlier year is rejected without a query
+        assertThat(result.products()).containsExactly(recentResponse);
+        assertThat(result.missingCodes()).containsExactly(oldCode);
+        verify(productRepository).findAllByCodes(List.of(recentCode));
     }
 
     @Test
@@ -206,7 +465,7 @@ class ProductServiceTest {
 
         when(productMapper.toEntity(createProductDto)).thenReturn(newProduct);
         when(currencyService.calculateUsdPrice(new BigDecimal("50.00"))).thenReturn(new BigDecimal("55.00"));
-        when(productRepository.getNextCodeSequence()).thenReturn(123456789L);
+        when(productCodeAllocator.next(anyInt())).thenReturn(123456789L);
         when(productRepository.save(any(Product.class))).thenReturn(savedProduct);
         when(productMapper.toResponseDto(savedProduct)).thenReturn(expectedResponse);
 
@@ -217,9 +476,10 @@ class ProductServiceTest {
         assertThat(result).isEqualTo(expectedResponse);
         verify(productMapper).toEntity(createProductDto);
         verify(currencyService).calculateUsdPrice(new BigDecimal("50.00"));
-        verify(productRepository).getNextCodeSequence();
+        verify(productCodeAllocator).next(LocalDate.now().getYear());
         verify(productRepository).save(any(Product.class));
         verify(productMapper).toResponseDto(savedProduct);
+        verify(productCodeFilter).add("000021I3V9");
     }
 
     @Test
@@ -262,10 +522,50 @@ class ProductServiceTest {
                 .isInstanceOf(ProductNotFoundException.class);
 
         verify(productRepository).findByCode("INVALID");
-        verify(currencyService, never()).calculateUsdPrice(any());
         verify(productMapper, never()).toResponseDto(any());
     }
 
+    @Test
+    void updateProductByCode_ShouldResolveUsdPriceBeforeStartingTransaction() {
+        // Given
+        when(currencyService.calculateUsdPrice(new BigDecimal("75.00"))).thenReturn(new BigDecimal("82.50"));
+        when(productRepository.findByCode("TEST123456")).thenReturn(Optional.of(testProduct));
+
+        // When
+        productService.updateProductByCode("TEST123456", updateProductDto);
+
+        // Then
+        InOrder inOrder = inOrder(currencyService, transactionManager, productRepository);
+        inOrder.verify(currencyService).calculateUsdPrice(new BigDecimal("75.00"));
+        inOrder.verify(transactionManager).getTransaction(any());
+        inOrder.verify(productRepository).findByCode("TEST123456");
+        inOrder.verify(transactionManager).commit(any());
+    }
+
+    @Test
+    void createProduct_ShouldResolveUsdPriceBeforeStartingTransaction() {
+        // Given
+        Product newProduct = Product.builder()
+                .name("New Product")
+                .priceEur(new BigDecimal("50.00"))
+                .isAvailable(true)
+                .build();
+        when(productMapper.toEntity(createProductDto)).thenReturn(newProduct);
+        when(currencyService.calculateUsdPrice(new BigDecimal("50.00"))).thenReturn(new BigDecimal("55.00"));
+        when(productCodeAllocator.next(anyInt())).thenReturn(1L);
+        when(productRepository.save(newProduct)).thenReturn(newProduct);
+
+        // When
+        productService.createProduct(createProductDto);
+
+        // Then
+        InOrder inOrder = inOrder(currencyService, transactionManager, productRepository);
+        inOrder.verify(currencyService).calculateUsdPrice(new BigDecimal("50.00"));
+        inOrder.verify(transactionManager).getTransaction(any());
+        inOrder.verify(productRepository).save(newProduct);
+        inOrder.verify(transactionManager).commit(any());
+    }
+
     @Test
     void deleteProductByCode_WithValidCode_ShouldDeleteProduct() {
         // Given
@@ -277,6 +577,7 @@ class ProductServiceTest {
         // Then
         verify(productRepository).findByCode("TEST123456");
         verify(productRepository).delete(testProduct);
+        verify(productTombstoneRepository).save(argThat(tombstone -> "TEST123456".equals(tombstone.getCode())));
     }
 
     @Test
@@ -289,7 +590,7 @@ class ProductServiceTest {
                 .isInstanceOf(ProductNotFoundException.class);
 
         verify(productRepository).findByCode("INVALID");
-        verify(productRepository, never()).delete(any());
+        verify(productRepository, never()).delete(any(Product.class));
     }
 
     @Test
@@ -304,11 +605,12 @@ class ProductServiceTest {
 
         when(productMapper.toEntity(createProductDto)).thenReturn(newProduct);
         when(currencyService.calculateUsdPrice(any())).thenReturn(new BigDecimal("55.00"));
-        when(productRepository.getNextCodeSequence()).thenReturn(123L); // Base36: 3F
+        when(productCodeAllocator.next(anyInt())).thenReturn(123L); // Base36: 3F
         when(productRepository.save(any(Product.class))).thenAnswer(invocation -> {
             Product product = invocation.getArgument(0);
             // Verify the code format
             assertThat(product.getCode()).isEqualTo("000000003F");
+            assertThat(product.getCreatedAt()).isNotNull();
             return product;
         });
         when(productMapper.toResponseDto(any())).thenReturn(productResponseDto);
@@ -324,7 +626,7 @@ class ProductServiceTest {
         // Given
         SearchProductDto partialDto = new SearchProductDto(
                 null, null, null, null, null,
-                null, null, null, false
+                null, null, null, false, null, null
         );
 
         Pageable expectedPageable = PageRequest.of(0, 5, Sort.by("name").descending());
@@ -333,9 +635,7 @@ class ProductServiceTest {
                 List.of(productResponseDto), 0, 5, 1L, 1
         );
 
-        when(productRepository.findProductsByFilters(
-                isNull(), isNull(), isNull(), isNull(), isNull(), any(Pageable.class)
-        )).thenReturn(productPage);
+        when(productRepository.findAll(any(Specification.class), any(Pageable.class))).thenReturn(productPage);
         when(productMapper.toPagedProductResponseDto(productPage)).thenReturn(expectedResponse);
 
         // When
@@ -343,8 +643,6 @@ class ProductServiceTest {
 
         // Then
         assertThat(result).isEqualTo(expectedResponse);
-        verify(productRepository).findProductsByFilters(
-                isNull(), isNull(), isNull(), isNull(), isNull(), any(Pageable.class)
-        );
+        verify(productRepository).findAll(any(Specification.class), any(Pageable.class));
     }
 }
@@ -0,0 +1,217 @@
+package com.ingemark.productmanager.service;
+
+import com.ingemark.productmanager.configuration.RepricingConfig;
+import com.ingemark.productmanager.model.product.RepricingJob;
+import com.ingemark.productmanager.model.product.RepricingJobStatus;
+import com.ingemark.productmanager.repository.ProductRepository;
+import com.ingemark.productmanager.repository.RepricingJobRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RepricingServiceTest {
+
+    private static final BigDecimal RATE = new BigDecimal("1.20");
+    private static final LocalDate EFFECTIVE_DATE = LocalDate.of(2025, 8, 1);
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private RepricingJobRepository repricingJobRepository;
+
+    private RepricingService repricingService;
+
+    @BeforeEach
+    void setUp() {
+        RepricingConfig config = new RepricingConfig();
+        config.setChunkSize(10);
+        config.setParallelism(3);
+        repricingService = new RepricingService(productRepository, repricingJobRepository, config);
+    }
+
+    @AfterEach
+    void tearDown() {
+        repricingService.shutdown();
+    }
+
+    @Test
+    void reprice_WithProducts_UpdatesEveryIdRangeAndCompletesJob() {
+        // Given
+        when(productRepository.findMinId()).thenReturn(1L);
+        when(productRepository.findMaxId()).thenReturn(35L);
+        when(repricingJobRepository.saveAndFlush(any(RepricingJob.class))).thenAnswer(invocation -> {
+            RepricingJob job = invocation.getArgument(0);
+            job.setId(7L);
+            return job;
+        });
+        when(productRepository.repriceUsdInIdRangeForJob(eq(7L), anyString(), eq(RATE), anyLong(), anyLong())).thenReturn(10);
+        when(repricingJobRepository.existsByIdAndOwnerAndStatus(eq(7L), anyString(), eq(RepricingJobStatus.RUNNING))).thenReturn(true);
+        when(repricingJobRepository.updateProgress(eq(7L), anyString(), eq(RepricingJobStatus.RUNNING), anyLong(), anyLong(), any()))
+                .thenReturn(1);
+
+        // When
+        RepricingJob job = repricingService.reprice(RATE, EFFECTIVE_DATE);
+
+        // Then
+        assertThat(job.getStatus()).isEqualTo(RepricingJobStatus.COMPLETED);
+        assertThat(job.getRowsUpdated()).isEqualTo(40L);
+        verify(productRepository).repriceUsdInIdRangeForJob(eq(7L), anyString(), eq(RATE), eq(1L), eq(10L));
+        verify(productRepository).repriceUsdInIdRangeForJob(eq(7L), anyString(), eq(RATE), eq(11L), eq(20L));
+        verify(productRepository).repriceUsdInIdRangeForJob(eq(7L), anyString(), eq(RATE), eq(21L), eq(30L));
+        verify(productRepository).repriceUsdInIdRangeForJob(eq(7L), anyString(), eq(RATE), eq(31L), eq(35L));
+        verify(repricingJobRepository, times(4)).updateProgress(eq(7L), anyString(), eq(RepricingJobStatus.RUNNING), anyLong(), anyLong(), any());
+        verify(repricingJobRepository).updateProgress(eq(7L), anyString(), eq(RepricingJobStatus.RUNNING), eq(35L), anyLong(), any());
+        verify(repricingJobRepository).supersedeRunningJobs(eq(7L), eq(RepricingJobStatus.RUNNING), eq(RepricingJobStatus.SUPERSEDED), any());
+        verify(repricingJobRepository).completeJob(eq(7L), anyString(), eq(RepricingJobStatus.RUNNING), eq(RepricingJobStatus.COMPLETED), any());
+    }
+
+    @Test
+    void reprice_WhenJobIsSuperseded_StopsWithoutCompleting() {
+        // Given
+        when(productRepository.findMinId()).thenReturn(1L);
+        when(productRepository.findMaxId()).thenReturn(100L);
+        when(repricingJobRepository.saveAndFlush(any(RepricingJob.class))).thenAnswer(invocation -> {
+            RepricingJob job = invocation.getArgument(0);
+            job.setId(7L);
+            return job;
+        });
+        when(productRepository.repriceUsdInIdRangeForJob(eq(7L), anyString(), eq(RATE), anyLong(), anyLong())).thenReturn(10);
+        when(repricingJobRepository.existsByIdAndOwnerAndStatus(eq(7L), anyString(), eq(RepricingJobStatus.RUNNING))).thenReturn(true);
+        when(repricingJobRepository.updateProgress(eq(7L), anyString(), eq(RepricingJobStatus.RUNNING), anyLong(), anyLong(), any()))
+                .thenReturn(0);
+
+        // When
+        RepricingJob job = repricingService.reprice(RATE, EFFECTIVE_DATE);
+
+        // Then
+        assertThat(job.getStatus()).isEqualTo(RepricingJobStatus.RUNNING);
+        verify(repricingJobRepository, never()).completeJob(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void reprice_WhenAnotherNodeStartedJob_DoesNothing() {
+        // Given
+        when(productRepository.findMinId()).thenReturn(1L);
+        when(productRepository.findMaxId()).thenReturn(100L);
+        when(repricingJobRepository.saveAndFlush(any(RepricingJob.class))).thenThrow(new DataIntegrityViolationException("duplicate"));
+
+        // When
+        RepricingJob job = repricingService.reprice(RATE, EFFECTIVE_DATE);
+
+        // Then
+        assertThat(job).isNull();
+        verify(productRepository, never()).repriceUsdInIdRangeForJob(anyLong(), any(), any(), anyLong(), anyLong());
+        verify(repricingJobRepository, never()).supersedeRunningJobs(any(), any(), any(), any());
+    }
+
+    @Test
+    void resumeStaleJobs_WithInterruptedJob_ContinuesAfterCompletedWatermark() throws Exception {
+        // Given
+        RepricingJob interrupted = RepricingJob.builder()
+                .id(3L)
+                .rate(RATE)
+                .effectiveDate(EFFECTIVE_DATE)
+                .status(RepricingJobStatus.RUNNING)
+                .maxId(30L)
+                .chunkSize(10)
+                .completedUpToId(20L)
+                .rowsUpdated(20L)
+                .owner("crashed-node")
+                .heartbeatAt(LocalDateTime.now().minusHours(1))
+                .startedAt(LocalDateTime.now().minusHours(1))
+                .build();
+        when(repricingJobRepository.findByStatusAndHeartbeatAtBefore(eq(RepricingJobStatus.RUNNING), any()))
+                .thenReturn(List.of(interrupted));
+        when(repricingJobRepository.claimStaleJob(eq(3L), anyString(), eq(RepricingJobStatus.RUNNING), any(), any()))
+                .thenReturn(1);
+        when(productRepository.repriceUsdInIdRangeForJob(eq(3L), anyString(), eq(RATE), eq(21L), eq(30L))).thenReturn(10);
+        when(repricingJobRepository.existsByIdAndOwnerAndStatus(eq(3L), anyString(), eq(RepricingJobStatus.RUNNING))).thenReturn(true);
+        when(repricingJobRepository.updateProgress(eq(3L), anyString(), eq(RepricingJobStatus.RUNNING), eq(30L), eq(30L), any()))
+                .thenReturn(1);
+
+        // When
+        repricingService.resumeStaleJobs();
+
+        // Then
+        verify(repricingJobRepository, timeout(5000))
+                .completeJob(eq(3L), anyString(), eq(RepricingJobStatus.RUNNING), eq(RepricingJobStatus.COMPLETED), any());
+        verify(productRepository, times(1)).repriceUsdInIdRangeForJob(anyLong(), any(), any(), anyLong(), anyLong());
+    }
+
+    @Test
+    void reprice_WhenSupersededWhileChunkRuns_RepricesChunkAgainWithNewestRate() {
+        // Given
+        BigDecimal newerRate = new BigDecimal("1.30");
+        when(productRepository.findMinId()).thenReturn(1L);
+        when(productRepository.findMaxId()).thenReturn(10L);
+        when(repricingJobRepository.saveAndFlush(any(RepricingJob.class))).thenAnswer(invocation -> {
+            RepricingJob job = invocation.getArgument(0);
+            job.setId(7L);
+            return job;
+        });
+        when(productRepository.repriceUsdInIdRangeForJob(eq(7L), anyString(), eq(RATE), eq(1L), eq(10L))).thenReturn(10);
+        when(repricingJobRepository.existsByIdAndOwnerAndStatus(eq(7L), anyString(), eq(RepricingJobStatus.RUNNING))).thenReturn(false);
+        when(repricingJobRepository.findFirstByOrderByIdDesc())
+                .thenReturn(Optional.of(RepricingJob.builder().id(8L).rate(newerRate).build()));
+
+        // When
+        repricingService.reprice(RATE, EFFECTIVE_DATE);
+
+        // Then
+        verify(productRepository).repriceUsdInIdRange(newerRate, 1L, 10L);
+        verify(repricingJobRepository, never()).completeJob(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void reprice_WhileFirstChunkIsSlow_KeepsUpdatingHeartbeat() {
+        // Given
+        CountDownLatch heartbeatWithoutProgress = new CountDownLatch(1);
+        when(productRepository.findMinId()).thenReturn(1L);
+        when(productRepository.findMaxId()).thenReturn(30L);
+        when(repricingJobRepository.saveAndFlush(any(RepricingJob.class))).thenAnswer(invocation -> {
+            RepricingJob job = invocation.getArgument(0);
+            job.setId(7L);
+            return job;
+        });
+        when(productRepository.repriceUsdInIdRangeForJob(eq(7L), anyString(), eq(RATE), anyLong(), anyLong()))
+                .thenAnswer(invocation -> {
+                    if (invocation.<Long>getArgument(3) == 1L) {
+                        assertThat(heartbeatWithoutProgress.await(5, TimeUnit.SECONDS)).isTrue();
+                    }
+                    return 10;
+                });
+        when(repricingJobRepository.existsByIdAndOwnerAndStatus(eq(7L), anyString(), eq(RepricingJobStatus.RUNNING))).thenReturn(true);
+        when(repricingJobRepository.updateProgress(eq(7L), anyString(), eq(RepricingJobStatus.RUNNING), anyLong(), anyLong(), any()))
+                .thenAnswer(invocation -> {
+                    if (invocation.<Long>getArgument(3) == 0L) {
+                        heartbeatWithoutProgress.countDown();
+                    }
+                    return 1;
+                });
+
+        // When
+        RepricingJob job = repricingService.reprice(RATE, EFFECTIVE_DATE);
+
+        // Then
+        assertThat(job.getStatus()).isEqualTo(RepricingJobStatus.COMPLETED);
+        verify(repricingJobRepository, atLeastOnce()).updateProgress(eq(7L), anyString(), eq(RepricingJobStatus.RUNNING), eq(0L), anyLong(), any());
+    }
+}
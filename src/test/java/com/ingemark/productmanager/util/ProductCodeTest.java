@@ -0,0 +1,92 @@
+package com.ingemark.productmanager.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ProductCodeTest {
+
+    @Test
+    void encode_ReturnsPaddedUppercaseBase36() {
+        assertThat(ProductCode.encode(0)).isEqualTo("0000000000");
+        assertThat(ProductCode.encode(123)).isEqualTo("000000003F");
+        assertThat(ProductCode.encode(123456789)).isEqualTo("000021I3V9");
+        assertThat(ProductCode.encode(ProductCode.MAX_VALUE)).isEqualTo("ZZZZZZZZZZ");
+    }
+
+    @Test
+    void encode_MatchesThePreviousStringFormatting() {
+        for (int i = 0; i < 10_000; i++) {
+            long value = ThreadLocalRandom.current().nextLong(ProductCode.MAX_VALUE + 1);
+            String previous = String.format("%10s", Long.toString(value, 36).toUpperCase()).replace(' ', '0');
+            assertThat(ProductCode.encode(value)).isEqualTo(previous);
+        }
+    }
+
+    @Test
+    void encode_IntoArray_WritesAtOffset() {
+        char[] destination = "[..........]".toCharArray();
+
+        ProductCode.encode(123, destination, 1);
+
+        assertThat(new String(destination)).isEqualTo("[000000003F]");
+    }
+
+    @Test
+    void encode_WithValueOutOfRange_Throws() {
+        assertThatThrownBy(() -> ProductCode.encode(-1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> ProductCode.encode(ProductCode.MAX_VALUE + 1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void decode_ReversesEncode() {
+        for (long value : new long[]{0, 1, 35, 36, 123, 123456789, ProductCode.MAX_VALUE}) {
+            assertThat(ProductCode.decode(ProductCode.encode(value))).isEqualTo(value);
+        }
+    }
+
+    @Test
+    void number_PrefixesTheSequenceValueWithTheYear() {
+        long codeNumber = ProductCode.number(2026, 123);
+
+        assertThat(ProductCode.encode(codeNumber)).isEqualTo("0Q0000003F");
+        assertThat(ProductCode.hasYear(codeNumber)).isTrue();
+        assertThat(ProductCode.year(codeNumber)).isEqualTo(2026);
+        assertThat(ProductCode.year(ProductCode.number(2026, ProductCode.VALUES_PER_YEAR - 1))).isEqualTo(2026);
+        assertThat(ProductCode.encode(ProductCode.number(ProductCode.LAST_YEAR, 0))).isEqualTo("ZZ00000000");
+    }
+
+    @Test
+    void hasYear_WithCodeFromBeforeYearlySequences_ReturnsFalse() {
+        assertThat(ProductCode.hasYear(ProductCode.decode("000021I3V9"))).isFalse();
+        assertThat(ProductCode.hasYear(ProductCode.decode("00ZZZZZZZZ"))).isFalse();
+    }
+
+    @Test
+    void hasYear_WithYearDigitsOtherThan00_ReturnsTrue() {
+        assertThat(ProductCode.hasYear(ProductCode.decode("0100000000"))).isTrue();
+        assertThat(ProductCode.year(ProductCode.decode("0100000000"))).isEqualTo(ProductCode.FIRST_YEAR);
+        assertThat(ProductCode.hasYear(ProductCode.decode("0PZZZZZZZZ"))).isTrue();
+        assertThat(ProductCode.year(ProductCode.decode("0PZZZZZZZZ"))).isEqualTo(2025);
+    }
+
+    @Test
+    void number_WithYearOrValueOutOfRange_Throws() {
+        assertThatThrownBy(() -> ProductCode.number(ProductCode.FIRST_YEAR - 1, 1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> ProductCode.number(ProductCode.LAST_YEAR + 1, 1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> ProductCode.number(2026, ProductCode.VALUES_PER_YEAR))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void decode_WithTextThatIsNotACode_Throws() {
+        for (String text : new String[]{null, "", "3F", "000000003f", "0000000-3F", "00000000003F"}) {
+            assertThat(ProductCode.isValid(text)).as(text).isFalse();
+            assertThatThrownBy(() -> ProductCode.decode(text)).as(text).isInstanceOf(IllegalArgumentException.class);
+        }
+        assertThat(ProductCode.isValid("TEST123456")).isTrue();
+    }
+}
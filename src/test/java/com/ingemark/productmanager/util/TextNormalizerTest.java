@@ -0,0 +1,32 @@
+package com.ingemark.productmanager.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TextNormalizerTest {
+
+    @Test
+    void normalize_WithCroatianDiacritics_ReturnsLowercaseBaseLetters() {
+        assertThat(TextNormalizer.normalize("Čokolada")).isEqualTo("cokolada");
+        assertThat(TextNormalizer.normalize("ŠĆŽ čćšž")).isEqualTo("scz ccsz");
+        assertThat(TextNormalizer.normalize("Đak đuveč")).isEqualTo("dak duvec");
+    }
+
+    @Test
+    void normalize_WithCompatibilityCharacters_FoldsThem() {
+        assertThat(TextNormalizer.normalize("ﬁlter Ｔ２")).isEqualTo("filter t2");
+        assertThat(TextNormalizer.normalize("Crème Brûlée Øl Łódź")).isEqualTo("creme brulee ol lodz");
+    }
+
+    @Test
+    void normalize_WithCombiningMarks_StripsThem() {
+        // "C" followed by a combining caron instead of the precomposed "Č"
+        assertThat(TextNormalizer.normalize("Čokolada")).isEqualTo("cokolada");
+    }
+
+    @Test
+    void normalize_WithNull_ReturnsNull() {
+        assertThat(TextNormalizer.normalize(null)).isNull();
+    }
+}